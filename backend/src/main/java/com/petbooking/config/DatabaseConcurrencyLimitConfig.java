@@ -0,0 +1,131 @@
+package com.petbooking.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps how many threads may hold a database connection at once.
+ *
+ * With spring.threads.virtual.enabled=true every request gets its own virtual
+ * thread, so a burst no longer queues in Tomcat's thread pool and instead piles
+ * onto Hikari. The fair semaphore queues those threads in arrival order before
+ * they reach the pool (a parked virtual thread costs a few hundred bytes), and
+ * sheds them with an SQLTransientConnectionException after
+ * booking.db.acquire-timeout-ms. Set booking.db.max-concurrency=0 to disable.
+ *
+ * Only active in virtual-thread mode: on platform threads Tomcat's pool and
+ * Hikari already bound concurrency, and the extra semaphore would only add a
+ * hop to every connection checkout.
+ */
+@Configuration
+public class DatabaseConcurrencyLimitConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    public static BeanPostProcessor databaseConcurrencyLimiter(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitedDataSource) {
+                    return bean;
+                }
+                int maxConcurrency = environment.getProperty("booking.db.max-concurrency", Integer.class, 0);
+                if (maxConcurrency <= 0) {
+                    return bean;
+                }
+                long acquireTimeoutMs = environment.getProperty("booking.db.acquire-timeout-ms", Long.class, 30000L);
+                System.out.println("Limiting concurrent database connections of '" + beanName + "' to " + maxConcurrency);
+                return new ConcurrencyLimitedDataSource(dataSource, maxConcurrency, acquireTimeoutMs);
+            }
+        };
+    }
+
+    /**
+     * Takes a permit before borrowing a connection and returns it when the
+     * connection is closed (handed back to the pool).
+     */
+    static final class ConcurrencyLimitedDataSource extends DelegatingDataSource {
+
+        private final Semaphore permits;
+        private final long acquireTimeoutMs;
+
+        ConcurrencyLimitedDataSource(DataSource target, int maxConcurrency, long acquireTimeoutMs) {
+            super(target);
+            this.permits = new Semaphore(maxConcurrency, true);
+            this.acquireTimeoutMs = acquireTimeoutMs;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            acquire();
+            try {
+                return releasing(super.getConnection());
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            acquire();
+            try {
+                return releasing(super.getConnection(username, password));
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        private void acquire() throws SQLException {
+            try {
+                if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new SQLTransientConnectionException(
+                            "Database busy: no connection permit within " + acquireTimeoutMs + "ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted while waiting for a connection permit", e);
+            }
+        }
+
+        private Connection releasing(Connection connection) {
+            AtomicBoolean released = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                        if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                        if ("unwrap".equals(method.getName()) && ((Class<?>) args[0]).isInstance(connection)) {
+                            return connection;
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -1,9 +1,19 @@
 package com.petbooking.config;
 
+import com.petbooking.service.ExamInitService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.io.Resource;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class DatabaseInitializer implements CommandLineRunner {
@@ -11,16 +21,48 @@ public class DatabaseInitializer implements CommandLineRunner {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("classpath:db/book_exam_seat.sql")
+    private Resource bookExamSeatSql;
+
+    private static final String SEED_AVAILABILITY_FROM_SEATS = "INSERT INTO exam_seat_availability "
+            + "(exam_id, dept_id, category_type, slot_date, total_seats, published_seats, free_seats) "
+            + "SELECT s.exam_id, s.dept_id, s.category_type, s.slot_date, COUNT(*), "
+            + "CASE WHEN p.published THEN COUNT(*) ELSE 0 END, COUNT(*) FILTER (WHERE s.roll_number IS NULL) "
+            + "FROM exam_slot_seats s "
+            + "LEFT JOIN exam_dept_publication p ON p.exam_id = s.exam_id AND p.dept_id = s.dept_id "
+            + "WHERE s.dept_id IS NOT NULL AND s.category_type IS NOT NULL "
+            + "GROUP BY s.exam_id, s.dept_id, s.category_type, s.slot_date, p.published";
+
+    private static final String SEED_AVAILABILITY_FROM_CAPACITY = "INSERT INTO exam_seat_availability "
+            + "(exam_id, dept_id, category_type, slot_date, total_seats, published_seats, free_seats) "
+            + "SELECT c.exam_id, c.dept_id, c.category_type, c.slot_date, c.capacity, "
+            + "CASE WHEN p.published THEN c.capacity ELSE 0 END, c.capacity - c.booked_count "
+            + "FROM exam_capacity c "
+            + "LEFT JOIN exam_dept_publication p ON p.exam_id = c.exam_id AND p.dept_id = c.dept_id";
+
+    // Booked seats of both models, for the admin bookings list and My Booking
+    private static final String BOOKED_SEATS_VIEW = "CREATE OR REPLACE VIEW exam_booked_seats AS "
+            + "SELECT slot_id, exam_id, dept_id, category_type, slot_date, roll_number, status "
+            + "FROM exam_slot_seats WHERE roll_number IS NOT NULL "
+            + "UNION ALL "
+            + "SELECT booking_id, exam_id, dept_id, category_type, slot_date, roll_no, 'BOOKED' "
+            + "FROM exam_bookings";
+
     @Override
     public void run(String... args) throws Exception {
         System.out.println("====== CHECKING DATABASE SCHEMA ======");
 
-        // 1. Add book column to exam_slot_seats
+        // 1. Publication state per (exam, department), checked by every booking path
         try {
-            jdbcTemplate.execute("ALTER TABLE exam_slot_seats ADD COLUMN IF NOT EXISTS book BOOLEAN DEFAULT FALSE");
-            System.out.println("Checked/Added 'book' column to exam_slot_seats");
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS exam_dept_publication ("
+                    + "exam_id BIGINT NOT NULL, dept_id BIGINT NOT NULL, published BOOLEAN NOT NULL DEFAULT FALSE, "
+                    + "updated_at TIMESTAMP NOT NULL DEFAULT now(), PRIMARY KEY (exam_id, dept_id))");
+            System.out.println("Checked/Added table exam_dept_publication");
         } catch (Exception e) {
-            System.out.println("Error adding book column: " + e.getMessage());
+            System.out.println("Error preparing exam_dept_publication: " + e.getMessage());
         }
 
         // 2. Add time window columns to exams
@@ -46,6 +88,233 @@ public class DatabaseInitializer implements CommandLineRunner {
             System.out.println("Error adding unique index: " + e.getMessage());
         }
 
+        // 4. Partial index holding only free seats (seat picker search structure)
+        try {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_free_seats ON exam_slot_seats "
+                    + "(exam_id, dept_id, category_type, slot_date, slot_id) WHERE roll_number IS NULL");
+            System.out.println("Checked/Added partial index idx_free_seats");
+        } catch (Exception e) {
+            System.out.println("Error adding free seat index: " + e.getMessage());
+        }
+
+        // 5. Single-round-trip booking function used by BookingService.bookSeat
+        try {
+            String functionSql = StreamUtils.copyToString(bookExamSeatSql.getInputStream(), StandardCharsets.UTF_8);
+            try {
+                jdbcTemplate.execute(functionSql);
+            } catch (org.springframework.dao.DataAccessException e) {
+                // CREATE OR REPLACE cannot change the result columns of an older definition
+                if (e.getMessage() == null || !e.getMessage().contains("cannot change return type")) {
+                    throw e;
+                }
+                jdbcTemplate.execute("DROP FUNCTION IF EXISTS book_exam_seat(VARCHAR, BIGINT, DATE)");
+                jdbcTemplate.execute(functionSql);
+            }
+            System.out.println("Checked/Created function book_exam_seat");
+        } catch (Exception e) {
+            System.out.println("Error creating book_exam_seat function: " + e.getMessage());
+        }
+
+        // 6. Seat availability summary read by the student date picker.
+        // Seeded from exam_slot_seats the first time; kept in step by the booking paths after that.
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS exam_seat_availability ("
+                    + "exam_id BIGINT NOT NULL, dept_id BIGINT NOT NULL, category_type INTEGER NOT NULL, "
+                    + "slot_date DATE NOT NULL, total_seats INTEGER NOT NULL DEFAULT 0, "
+                    + "published_seats INTEGER NOT NULL DEFAULT 0, free_seats INTEGER NOT NULL DEFAULT 0, "
+                    + "PRIMARY KEY (exam_id, dept_id, category_type, slot_date))");
+            Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM exam_seat_availability", Integer.class);
+            if (rows != null && rows == 0) {
+                int seeded = jdbcTemplate.update(SEED_AVAILABILITY_FROM_SEATS);
+                System.out.println("Seeded exam_seat_availability with " + seeded + " rows");
+            }
+            System.out.println("Checked/Added table exam_seat_availability");
+        } catch (Exception e) {
+            System.out.println("Error preparing exam_seat_availability: " + e.getMessage());
+        }
+
+        // 7. Partial index over booked seats, walked in slot_id order by the admin bookings pages
+        try {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_booked_seats ON exam_slot_seats (slot_id) "
+                    + "WHERE roll_number IS NOT NULL");
+            System.out.println("Checked/Added partial index idx_booked_seats");
+        } catch (Exception e) {
+            System.out.println("Error adding booked seat index: " + e.getMessage());
+        }
+
+        // 8. Counted-capacity inventory model (exams.inventory_model = 'COUNTED'): capacity rows per
+        // (exam, dept, category, date) and one booking row per student instead of one row per seat.
+        // Booking ids are drawn from the seat id sequence so both models share one id space.
+        try {
+            jdbcTemplate.execute("ALTER TABLE exams ADD COLUMN IF NOT EXISTS inventory_model VARCHAR(16) "
+                    + "NOT NULL DEFAULT 'SEATS'");
+            jdbcTemplate.execute("ALTER TABLE exams ALTER COLUMN inventory_model SET DEFAULT 'SEATS'");
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS exam_capacity ("
+                    + "exam_id BIGINT NOT NULL REFERENCES exams(exam_id), "
+                    + "dept_id BIGINT NOT NULL REFERENCES departments(dept_id), category_type INTEGER NOT NULL, "
+                    + "slot_date DATE NOT NULL, capacity INTEGER NOT NULL, booked_count INTEGER NOT NULL DEFAULT 0, "
+                    + "PRIMARY KEY (exam_id, dept_id, category_type, slot_date), "
+                    + "CHECK (booked_count >= 0 AND booked_count <= capacity))");
+            String seatIds = jdbcTemplate.queryForObject("SELECT pg_get_serial_sequence('exam_slot_seats', 'slot_id')",
+                    String.class);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS exam_bookings ("
+                    + "booking_id BIGINT PRIMARY KEY DEFAULT nextval('" + seatIds + "'), "
+                    + "exam_id BIGINT NOT NULL, roll_no VARCHAR(20) NOT NULL, dept_id BIGINT NOT NULL, "
+                    + "category_type INTEGER NOT NULL, slot_date DATE NOT NULL, "
+                    + "booked_at TIMESTAMP NOT NULL DEFAULT now(), "
+                    + "UNIQUE (exam_id, roll_no), "
+                    + "FOREIGN KEY (exam_id, dept_id, category_type, slot_date) REFERENCES exam_capacity)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_exam_bookings_roll ON exam_bookings (roll_no)");
+            jdbcTemplate.execute(BOOKED_SEATS_VIEW);
+            System.out.println("Checked/Added counted inventory tables exam_capacity, exam_bookings");
+        } catch (Exception e) {
+            System.out.println("Error preparing counted inventory tables: " + e.getMessage());
+        }
+
+        // 9. Persisted background admin jobs (resumed after a restart)
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS admin_jobs ("
+                    + "job_id BIGSERIAL PRIMARY KEY, job_type VARCHAR(32) NOT NULL, status VARCHAR(16) NOT NULL, "
+                    + "exam_id BIGINT, params TEXT, progress_done INTEGER NOT NULL DEFAULT 0, "
+                    + "progress_total INTEGER NOT NULL DEFAULT 0, progress_unit VARCHAR(16), result TEXT, "
+                    + "error VARCHAR(1000), cancel_requested BOOLEAN NOT NULL DEFAULT FALSE, "
+                    + "attempts INTEGER NOT NULL DEFAULT 0, created_at TIMESTAMP NOT NULL DEFAULT now(), "
+                    + "started_at TIMESTAMP, updated_at TIMESTAMP, finished_at TIMESTAMP)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_admin_jobs_status ON admin_jobs (status)");
+            System.out.println("Checked/Added admin_jobs table");
+        } catch (Exception e) {
+            System.out.println("Error preparing admin_jobs table: " + e.getMessage());
+        }
+
+        // 10. Publication used to be a flag on every seat (exam_slot_seats.book) and capacity row
+        // (exam_capacity.published). Convert once: the flags become exam_dept_publication rows and
+        // the availability summary is recounted (free_seats now also counts unpublished seats)
+        // before the columns, and the indexes built on them, are dropped.
+        try {
+            boolean seatFlag = hasColumn("exam_slot_seats", "book");
+            boolean capacityFlag = hasColumn("exam_capacity", "published");
+            if (seatFlag) {
+                jdbcTemplate.update("INSERT INTO exam_dept_publication (exam_id, dept_id, published, updated_at) "
+                        + "SELECT exam_id, dept_id, COALESCE(bool_or(book), FALSE), now() FROM exam_slot_seats "
+                        + "WHERE dept_id IS NOT NULL GROUP BY exam_id, dept_id "
+                        + "ON CONFLICT (exam_id, dept_id) DO NOTHING");
+            }
+            if (capacityFlag) {
+                jdbcTemplate.update("INSERT INTO exam_dept_publication (exam_id, dept_id, published, updated_at) "
+                        + "SELECT exam_id, dept_id, bool_or(published), now() FROM exam_capacity "
+                        + "GROUP BY exam_id, dept_id ON CONFLICT (exam_id, dept_id) DO NOTHING");
+            }
+            if (seatFlag || capacityFlag) {
+                jdbcTemplate.update("DELETE FROM exam_seat_availability");
+                int seeded = jdbcTemplate.update(SEED_AVAILABILITY_FROM_SEATS)
+                        + jdbcTemplate.update(SEED_AVAILABILITY_FROM_CAPACITY);
+                jdbcTemplate.execute("ALTER TABLE exam_slot_seats DROP COLUMN IF EXISTS book");
+                jdbcTemplate.execute("ALTER TABLE exam_capacity DROP COLUMN IF EXISTS published");
+                System.out.println("Moved publication flags to exam_dept_publication, recounted " + seeded
+                        + " availability rows");
+            }
+        } catch (Exception e) {
+            System.out.println("Error moving publication flags: " + e.getMessage());
+        }
+
+        // 11. Scheduled publish/stop per department (PublishScheduleService re-arms the pending rows)
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS publish_schedule ("
+                    + "schedule_id BIGSERIAL PRIMARY KEY, exam_id BIGINT NOT NULL, dept_id BIGINT NOT NULL, "
+                    + "action VARCHAR(16) NOT NULL, fire_at TIMESTAMP NOT NULL, status VARCHAR(16) NOT NULL, "
+                    + "result VARCHAR(1000), created_at TIMESTAMP NOT NULL DEFAULT now(), fired_at TIMESTAMP)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_publish_schedule_due ON publish_schedule (status, fire_at)");
+            System.out.println("Checked/Added publish_schedule table");
+        } catch (Exception e) {
+            System.out.println("Error preparing publish_schedule table: " + e.getMessage());
+        }
+
+        // 12. exam_slot_seats is list-partitioned by exam_id, one partition per exam created with its
+        // seats (ExamInitService.createSeatPartition), so deleting an exam drops a partition and the
+        // booking statements only touch the exam's own. Hibernate creates the table unpartitioned;
+        // it is converted once, in one transaction: rows are copied into per-exam partitions and the
+        // indexes, foreign keys and the view on it are recreated under their old names. The seat id
+        // sequence (shared with exam_bookings) is kept. The primary key becomes (slot_id, exam_id),
+        // as a partitioned table's unique keys must include the partition column.
+        // Hibernate does not see a partitioned table's indexes and foreign keys, so the ones it used
+        // to create for ExamSlotSeat are created here.
+        try {
+            String kind = jdbcTemplate.queryForObject(
+                    "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('exam_slot_seats')", String.class);
+            if ("r".equals(kind)) {
+                int exams = new TransactionTemplate(transactionManager).execute(status -> partitionSeats());
+                System.out.println("Partitioned exam_slot_seats by exam (" + exams + " exam partitions)");
+            }
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_exam_dept_cat_date "
+                    + "ON exam_slot_seats (exam_id, dept_id, category_type, slot_date)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_roll_number ON exam_slot_seats (roll_number)");
+            addForeignKey("exam_slot_seats", "exam_id", "exams");
+            addForeignKey("exam_slot_seats", "dept_id", "departments");
+            System.out.println("Checked exam_slot_seats partitioning");
+        } catch (Exception e) {
+            System.out.println("Error partitioning exam_slot_seats: " + e.getMessage());
+        }
+
+        // 13. When Hibernate creates admin_jobs it adds a CHECK listing the job types of that
+        // time, which update mode never widens; the JobType enum is the only check kept.
+        try {
+            jdbcTemplate.execute("ALTER TABLE admin_jobs DROP CONSTRAINT IF EXISTS admin_jobs_job_type_check");
+            System.out.println("Checked admin_jobs job types");
+        } catch (Exception e) {
+            System.out.println("Error widening admin_jobs job types: " + e.getMessage());
+        }
+
         System.out.println("====== DATABASE SCHEMA CHECK COMPLETE ======");
     }
+
+    private int partitionSeats() {
+        List<String> indexes = jdbcTemplate.queryForList("SELECT pg_get_indexdef(indexrelid) FROM pg_index "
+                + "WHERE indrelid = 'exam_slot_seats'::regclass AND NOT indisprimary", String.class);
+        List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList("SELECT conname, "
+                + "pg_get_constraintdef(oid) AS def FROM pg_constraint "
+                + "WHERE conrelid = 'exam_slot_seats'::regclass AND contype = 'f'");
+        String seatIds = jdbcTemplate.queryForObject("SELECT pg_get_serial_sequence('exam_slot_seats', 'slot_id')",
+                String.class);
+
+        jdbcTemplate.execute("DROP VIEW IF EXISTS exam_booked_seats");
+        jdbcTemplate.execute("ALTER SEQUENCE " + seatIds + " OWNED BY NONE");
+        jdbcTemplate.execute("ALTER TABLE exam_slot_seats RENAME TO exam_slot_seats_unpartitioned");
+        jdbcTemplate.execute("CREATE TABLE exam_slot_seats (LIKE exam_slot_seats_unpartitioned INCLUDING DEFAULTS) "
+                + "PARTITION BY LIST (exam_id)");
+        List<Long> examIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT exam_id FROM exam_slot_seats_unpartitioned ORDER BY exam_id", Long.class);
+        for (Long examId : examIds) {
+            jdbcTemplate.execute("CREATE TABLE " + ExamInitService.seatPartitionName(examId)
+                    + " PARTITION OF exam_slot_seats FOR VALUES IN (" + examId + ")");
+        }
+        jdbcTemplate.execute("INSERT INTO exam_slot_seats SELECT * FROM exam_slot_seats_unpartitioned");
+        jdbcTemplate.execute("DROP TABLE exam_slot_seats_unpartitioned");
+        jdbcTemplate.execute("ALTER SEQUENCE " + seatIds + " OWNED BY exam_slot_seats.slot_id");
+
+        jdbcTemplate.execute("ALTER TABLE exam_slot_seats ADD CONSTRAINT exam_slot_seats_pkey "
+                + "PRIMARY KEY (slot_id, exam_id)");
+        indexes.forEach(jdbcTemplate::execute);
+        for (Map<String, Object> foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE exam_slot_seats ADD CONSTRAINT " + foreignKey.get("conname") + " "
+                    + foreignKey.get("def"));
+        }
+        jdbcTemplate.execute(BOOKED_SEATS_VIEW);
+        return examIds.size();
+    }
+
+    private void addForeignKey(String table, String column, String referenced) {
+        boolean exists = Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 "
+                + "FROM pg_constraint WHERE conrelid = to_regclass(?) AND confrelid = to_regclass(?) "
+                + "AND contype = 'f')", Boolean.class, table, referenced));
+        if (!exists) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD FOREIGN KEY (" + column + ") REFERENCES "
+                    + referenced + " (" + column + ")");
+        }
+    }
+
+    private boolean hasColumn(String table, String column) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 "
+                + "FROM information_schema.columns WHERE table_schema = current_schema() "
+                + "AND table_name = ? AND column_name = ?)", Boolean.class, table, column));
+    }
 }
@@ -82,53 +82,51 @@ public class AdminController {
         return ResponseEntity.ok(saved);
     }
 
+    /**
+     * Booked seats in slot_id order, one page per call. A full page carries an
+     * X-Next-Cursor header; pass it back as afterSlotId for the next page.
+     */
     @GetMapping("/bookings")
     public ResponseEntity<?> getAllBookings(
             @RequestParam(required = false) Long slotId,
-            @RequestParam(required = false) Long deptId) {
-
-        // Fetch booked seats from ExamSlotSeat (Where rollNumber is not null)
-        // We ignore slotId/deptId filters for now or implement them if needed
-        List<com.petbooking.entity.ExamSlotSeat> bookedSeats = slotSeatRepository.findAll().stream()
-                .filter(s -> s.getRollNumber() != null)
-                .collect(java.util.stream.Collectors.toList());
+            @RequestParam(required = false) Long deptId,
+            @RequestParam(defaultValue = "0") Long afterSlotId,
+            @RequestParam(defaultValue = "500") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, 2000));
+
+        // One query joins booking, student, department and exam; one extra row tells us if there is a next page
+        List<Object[]> rows = examAdminService.findBookedSeatsPage(afterSlotId, slotId, deptId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
 
         // Map to response format expected by BookingViewer
-        // Frontend expects: bookingId, student(rollNo, name), department(deptCode),
+        // Frontend expects: bookingId, examId, student(rollNo, name), department(deptCode),
         // slot(slotDate, startTime, category)
-        List<java.util.Map<String, Object>> response = bookedSeats.stream().map(seat -> {
+        List<java.util.Map<String, Object>> response = rows.stream().map(row -> {
             java.util.Map<String, Object> map = new java.util.HashMap<>();
-            map.put("bookingId", seat.getSlotId());
+            map.put("bookingId", row[0]);
+            map.put("examId", row[8]);
 
-            // Fetch student name lazily or just show rollNo if costly
-            // Ideally we should use a join query, but for now we have rollNumber in seat
             java.util.Map<String, Object> studentMap = new java.util.HashMap<>();
-            studentMap.put("rollNo", seat.getRollNumber());
-            // We can try to fetch name if we have StudentRepository injected
-            studentRepository.findById(seat.getRollNumber()).ifPresent(s -> studentMap.put("name", s.getName()));
+            studentMap.put("rollNo", row[1]);
+            if (row[2] != null) {
+                studentMap.put("name", row[2]);
+            }
             map.put("student", studentMap);
 
             java.util.Map<String, Object> deptMap = new java.util.HashMap<>();
-            deptMap.put("deptCode", seat.getDepartment().getDeptCode());
+            deptMap.put("deptCode", row[3]);
             map.put("department", deptMap);
 
             java.util.Map<String, Object> slotMap = new java.util.HashMap<>();
-            slotMap.put("slotDate", seat.getSlotDate());
-            // Determine time/category
-            Integer cat = seat.getCategoryType();
+            slotMap.put("slotDate", row[4]);
+            Integer cat = (Integer) row[5];
             String catStr = cat == 1 ? "DAY" : cat == 2 ? "HOSTEL_MALE" : "HOSTEL_FEMALE";
             slotMap.put("category", catStr);
-
-            // Get time from Exam
-            com.petbooking.entity.Exam exam = seat.getExam();
-            if (cat == 1) {
-                slotMap.put("startTime",
-                        exam.getDayScholarStartTime() != null ? exam.getDayScholarStartTime().toString() : "TBD");
-            } else {
-                slotMap.put("startTime",
-                        exam.getHostelStartTime() != null ? exam.getHostelStartTime().toString() : "TBD");
-            }
-
+            Object startTime = cat == 1 ? row[6] : row[7];
+            slotMap.put("startTime", startTime != null ? startTime.toString() : "TBD");
             map.put("slot", slotMap);
 
             // Legacy support
@@ -137,15 +135,48 @@ public class AdminController {
             return map;
         }).collect(java.util.stream.Collectors.toList());
 
-        return ResponseEntity.ok(response);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (hasMore) {
+            ok.header("X-Next-Cursor", String.valueOf(rows.get(rows.size() - 1)[0]));
+        }
+        return ok.body(response);
     }
 
     @Autowired
     private com.petbooking.repository.StudentRepository studentRepository;
 
+    /**
+     * One page of students, keyset-paginated by roll number (X-Next-Cursor holds
+     * the afterRollNo of the next page). Filters: deptId, category, rollPrefix.
+     */
     @GetMapping("/students")
-    public ResponseEntity<?> getAllStudents() {
-        return ResponseEntity.ok(studentRepository.findAll());
+    public ResponseEntity<?> getAllStudents(
+            @RequestParam(required = false) Long deptId,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String rollPrefix,
+            @RequestParam(defaultValue = "") String afterRollNo,
+            @RequestParam(defaultValue = "500") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, 2000));
+        var rows = studentRepository.findListPage(afterRollNo, deptId,
+                category != null ? com.petbooking.entity.Student.StudentCategory.valueOf(category) : null,
+                likePrefix(rollPrefix), org.springframework.data.domain.PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (hasMore) {
+            ok.header("X-Next-Cursor", rows.get(rows.size() - 1).getRollNo());
+        }
+        return ok.body(rows);
+    }
+
+    // LIKE pattern for a roll number prefix; wildcards typed by the user are dropped
+    private static String likePrefix(String prefix) {
+        if (prefix == null || prefix.isBlank()) {
+            return null;
+        }
+        return prefix.trim().replaceAll("[%_\\\\]", "") + "%";
     }
 
     @Autowired
@@ -162,12 +193,84 @@ public class AdminController {
         }
     }
 
+    /**
+     * Start a background upload of one or more student master files (202 with
+     * the job status). allSheets=true reads every sheet of each file, not only
+     * the first. Poll GET /student-master/upload-jobs/{jobId} for progress.
+     */
+    @PostMapping(value = "/student-master/upload-jobs", consumes = org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> startStudentMasterUpload(
+            @RequestParam("files") List<org.springframework.web.multipart.MultipartFile> files,
+            @RequestParam(defaultValue = "false") boolean allSheets) {
+        try {
+            Long adminId = 1L; // TODO: Extract from SecurityContext
+            var job = uploadService.startJob(files, adminId, allSheets);
+            return ResponseEntity.accepted().body(job.toStatus());
+        } catch (java.io.IOException e) {
+            return ResponseEntity.badRequest().body("Error processing file: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/student-master/upload-jobs")
+    public ResponseEntity<?> getStudentMasterUploadJobs() {
+        return ResponseEntity.ok(uploadService.getJobs().stream()
+                .map(com.petbooking.service.StudentUploadJob::toStatus)
+                .toList());
+    }
+
+    /**
+     * Rows read and processed so far, errors so far and rows per second; the
+     * full result (as from /student-master/upload) once the job has completed.
+     */
+    @GetMapping("/student-master/upload-jobs/{jobId}")
+    public ResponseEntity<?> getStudentMasterUploadJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(uploadService.getJob(jobId).toStatus());
+    }
+
     @Autowired
     private com.petbooking.repository.StudentMasterUploadRepository studentMasterUploadRepository;
 
+    /**
+     * One page of student master rows, keyset-paginated by roll number
+     * (X-Next-Cursor holds the afterRollNo of the next page).
+     * Filters: deptCode, category (DAY / HOSTEL_MALE / HOSTEL_FEMALE), rollPrefix.
+     */
     @GetMapping("/student-master")
-    public ResponseEntity<?> getAllStudentMasterData() {
-        return ResponseEntity.ok(studentMasterUploadRepository.findAll());
+    public ResponseEntity<?> getAllStudentMasterData(
+            @RequestParam(required = false) String deptCode,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String rollPrefix,
+            @RequestParam(defaultValue = "") String afterRollNo,
+            @RequestParam(defaultValue = "500") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, 2000));
+        // Master rows keep the Excel columns: student_type DAY/HOSTEL plus gender
+        String studentType = null;
+        String gender = null;
+        if (category != null) {
+            switch (com.petbooking.entity.Student.StudentCategory.valueOf(category)) {
+                case DAY -> studentType = "DAY";
+                case HOSTEL_MALE -> {
+                    studentType = "HOSTEL";
+                    gender = "MALE";
+                }
+                case HOSTEL_FEMALE -> {
+                    studentType = "HOSTEL";
+                    gender = "FEMALE";
+                }
+            }
+        }
+        var rows = studentMasterUploadRepository.findListPage(afterRollNo,
+                deptCode != null && !deptCode.isBlank() ? deptCode.toUpperCase() : null, studentType, gender,
+                likePrefix(rollPrefix), org.springframework.data.domain.PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (hasMore) {
+            ok.header("X-Next-Cursor", rows.get(rows.size() - 1).getRollNo());
+        }
+        return ok.body(rows);
     }
 
     @GetMapping("/student-master/strength")
@@ -216,6 +319,9 @@ public class AdminController {
         return ResponseEntity.ok(result);
     }
 
+    @Autowired
+    private com.petbooking.service.StudentProfileCache studentProfileCache;
+
     @PutMapping("/students/{rollNo}")
     public ResponseEntity<?> updateStudent(
             @PathVariable String rollNo,
@@ -238,7 +344,9 @@ public class AdminController {
                 student.setDepartment(dept);
             }
 
-            return ResponseEntity.ok(studentRepository.save(student));
+            var saved = studentRepository.save(student);
+            studentProfileCache.evict(rollNo);
+            return ResponseEntity.ok(saved);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().body("Update failed: " + e.getMessage());
@@ -266,9 +374,28 @@ public class AdminController {
         }
     }
 
+    /**
+     * One page of exam slots, keyset-paginated by id (X-Next-Cursor holds the
+     * afterId of the next page). Filters: department, studentType.
+     */
     @GetMapping("/exam-slots")
-    public ResponseEntity<?> getAllExamSlots() {
-        return ResponseEntity.ok(examSlotRepository.findAll());
+    public ResponseEntity<?> getAllExamSlots(
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) String studentType,
+            @RequestParam(defaultValue = "0") Integer afterId,
+            @RequestParam(defaultValue = "500") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, 2000));
+        var rows = examSlotRepository.findListPage(afterId, department, studentType,
+                org.springframework.data.domain.PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (hasMore) {
+            ok.header("X-Next-Cursor", String.valueOf(rows.get(rows.size() - 1).getId()));
+        }
+        return ok.body(rows);
     }
 
     // ========== NEW: Exam Initialization Endpoints ==========
@@ -286,9 +413,20 @@ public class AdminController {
         }
     }
 
+    @Autowired
+    private com.petbooking.service.ContentVersionService contentVersionService;
+
+    /**
+     * Exam list. Answers 304 without a query while the If-None-Match tag is current.
+     */
     @GetMapping("/exams")
-    public ResponseEntity<?> getAllExams() {
-        return ResponseEntity.ok(examInitService.getAllExams());
+    public ResponseEntity<?> getAllExams(org.springframework.web.context.request.WebRequest webRequest) {
+        String etag = contentVersionService.examListTag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(org.springframework.http.CacheControl.noCache())
+                .body(examInitService.getAllExams());
     }
 
     @GetMapping("/exams/{examId}")
@@ -315,6 +453,71 @@ public class AdminController {
         }
     }
 
+    // ========== Background Admin Jobs ==========
+    @Autowired
+    private com.petbooking.service.AdminJobService adminJobService;
+
+    /**
+     * Same as /exam/initialize, as a background job: the exam and quotas first,
+     * then the seats one department at a time. Poll GET /jobs/{jobId}; the
+     * result holds the usual initialization response.
+     */
+    @PostMapping("/jobs/exam-create")
+    public ResponseEntity<?> startExamCreation(@RequestBody com.petbooking.dto.ExamDtos.ExamInitRequest request) {
+        return ResponseEntity.accepted().body(adminJobService.submitCreateExam(request));
+    }
+
+    @PostMapping("/jobs/exam-delete/{examId}")
+    public ResponseEntity<?> startExamDeletion(@PathVariable Long examId) {
+        return ResponseEntity.accepted().body(adminJobService.submitDeleteExam(examId));
+    }
+
+    /**
+     * Deletes the exam but keeps its seats and bookings in the table named in
+     * the job result (exam_slot_seats_archive_{examId}).
+     */
+    @PostMapping("/jobs/exam-archive/{examId}")
+    public ResponseEntity<?> startExamArchive(@PathVariable Long examId) {
+        return ResponseEntity.accepted().body(adminJobService.submitArchiveExam(examId));
+    }
+
+    @PostMapping("/jobs/exam-publish/{examId}")
+    public ResponseEntity<?> startExamPublish(@PathVariable Long examId) {
+        return ResponseEntity.accepted().body(adminJobService.submitPublish(examId, true));
+    }
+
+    @PostMapping("/jobs/exam-stop/{examId}")
+    public ResponseEntity<?> startExamStop(@PathVariable Long examId) {
+        return ResponseEntity.accepted().body(adminJobService.submitPublish(examId, false));
+    }
+
+    @PostMapping("/jobs/generate-slots")
+    public ResponseEntity<?> startSlotGeneration(@RequestBody java.util.Map<String, Object> request) {
+        int systemsPerSession = ((Number) request.get("systemsPerSession")).intValue();
+        String startDateStr = (String) request.getOrDefault("startDate", java.time.LocalDate.now().toString());
+        return ResponseEntity.accepted().body(adminJobService.submitGenerateSlots(systemsPerSession,
+                java.time.LocalDate.parse(startDateStr)));
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<?> getAdminJobs() {
+        return ResponseEntity.ok(adminJobService.getJobs());
+    }
+
+    /**
+     * Status, progress (progressDone of progressTotal progressUnit) and, once
+     * completed, the operation's result.
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getAdminJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(adminJobService.getJob(jobId));
+    }
+
+    @PostMapping("/jobs/{jobId}/cancel")
+    public ResponseEntity<?> cancelAdminJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(adminJobService.cancel(jobId));
+    }
+
     @PatchMapping("/quotas/{quotaId}")
     public ResponseEntity<?> updateQuota(@PathVariable Long quotaId,
             @RequestBody java.util.Map<String, Object> updates) {
@@ -404,13 +607,46 @@ public class AdminController {
         }
     }
 
+    // ========== Scheduled Publish Windows ==========
+    @Autowired
+    private com.petbooking.service.PublishScheduleService publishScheduleService;
+
+    /**
+     * Schedule publish/stop per department, either explicit windows
+     * ({"departments":[{"deptId":1,"publishAt":"...","stopAt":"..."}]}) or a
+     * staggered start ({"startAt":"...","staggerMinutes":5,"windowMinutes":60}).
+     */
+    @PostMapping("/exams/{examId}/publish-schedule")
+    public ResponseEntity<?> schedulePublish(@PathVariable Long examId,
+            @RequestBody com.petbooking.dto.ExamDtos.PublishScheduleRequest request) {
+        return ResponseEntity.ok(publishScheduleService.schedule(examId, request));
+    }
+
+    @GetMapping("/exams/{examId}/publish-schedule")
+    public ResponseEntity<?> getPublishSchedule(@PathVariable Long examId) {
+        return ResponseEntity.ok(publishScheduleService.getSchedule(examId));
+    }
+
     /**
-     * Cancel/Delete a specific booking.
+     * Cancel the exam's pending entries; departments stay as they are.
+     */
+    @DeleteMapping("/exams/{examId}/publish-schedule")
+    public ResponseEntity<?> cancelPublishSchedule(@PathVariable Long examId) {
+        return ResponseEntity.ok(publishScheduleService.cancelExam(examId));
+    }
+
+    @PostMapping("/publish-schedule/{scheduleId}/cancel")
+    public ResponseEntity<?> cancelPublishScheduleEntry(@PathVariable Long scheduleId) {
+        return ResponseEntity.ok(publishScheduleService.cancel(scheduleId));
+    }
+
+    /**
+     * Cancel/Delete a specific booking of an exam (examId as on the bookings page).
      */
     @DeleteMapping("/bookings/{slotId}")
-    public ResponseEntity<?> deleteBooking(@PathVariable Long slotId) {
+    public ResponseEntity<?> deleteBooking(@PathVariable Long slotId, @RequestParam Long examId) {
         try {
-            var result = examAdminService.cancelBooking(slotId);
+            var result = examAdminService.cancelBooking(examId, slotId);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Cancel failed: " + e.getMessage());
@@ -421,23 +657,103 @@ public class AdminController {
      * Get day-wise slot summary for admin dashboard.
      */
     @GetMapping("/exams/{examId}/dashboard")
-    public ResponseEntity<?> getDashboard(@PathVariable Long examId) {
+    public ResponseEntity<?> getDashboard(@PathVariable Long examId,
+            org.springframework.web.context.request.WebRequest webRequest) {
         try {
+            // Read the tag before the data: a change in between only makes the tag older
+            String etag = contentVersionService.dashboardTag(examId);
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
             var stats = examAdminService.getDashboardStats(examId);
-            return ResponseEntity.ok(stats);
+            return ResponseEntity.ok().eTag(etag).cacheControl(org.springframework.http.CacheControl.noCache())
+                    .body(stats);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Dashboard failed: " + e.getMessage());
         }
     }
 
+    @Autowired
+    private com.petbooking.service.BookingMetrics bookingMetrics;
+    @Autowired
+    private com.petbooking.service.SeatAvailabilityService seatAvailabilityService;
+
+    /**
+     * Seat booking outcome counters (booked, full, contended retries/give-ups).
+     */
+    @GetMapping("/metrics/booking")
+    public ResponseEntity<?> getBookingMetrics() {
+        return ResponseEntity.ok(bookingMetrics.snapshot());
+    }
+
+    /**
+     * Recount the seat availability summary from exam_slot_seats.
+     */
+    @PostMapping("/availability/rebuild")
+    public ResponseEntity<?> rebuildAvailability() {
+        try {
+            int rows = seatAvailabilityService.rebuild();
+            contentVersionService.everythingChanged();
+            return ResponseEntity.ok(java.util.Map.of("rows", rows, "message", "Rebuilt " + rows + " availability rows"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("message", e.getMessage()));
+        }
+    }
+
+    @Autowired
+    private com.petbooking.service.BookingExportService bookingExportService;
+
+    /**
+     * Download bookings (type=bookings) or every seat (type=roster) of an exam
+     * as CSV or XLSX. The file is built from a DB cursor before the download
+     * starts, so the connection is not held while the client reads.
+     */
+    @GetMapping("/exports/bookings")
+    public ResponseEntity<org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody> exportBookings(
+            @RequestParam Long examId,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(
+                    iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate slotDate,
+            @RequestParam(required = false) Long deptId,
+            @RequestParam(required = false) Integer categoryType,
+            @RequestParam(defaultValue = "bookings") String type,
+            @RequestParam(defaultValue = "csv") String format) throws java.io.IOException {
+        var filter = new com.petbooking.service.BookingExportService.ExportFilter(examId, slotDate, deptId,
+                categoryType, !"roster".equalsIgnoreCase(type));
+        java.nio.file.Path file = bookingExportService.export(filter, format);
+
+        boolean xlsx = "xlsx".equalsIgnoreCase(format);
+        String filename = "exam-" + examId + "-" + (filter.bookedOnly() ? "bookings" : "roster")
+                + (slotDate != null ? "-" + slotDate : "") + (xlsx ? ".xlsx" : ".csv");
+        return ResponseEntity.ok()
+                .contentType(xlsx
+                        ? org.springframework.http.MediaType.parseMediaType(
+                                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                        : org.springframework.http.MediaType.parseMediaType("text/csv; charset=UTF-8"))
+                .contentLength(java.nio.file.Files.size(file))
+                .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
+                .body(out -> {
+                    try {
+                        java.nio.file.Files.copy(file, out);
+                    } finally {
+                        java.nio.file.Files.deleteIfExists(file);
+                    }
+                });
+    }
+
     /**
      * Get department-wise slot summary.
      */
     @GetMapping("/exams/{examId}/department-stats")
-    public ResponseEntity<?> getDepartmentStats(@PathVariable Long examId) {
+    public ResponseEntity<?> getDepartmentStats(@PathVariable Long examId,
+            org.springframework.web.context.request.WebRequest webRequest) {
         try {
+            String etag = contentVersionService.dashboardTag(examId);
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
             var stats = examAdminService.getDepartmentStats(examId);
-            return ResponseEntity.ok(stats);
+            return ResponseEntity.ok().eTag(etag).cacheControl(org.springframework.http.CacheControl.noCache())
+                    .body(stats);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Stats failed: " + e.getMessage());
         }
@@ -114,8 +114,13 @@ public class StudentController {
      * Get list of available exams for students.
      */
     @GetMapping("/exams")
-    public ResponseEntity<?> getExams() {
-        return ResponseEntity.ok(examRepository.findAll());
+    public ResponseEntity<?> getExams(org.springframework.web.context.request.WebRequest webRequest) {
+        String etag = contentVersionService.examListTag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(org.springframework.http.CacheControl.noCache())
+                .body(examRepository.findAll());
     }
 
     // ========== NEW: Exam Slot Endpoints ==========
@@ -159,21 +164,37 @@ public class StudentController {
     @Autowired
     private com.petbooking.repository.ExamRepository examRepository;
 
+    @Autowired
+    private com.petbooking.service.ContentVersionService contentVersionService;
+    @Autowired
+    private com.petbooking.service.StudentProfileCache studentProfileCache;
+
     /**
      * Get available exam dates with slot counts for student.
-     * Only shows PUBLISHED slots (book=true) for student's dept/category.
+     * Only shows PUBLISHED slots (department published) for student's dept/category.
+     * Answers 304 without touching the database while the student's
+     * partition is unchanged.
      */
     @GetMapping("/available-dates/{examId}")
-    public ResponseEntity<?> getAvailableDates(@PathVariable Long examId, Authentication auth) {
+    public ResponseEntity<?> getAvailableDates(@PathVariable Long examId,
+            @RequestHeader(value = "X-Queue-Token", required = false) String queueToken, Authentication auth,
+            org.springframework.web.context.request.WebRequest webRequest) {
         try {
             String rollNo = auth.getName();
-            Student student = studentRepository.findById(rollNo)
-                    .orElseThrow(() -> new RuntimeException("Student not found"));
-
-            Integer categoryType = mapCategoryType(student.getCategory());
-            Long deptId = student.getDepartment().getDeptId();
+            if (!admissionService.isAdmitted(queueToken, rollNo, examId)) {
+                return notAdmitted();
+            }
+            var profile = studentProfileCache.get(rollNo);
+            Integer categoryType = profile.categoryType();
+            Long deptId = profile.deptId();
+
+            // Read the tag before the data: a change in between only makes the tag older
+            String etag = contentVersionService.availableDatesTag(examId, deptId, categoryType);
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
 
-            var dates = slotSeatRepository.findAvailableDatesWithCount(examId, deptId, categoryType);
+            var dates = seatAvailabilityService.findAvailableDates(examId, deptId, categoryType);
 
             // Get exam for time windows
             var exam = examRepository.findById(examId)
@@ -199,10 +220,12 @@ public class StudentController {
                 result.add(item);
             }
 
-            return ResponseEntity.ok(java.util.Map.of(
-                    "examId", examId,
-                    "examName", exam.getExamName(),
-                    "availableDates", result));
+            return ResponseEntity.ok().eTag(etag)
+                    .cacheControl(org.springframework.http.CacheControl.noCache().cachePrivate())
+                    .body(java.util.Map.of(
+                            "examId", examId,
+                            "examName", exam.getExamName(),
+                            "availableDates", result));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
@@ -212,14 +235,22 @@ public class StudentController {
      * Book a seat using atomic UPDATE (race-condition safe).
      */
     @PostMapping("/book-seat")
-    public ResponseEntity<?> bookSeat(@RequestBody java.util.Map<String, Object> request, Authentication auth) {
+    public ResponseEntity<?> bookSeat(@RequestBody java.util.Map<String, Object> request,
+            @RequestHeader(value = "X-Queue-Token", required = false) String queueToken, Authentication auth) {
         try {
             String rollNo = auth.getName();
             Long examId = Long.parseLong(request.get("examId").toString());
             java.time.LocalDate slotDate = java.time.LocalDate.parse(request.get("slotDate").toString());
+            if (!admissionService.isAdmitted(queueToken, rollNo, examId)) {
+                return notAdmitted();
+            }
 
             var result = bookingService.bookSeat(rollNo, examId, slotDate);
             return ResponseEntity.ok(result);
+        } catch (com.petbooking.exception.SeatContendedException e) {
+            // Seats still exist, they are just locked right now - tell the client to retry shortly
+            return ResponseEntity.status(503).header("Retry-After", "1")
+                    .body(java.util.Map.of("message", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(java.util.Map.of("message", e.getMessage()));
         }
@@ -242,19 +273,62 @@ public class StudentController {
         }
     }
 
+    // ========== Waiting Room (publish bursts) ==========
+    @Autowired
+    private com.petbooking.service.AdmissionService admissionService;
+
+    @Autowired
+    private com.petbooking.service.SeatAvailabilityService seatAvailabilityService;
+
+    /**
+     * Join the waiting room for an exam. Looks up the student's department once;
+     * after that, polling the ticket is served from memory.
+     */
+    @PostMapping("/queue/{examId}")
+    public ResponseEntity<?> joinQueue(@PathVariable Long examId, Authentication auth) {
+        try {
+            String rollNo = auth.getName();
+            if (!admissionService.isEnabled()) {
+                return ResponseEntity.ok(admissionService.join(rollNo, examId, null));
+            }
+            Student student = studentRepository.findById(rollNo)
+                    .orElseThrow(() -> new RuntimeException("Student not found"));
+            return ResponseEntity.ok(admissionService.join(rollNo, examId, student.getDepartment().getDeptId()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("message", e.getMessage()));
+        }
+    }
+
     /**
-     * Helper to map category enum to type integer.
+     * Current queue position for a ticket. Never touches the database.
      */
-    private Integer mapCategoryType(Student.StudentCategory category) {
-        switch (category) {
-            case DAY:
-                return 1;
-            case HOSTEL_MALE:
-                return 2;
-            case HOSTEL_FEMALE:
-                return 3;
-            default:
-                return 1;
+    @GetMapping("/queue/{examId}/status")
+    public ResponseEntity<?> queueStatus(@PathVariable Long examId, @RequestParam String token, Authentication auth) {
+        try {
+            return ResponseEntity.ok(admissionService.status(token, auth.getName(), examId));
+        } catch (Exception e) {
+            return ResponseEntity.status(404).body(java.util.Map.of("message", e.getMessage()));
         }
     }
+
+    // ========== Live Availability (SSE) ==========
+    @Autowired
+    private com.petbooking.service.SeatAvailabilityPublisher seatAvailabilityPublisher;
+
+    /**
+     * Server-Sent Events stream of free seat counts for the student's
+     * department and category. Replaces polling available-dates.
+     */
+    @GetMapping("/availability-stream/{examId}")
+    public org.springframework.web.servlet.mvc.method.annotation.SseEmitter availabilityStream(
+            @PathVariable Long examId, Authentication auth) {
+        // Returned unwrapped: the SSE return value handler does not see through ResponseEntity<?>.
+        // Lookup failures surface as 400 through GlobalExceptionHandler.
+        return seatAvailabilityPublisher.subscribe(auth.getName(), examId);
+    }
+
+    private ResponseEntity<?> notAdmitted() {
+        return ResponseEntity.status(429).header("Retry-After", "2")
+                .body(java.util.Map.of("message", "Please wait in the queue for your turn.", "queued", true));
+    }
 }
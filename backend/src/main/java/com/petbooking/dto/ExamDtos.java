@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
 
@@ -27,6 +28,8 @@ public class ExamDtos {
         private LocalTime hostelStartTime;
         private LocalTime hostelEndTime;
         private Integer systemsPerSlot;
+        // SEATS (default) or COUNTED, see ExamCapacityService
+        private com.petbooking.entity.Exam.InventoryModel inventoryModel;
     }
 
     @Data
@@ -67,4 +70,32 @@ public class ExamDtos {
         private String status;
         private String message;
     }
+
+    /**
+     * Publish windows for an exam's departments. Either explicit windows per
+     * department, or a staggered sequence: the departments in deptIds (default:
+     * all of the exam's) open one every staggerMinutes from startAt and close
+     * windowMinutes after their own opening, or all at stopAt.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PublishScheduleRequest {
+        private List<DeptPublishWindow> departments;
+
+        private LocalDateTime startAt;
+        private Integer staggerMinutes;
+        private List<Long> deptIds;
+        private Integer windowMinutes;
+        private LocalDateTime stopAt;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DeptPublishWindow {
+        private Long deptId;
+        private LocalDateTime publishAt; // optional, as is stopAt, but not both
+        private LocalDateTime stopAt;
+    }
 }
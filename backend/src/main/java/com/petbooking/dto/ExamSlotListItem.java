@@ -0,0 +1,25 @@
+package com.petbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One row of the admin exam slot list, with its exam day flattened in.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamSlotListItem {
+    private Integer id;
+    private Integer examDayId;
+    private LocalDate examDate;
+    private String session;
+    private String department;
+    private String studentType;
+    private String gender;
+    private Integer maxCapacity;
+    private Integer bookedCount;
+}
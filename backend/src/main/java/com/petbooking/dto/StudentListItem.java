@@ -0,0 +1,24 @@
+package com.petbooking.dto;
+
+import com.petbooking.entity.Student;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the admin student list, projected in the query (no Department proxy per row).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentListItem {
+    private String rollNo;
+    private String name;
+    private String email;
+    private Long deptId;
+    private String deptCode;
+    private Student.StudentCategory category;
+    private LocalDateTime createdAt;
+}
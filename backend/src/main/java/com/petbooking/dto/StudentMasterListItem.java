@@ -0,0 +1,21 @@
+package com.petbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of the admin student master list.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentMasterListItem {
+    private Long id;
+    private String rollNo;
+    private String name;
+    private String email;
+    private String deptCode;
+    private String studentType;
+    private String gender;
+}
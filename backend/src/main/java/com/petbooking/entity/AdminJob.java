@@ -0,0 +1,86 @@
+package com.petbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * A long-running admin operation (exam creation, deletion or archiving,
+ * publish/stop, slot generation) run in the background by AdminJobService.
+ * The row is the job's only state, so a job interrupted by a restart is
+ * picked up again from it.
+ */
+@Entity
+@Table(name = "admin_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "job_id")
+    private Long jobId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_type", nullable = false, length = 32)
+    private JobType jobType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status = Status.QUEUED;
+
+    // Set once the exam exists (a creation job learns it after its first step)
+    @Column(name = "exam_id")
+    private Long examId;
+
+    // The job's input as JSON (the exam request, slot generation settings)
+    @Column(name = "params", columnDefinition = "TEXT")
+    private String params;
+
+    @Column(name = "progress_done", nullable = false)
+    private Integer progressDone = 0;
+
+    @Column(name = "progress_total", nullable = false)
+    private Integer progressTotal = 0;
+
+    // What progress counts: departments, seats or steps
+    @Column(name = "progress_unit", length = 16)
+    private String progressUnit;
+
+    // The operation's response as JSON once completed
+    @Column(name = "result", columnDefinition = "TEXT")
+    private String result;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+
+    @Column(name = "cancel_requested", nullable = false)
+    private Boolean cancelRequested = false;
+
+    // Runs started so far; more than one means the job was resumed after a restart
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public enum JobType {
+        CREATE_EXAM, DELETE_EXAM, ARCHIVE_EXAM, PUBLISH_EXAM, STOP_EXAM, GENERATE_SLOTS
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+}
@@ -62,4 +62,13 @@ public class Exam {
 
     @Column(name = "systems_per_slot")
     private Integer systemsPerSlot = 30;
+
+    // SEATS: one exam_slot_seats row per seat; COUNTED: exam_capacity rows with a booked count
+    @Enumerated(EnumType.STRING)
+    @Column(name = "inventory_model", nullable = false, length = 16)
+    private InventoryModel inventoryModel = InventoryModel.SEATS;
+
+    public enum InventoryModel {
+        SEATS, COUNTED
+    }
 }
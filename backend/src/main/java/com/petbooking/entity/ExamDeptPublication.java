@@ -0,0 +1,45 @@
+package com.petbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Whether one department of an exam is open for booking. Publish and stop
+ * flip this row instead of a flag on every seat; the booking statements and
+ * the availability reads join against it. One row per department that has
+ * seats (or capacity) in the exam, for both inventory models.
+ */
+@Entity
+@Table(name = "exam_dept_publication")
+@IdClass(ExamDeptPublication.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamDeptPublication {
+
+    @Id
+    @Column(name = "exam_id")
+    private Long examId;
+
+    @Id
+    @Column(name = "dept_id")
+    private Long deptId;
+
+    @Column(name = "published", nullable = false)
+    private Boolean published = false;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long examId;
+        private Long deptId;
+    }
+}
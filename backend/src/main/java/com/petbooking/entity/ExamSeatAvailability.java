@@ -0,0 +1,59 @@
+package com.petbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Seat counts per (exam, department, category, date), maintained alongside
+ * exam_slot_seats so the student date picker does not aggregate seat rows.
+ * free_seats = not yet booked; published_seats = total_seats while the
+ * department is published (exam_dept_publication), else 0. Readers that show
+ * free seats to students join the publication row.
+ */
+@Entity
+@Table(name = "exam_seat_availability")
+@IdClass(ExamSeatAvailability.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamSeatAvailability {
+
+    @Id
+    @Column(name = "exam_id")
+    private Long examId;
+
+    @Id
+    @Column(name = "dept_id")
+    private Long deptId;
+
+    @Id
+    @Column(name = "category_type")
+    private Integer categoryType; // 1=Day, 2=HostelM, 3=HostelF
+
+    @Id
+    @Column(name = "slot_date")
+    private LocalDate slotDate;
+
+    @Column(name = "total_seats", nullable = false)
+    private Integer totalSeats = 0;
+
+    @Column(name = "published_seats", nullable = false)
+    private Integer publishedSeats = 0;
+
+    @Column(name = "free_seats", nullable = false)
+    private Integer freeSeats = 0;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long examId;
+        private Long deptId;
+        private Integer categoryType;
+        private LocalDate slotDate;
+    }
+}
@@ -7,12 +7,14 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.time.LocalDate;
 
+/**
+ * One seat of an exam. exam_slot_seats is list-partitioned by exam_id (one
+ * partition per exam, see ExamInitService.createSeatPartition). Hibernate cannot
+ * read the indexes and foreign keys of a partitioned table, so they are created
+ * by DatabaseInitializer instead of declared here.
+ */
 @Entity
-@Table(name = "exam_slot_seats", indexes = {
-        @Index(name = "idx_exam_dept_cat_date", columnList = "exam_id, dept_id, category_type, slot_date"),
-        @Index(name = "idx_roll_number", columnList = "roll_number"),
-        @Index(name = "idx_exam_book", columnList = "exam_id, book")
-})
+@Table(name = "exam_slot_seats")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,7 +27,7 @@ public class ExamSlotSeat {
     private Long slotId;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "exam_id", nullable = false)
+    @JoinColumn(name = "exam_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
     private Exam exam;
 
@@ -36,7 +38,7 @@ public class ExamSlotSeat {
     private String rollNumber; // NULL until booked
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "dept_id")
+    @JoinColumn(name = "dept_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
     private Department department;
 
@@ -46,6 +48,5 @@ public class ExamSlotSeat {
     @Column(name = "status", nullable = false)
     private String status = "AVAILABLE"; // AVAILABLE, BOOKED
 
-    @Column(name = "book", nullable = false)
-    private Boolean book = false; // false = unpublished, true = published/bookable
+    // Published or not is per department: see ExamDeptPublication
 }
@@ -0,0 +1,62 @@
+package com.petbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * One scheduled publish or stop of a department, fired at fireAt by
+ * PublishScheduleService. Pending rows are re-armed after a restart, and
+ * the ones that fell due while the application was down fire on startup.
+ */
+@Entity
+@Table(name = "publish_schedule", indexes = {
+        @Index(name = "idx_publish_schedule_due", columnList = "status, fire_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PublishSchedule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "schedule_id")
+    private Long scheduleId;
+
+    @Column(name = "exam_id", nullable = false)
+    private Long examId;
+
+    @Column(name = "dept_id", nullable = false)
+    private Long deptId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "action", nullable = false, length = 16)
+    private Action action;
+
+    @Column(name = "fire_at", nullable = false)
+    private LocalDateTime fireAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    // The operation's message, or the error if it failed
+    @Column(name = "result", length = 1000)
+    private String result;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "fired_at")
+    private LocalDateTime firedAt;
+
+    public enum Action {
+        PUBLISH, STOP
+    }
+
+    public enum Status {
+        PENDING, FIRING, DONE, FAILED, CANCELLED
+    }
+}
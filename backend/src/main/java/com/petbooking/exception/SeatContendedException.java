@@ -0,0 +1,13 @@
+package com.petbooking.exception;
+
+/**
+ * Free seats exist for the requested date, but every one of them is locked by
+ * an in-flight booking. Unlike "no slots available" this is temporary and the
+ * booking is worth retrying.
+ */
+public class SeatContendedException extends RuntimeException {
+
+    public SeatContendedException() {
+        super("Seats on this date are being booked right now. Please try again in a moment.");
+    }
+}
@@ -0,0 +1,76 @@
+package com.petbooking.repository;
+
+import com.petbooking.entity.AdminJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Job bookkeeping. The updates are single statements in their own transaction
+ * (the job's work commits separately), and the status transitions are
+ * conditional so a cancel and the runner never overwrite each other.
+ */
+@Repository
+public interface AdminJobRepository extends JpaRepository<AdminJob, Long> {
+
+        List<AdminJob> findTop50ByOrderByJobIdDesc();
+
+        List<AdminJob> findByStatusInOrderByJobId(List<AdminJob.Status> statuses);
+
+        @Query("SELECT j.cancelRequested FROM AdminJob j WHERE j.jobId = :jobId")
+        boolean isCancelRequested(@Param("jobId") Long jobId);
+
+        // QUEUED -> RUNNING; 0 if the job was cancelled while queued
+        @Transactional
+        @Modifying
+        @Query("UPDATE AdminJob j SET j.status = 'RUNNING', j.startedAt = :now, j.updatedAt = :now, " +
+                        "j.attempts = j.attempts + 1, j.error = NULL " +
+                        "WHERE j.jobId = :jobId AND j.status = 'QUEUED'")
+        int markRunning(@Param("jobId") Long jobId, @Param("now") LocalDateTime now);
+
+        // Joins the caller's transaction, so the id is recorded together with the exam it points to
+        @Transactional
+        @Modifying
+        @Query("UPDATE AdminJob j SET j.examId = :examId WHERE j.jobId = :jobId")
+        int setExamId(@Param("jobId") Long jobId, @Param("examId") Long examId);
+
+        @Transactional
+        @Modifying
+        @Query("UPDATE AdminJob j SET j.progressDone = :done, j.progressTotal = :total, j.progressUnit = :unit, " +
+                        "j.updatedAt = :now WHERE j.jobId = :jobId")
+        int updateProgress(@Param("jobId") Long jobId, @Param("done") int done, @Param("total") int total,
+                        @Param("unit") String unit, @Param("now") LocalDateTime now);
+
+        @Transactional
+        @Modifying
+        @Query("UPDATE AdminJob j SET j.status = :status, j.result = :result, j.error = :error, " +
+                        "j.finishedAt = :now, j.updatedAt = :now WHERE j.jobId = :jobId")
+        int finish(@Param("jobId") Long jobId, @Param("status") AdminJob.Status status,
+                        @Param("result") String result, @Param("error") String error,
+                        @Param("now") LocalDateTime now);
+
+        @Transactional
+        @Modifying
+        @Query("UPDATE AdminJob j SET j.cancelRequested = true, j.updatedAt = :now " +
+                        "WHERE j.jobId = :jobId AND j.status IN ('QUEUED', 'RUNNING')")
+        int requestCancel(@Param("jobId") Long jobId, @Param("now") LocalDateTime now);
+
+        // A queued job never started, so cancelling it needs no cleanup
+        @Transactional
+        @Modifying
+        @Query("UPDATE AdminJob j SET j.status = 'CANCELLED', j.finishedAt = :now, j.updatedAt = :now " +
+                        "WHERE j.jobId = :jobId AND j.status = 'QUEUED'")
+        int cancelQueued(@Param("jobId") Long jobId, @Param("now") LocalDateTime now);
+
+        // Jobs that were running when the application stopped go back in the queue
+        @Transactional
+        @Modifying
+        @Query("UPDATE AdminJob j SET j.status = 'QUEUED', j.updatedAt = :now WHERE j.status = 'RUNNING'")
+        int requeueInterrupted(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,45 @@
+package com.petbooking.repository;
+
+import com.petbooking.entity.ExamDeptPublication;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ExamDeptPublicationRepository
+                extends JpaRepository<ExamDeptPublication, ExamDeptPublication.Key> {
+
+        // Departments get their row (unpublished) when their seats are generated;
+        // a resumed creation job may insert the same department again
+        @Modifying
+        @Query(value = """
+                        INSERT INTO exam_dept_publication (exam_id, dept_id, published, updated_at)
+                        SELECT :examId, d, FALSE, now() FROM unnest(CAST(:deptIds AS BIGINT[])) AS d
+                        ON CONFLICT (exam_id, dept_id) DO NOTHING
+                        """, nativeQuery = true)
+        int addDepartments(@Param("examId") Long examId, @Param("deptIds") Long[] deptIds);
+
+        // Publish/stop one department (deptId set) or every department of the exam
+        @Modifying
+        @Query(value = """
+                        UPDATE exam_dept_publication SET published = :published, updated_at = now()
+                        WHERE exam_id = :examId AND (CAST(:deptId AS BIGINT) IS NULL OR dept_id = :deptId)
+                        """, nativeQuery = true)
+        int setPublished(@Param("examId") Long examId, @Param("deptId") Long deptId,
+                        @Param("published") boolean published);
+
+        @Query("SELECT COUNT(p) > 0 FROM ExamDeptPublication p WHERE p.examId = :examId " +
+                        "AND p.deptId = :deptId AND p.published = true")
+        boolean isPublished(@Param("examId") Long examId, @Param("deptId") Long deptId);
+
+        @Query("SELECT p.deptId FROM ExamDeptPublication p WHERE p.examId = :examId ORDER BY p.deptId")
+        List<Long> findDeptIds(@Param("examId") Long examId);
+
+        @Modifying
+        @Query(value = "DELETE FROM exam_dept_publication WHERE exam_id = :examId", nativeQuery = true)
+        int deleteByExamId(@Param("examId") Long examId);
+}
@@ -0,0 +1,138 @@
+package com.petbooking.repository;
+
+import com.petbooking.entity.ExamSeatAvailability;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ExamSeatAvailabilityRepository
+                extends JpaRepository<ExamSeatAvailability, ExamSeatAvailability.Key> {
+
+        // Student date picker: primary-key prefix scan, no seat rows touched
+        @Query("SELECT a.slotDate, a.freeSeats FROM ExamSeatAvailability a, ExamDeptPublication p " +
+                        "WHERE a.examId = :examId AND a.deptId = :deptId AND a.categoryType = :categoryType " +
+                        "AND p.examId = a.examId AND p.deptId = a.deptId AND p.published = true " +
+                        "AND a.freeSeats > 0 ORDER BY a.slotDate")
+        List<Object[]> findAvailableDates(@Param("examId") Long examId,
+                        @Param("deptId") Long deptId,
+                        @Param("categoryType") Integer categoryType);
+
+        // Recount one exam from its seat rows (seat generation, recovery)
+        @Modifying
+        @Query(value = """
+                        INSERT INTO exam_seat_availability
+                            (exam_id, dept_id, category_type, slot_date, total_seats, published_seats, free_seats)
+                        SELECT s.exam_id, s.dept_id, s.category_type, s.slot_date,
+                               COUNT(*),
+                               CASE WHEN p.published THEN COUNT(*) ELSE 0 END,
+                               COUNT(*) FILTER (WHERE s.roll_number IS NULL)
+                        FROM exam_slot_seats s
+                        LEFT JOIN exam_dept_publication p ON p.exam_id = s.exam_id AND p.dept_id = s.dept_id
+                        WHERE s.exam_id = :examId AND s.dept_id IS NOT NULL AND s.category_type IS NOT NULL
+                        GROUP BY s.exam_id, s.dept_id, s.category_type, s.slot_date, p.published
+                        ON CONFLICT (exam_id, dept_id, category_type, slot_date) DO UPDATE
+                        SET total_seats = EXCLUDED.total_seats,
+                            published_seats = EXCLUDED.published_seats,
+                            free_seats = EXCLUDED.free_seats
+                        """, nativeQuery = true)
+        int refreshExam(@Param("examId") Long examId);
+
+        // Recount one department of an exam (seat generation of a single department)
+        @Modifying
+        @Query(value = """
+                        INSERT INTO exam_seat_availability
+                            (exam_id, dept_id, category_type, slot_date, total_seats, published_seats, free_seats)
+                        SELECT s.exam_id, s.dept_id, s.category_type, s.slot_date,
+                               COUNT(*),
+                               CASE WHEN p.published THEN COUNT(*) ELSE 0 END,
+                               COUNT(*) FILTER (WHERE s.roll_number IS NULL)
+                        FROM exam_slot_seats s
+                        LEFT JOIN exam_dept_publication p ON p.exam_id = s.exam_id AND p.dept_id = s.dept_id
+                        WHERE s.exam_id = :examId AND s.dept_id = :deptId AND s.category_type IS NOT NULL
+                        GROUP BY s.exam_id, s.dept_id, s.category_type, s.slot_date, p.published
+                        ON CONFLICT (exam_id, dept_id, category_type, slot_date) DO UPDATE
+                        SET total_seats = EXCLUDED.total_seats,
+                            published_seats = EXCLUDED.published_seats,
+                            free_seats = EXCLUDED.free_seats
+                        """, nativeQuery = true)
+        int refreshDepartment(@Param("examId") Long examId, @Param("deptId") Long deptId);
+
+        // Same recounts for counted-capacity exams, from their exam_capacity rows
+        // (a seat exam has none, so running both recounts is always correct)
+        @Modifying
+        @Query(value = """
+                        INSERT INTO exam_seat_availability
+                            (exam_id, dept_id, category_type, slot_date, total_seats, published_seats, free_seats)
+                        SELECT c.exam_id, c.dept_id, c.category_type, c.slot_date, c.capacity,
+                               CASE WHEN p.published THEN c.capacity ELSE 0 END,
+                               c.capacity - c.booked_count
+                        FROM exam_capacity c
+                        LEFT JOIN exam_dept_publication p ON p.exam_id = c.exam_id AND p.dept_id = c.dept_id
+                        WHERE c.exam_id = :examId AND (CAST(:deptId AS BIGINT) IS NULL OR c.dept_id = :deptId)
+                        ON CONFLICT (exam_id, dept_id, category_type, slot_date) DO UPDATE
+                        SET total_seats = EXCLUDED.total_seats,
+                            published_seats = EXCLUDED.published_seats,
+                            free_seats = EXCLUDED.free_seats
+                        """, nativeQuery = true)
+        int refreshFromCapacity(@Param("examId") Long examId, @Param("deptId") Long deptId);
+
+        // Publish/stop: only published_seats depends on publication, so no seat row is read
+        @Modifying
+        @Query(value = """
+                        UPDATE exam_seat_availability
+                        SET published_seats = CASE WHEN :published THEN total_seats ELSE 0 END
+                        WHERE exam_id = :examId AND (CAST(:deptId AS BIGINT) IS NULL OR dept_id = :deptId)
+                        """, nativeQuery = true)
+        int setPublished(@Param("examId") Long examId, @Param("deptId") Long deptId,
+                        @Param("published") boolean published);
+
+        @Query(value = "SELECT COALESCE(SUM(total_seats), 0) FROM exam_seat_availability "
+                        + "WHERE exam_id = :examId AND (CAST(:deptId AS BIGINT) IS NULL OR dept_id = :deptId)",
+                        nativeQuery = true)
+        int sumTotalSeats(@Param("examId") Long examId, @Param("deptId") Long deptId);
+
+        @Modifying
+        @Query(value = "DELETE FROM exam_seat_availability WHERE exam_id = :examId", nativeQuery = true)
+        int deleteByExamId(@Param("examId") Long examId);
+
+        // Recovery: recount everything. Blocks seat writes until the transaction ends.
+        @Modifying
+        @Query(value = "LOCK TABLE exam_slot_seats, exam_capacity, exam_dept_publication IN SHARE MODE", nativeQuery = true)
+        void lockSeatsForRebuild();
+
+        @Modifying
+        @Query(value = "DELETE FROM exam_seat_availability", nativeQuery = true)
+        int deleteAllRows();
+
+        @Modifying
+        @Query(value = """
+                        INSERT INTO exam_seat_availability
+                            (exam_id, dept_id, category_type, slot_date, total_seats, published_seats, free_seats)
+                        SELECT s.exam_id, s.dept_id, s.category_type, s.slot_date,
+                               COUNT(*),
+                               CASE WHEN p.published THEN COUNT(*) ELSE 0 END,
+                               COUNT(*) FILTER (WHERE s.roll_number IS NULL)
+                        FROM exam_slot_seats s
+                        LEFT JOIN exam_dept_publication p ON p.exam_id = s.exam_id AND p.dept_id = s.dept_id
+                        WHERE s.dept_id IS NOT NULL AND s.category_type IS NOT NULL
+                        GROUP BY s.exam_id, s.dept_id, s.category_type, s.slot_date, p.published
+                        """, nativeQuery = true)
+        int insertAllFromSeats();
+
+        @Modifying
+        @Query(value = """
+                        INSERT INTO exam_seat_availability
+                            (exam_id, dept_id, category_type, slot_date, total_seats, published_seats, free_seats)
+                        SELECT c.exam_id, c.dept_id, c.category_type, c.slot_date, c.capacity,
+                               CASE WHEN p.published THEN c.capacity ELSE 0 END,
+                               c.capacity - c.booked_count
+                        FROM exam_capacity c
+                        LEFT JOIN exam_dept_publication p ON p.exam_id = c.exam_id AND p.dept_id = c.dept_id
+                        """, nativeQuery = true)
+        int insertAllFromCapacity();
+}
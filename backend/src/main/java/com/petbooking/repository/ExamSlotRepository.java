@@ -25,4 +25,17 @@ public interface ExamSlotRepository extends JpaRepository<ExamSlot, Integer> {
     @Query("UPDATE ExamSlot e SET e.bookedCount = e.bookedCount + 1 " +
             "WHERE e.id = :slotId AND e.bookedCount < e.maxCapacity")
     int incrementBookedCount(@Param("slotId") Integer slotId);
+
+    // One page of the admin list, keyset-paginated by id. Null filters match everything.
+    @Query("SELECT new com.petbooking.dto.ExamSlotListItem(e.id, d.id, d.examDate, e.session, e.department, " +
+            "e.studentType, e.gender, e.maxCapacity, e.bookedCount) " +
+            "FROM ExamSlot e LEFT JOIN e.examDay d " +
+            "WHERE e.id > :afterId " +
+            "AND (:department IS NULL OR e.department = :department) " +
+            "AND (:studentType IS NULL OR e.studentType = :studentType) " +
+            "ORDER BY e.id")
+    List<com.petbooking.dto.ExamSlotListItem> findListPage(@Param("afterId") Integer afterId,
+            @Param("department") String department,
+            @Param("studentType") String studentType,
+            org.springframework.data.domain.Pageable page);
 }
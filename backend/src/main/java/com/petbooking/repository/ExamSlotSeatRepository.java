@@ -40,23 +40,21 @@ public interface ExamSlotSeatRepository extends JpaRepository<ExamSlotSeat, Long
         // Check if student already booked this specific exam
         boolean existsByExamExamIdAndRollNumber(Long examId, String rollNumber);
 
-        // Delete all slots for an exam
-        void deleteByExamExamId(Long examId);
-
         // ========== NEW: Atomic Booking (Race-Condition Safe) ==========
         // Uses FOR UPDATE SKIP LOCKED to handle concurrent requests
         @Modifying
         @Query(value = """
                         UPDATE exam_slot_seats
                         SET roll_number = :rollNo, status = 'BOOKED'
-                        WHERE slot_id = (
+                        WHERE exam_id = :examId AND slot_id = (
                             SELECT slot_id FROM exam_slot_seats
                             WHERE exam_id = :examId
                             AND dept_id = :deptId
                             AND category_type = :categoryType
                             AND slot_date = :slotDate
                             AND roll_number IS NULL
-                            AND book = true
+                            AND EXISTS (SELECT 1 FROM exam_dept_publication p
+                                        WHERE p.exam_id = :examId AND p.dept_id = :deptId AND p.published)
                             LIMIT 1
                             FOR UPDATE SKIP LOCKED
                         )
@@ -67,42 +65,36 @@ public interface ExamSlotSeatRepository extends JpaRepository<ExamSlotSeat, Long
                         @Param("slotDate") LocalDate slotDate,
                         @Param("rollNo") String rollNo);
 
-        // ========== NEW: Publish/Stop Controls ==========
-        // Publish slots for a specific department
-        @Modifying
-        @Query("UPDATE ExamSlotSeat s SET s.book = true " +
-                        "WHERE s.exam.examId = :examId AND s.department.deptId = :deptId")
-        int publishSlotsForDepartment(@Param("examId") Long examId, @Param("deptId") Long deptId);
-
-        // Publish slots for ALL departments in an exam
-        @Modifying
-        @Query("UPDATE ExamSlotSeat s SET s.book = true WHERE s.exam.examId = :examId")
-        int publishAllSlots(@Param("examId") Long examId);
-
-        // Stop bookings for a specific department
-        @Modifying
-        @Query("UPDATE ExamSlotSeat s SET s.book = false " +
-                        "WHERE s.exam.examId = :examId AND s.department.deptId = :deptId")
-        int stopSlotsForDepartment(@Param("examId") Long examId, @Param("deptId") Long deptId);
-
-        // Stop all bookings for an exam (make slots invisible)
+        // Persist a seat already claimed from the in-memory inventory.
+        // Guarded so a stale slot_id (booked or unpublished meanwhile) updates nothing.
         @Modifying
-        @Query("UPDATE ExamSlotSeat s SET s.book = false WHERE s.exam.examId = :examId")
-        int stopAllBookings(@Param("examId") Long examId);
+        @Query(value = """
+                        UPDATE exam_slot_seats s
+                        SET roll_number = :rollNo, status = 'BOOKED'
+                        WHERE s.exam_id = :examId AND s.slot_id = :slotId
+                        AND s.roll_number IS NULL
+                        AND EXISTS (SELECT 1 FROM exam_dept_publication p
+                                    WHERE p.exam_id = s.exam_id AND p.dept_id = s.dept_id AND p.published)
+                        """, nativeQuery = true)
+        int assignSeat(@Param("examId") Long examId, @Param("slotId") Long slotId,
+                        @Param("rollNo") String rollNo);
 
         // ========== NEW: Student Slot Queries ==========
-        // Find PUBLISHED available slots for student (only where book=true)
-        @Query("SELECT s FROM ExamSlotSeat s WHERE s.exam.examId = :examId " +
+        // Find PUBLISHED available slots for student (department published in exam_dept_publication)
+        @Query("SELECT s FROM ExamSlotSeat s, ExamDeptPublication p WHERE s.exam.examId = :examId " +
                         "AND s.department.deptId = :deptId AND s.categoryType = :categoryType " +
-                        "AND s.book = true AND s.rollNumber IS NULL ORDER BY s.slotDate")
+                        "AND p.examId = :examId AND p.deptId = :deptId AND p.published = true " +
+                        "AND s.rollNumber IS NULL ORDER BY s.slotDate")
         List<ExamSlotSeat> findPublishedAvailableSlots(@Param("examId") Long examId,
                         @Param("deptId") Long deptId,
                         @Param("categoryType") Integer categoryType);
 
         // Get available dates with slot counts
-        @Query("SELECT s.slotDate, COUNT(s) FROM ExamSlotSeat s WHERE s.exam.examId = :examId " +
+        @Query("SELECT s.slotDate, COUNT(s) FROM ExamSlotSeat s, ExamDeptPublication p " +
+                        "WHERE s.exam.examId = :examId " +
                         "AND s.department.deptId = :deptId AND s.categoryType = :categoryType " +
-                        "AND s.book = true AND s.rollNumber IS NULL GROUP BY s.slotDate ORDER BY s.slotDate")
+                        "AND p.examId = :examId AND p.deptId = :deptId AND p.published = true " +
+                        "AND s.rollNumber IS NULL GROUP BY s.slotDate ORDER BY s.slotDate")
         List<Object[]> findAvailableDatesWithCount(@Param("examId") Long examId,
                         @Param("deptId") Long deptId,
                         @Param("categoryType") Integer categoryType);
@@ -116,24 +108,13 @@ public interface ExamSlotSeatRepository extends JpaRepository<ExamSlotSeat, Long
         Optional<ExamSlotSeat> findByExamIdAndRollNumber(@Param("examId") Long examId,
                         @Param("rollNo") String rollNo);
 
-        // ========== NEW: Admin Dashboard Stats ==========
-        // Day-wise slot summary for dashboard
-        @Query("SELECT s.slotDate, s.categoryType, COUNT(s), " +
-                        "SUM(CASE WHEN s.rollNumber IS NOT NULL THEN 1 ELSE 0 END) " +
-                        "FROM ExamSlotSeat s WHERE s.exam.examId = :examId " +
-                        "GROUP BY s.slotDate, s.categoryType ORDER BY s.slotDate")
-        List<Object[]> getDashboardStats(@Param("examId") Long examId);
-
-        // Department-wise slot summary
-        @Query("SELECT s.department.deptId, s.department.deptCode, COUNT(s), " +
-                        "SUM(CASE WHEN s.rollNumber IS NOT NULL THEN 1 ELSE 0 END), " +
-                        "SUM(CASE WHEN s.book = true THEN 1 ELSE 0 END) " +
-                        "FROM ExamSlotSeat s WHERE s.exam.examId = :examId " +
-                        "GROUP BY s.department.deptId, s.department.deptCode")
-        List<Object[]> getDepartmentStats(@Param("examId") Long examId);
-
-        // Cancel a specific booking
+        // One seat, looked up in its exam's partition only
+        @Query("SELECT s FROM ExamSlotSeat s WHERE s.exam.examId = :examId AND s.slotId = :slotId")
+        Optional<ExamSlotSeat> findByExamIdAndSlotId(@Param("examId") Long examId, @Param("slotId") Long slotId);
+
+        // Cancel a specific booking; 0 when the seat is not booked (e.g. a concurrent cancel won)
         @Modifying
-        @Query("UPDATE ExamSlotSeat s SET s.rollNumber = NULL, s.status = 'AVAILABLE' WHERE s.slotId = :slotId")
-        int cancelBooking(@Param("slotId") Long slotId);
+        @Query("UPDATE ExamSlotSeat s SET s.rollNumber = NULL, s.status = 'AVAILABLE' " +
+                        "WHERE s.exam.examId = :examId AND s.slotId = :slotId AND s.rollNumber IS NOT NULL")
+        int cancelBooking(@Param("examId") Long examId, @Param("slotId") Long slotId);
 }
@@ -0,0 +1,66 @@
+package com.petbooking.repository;
+
+import com.petbooking.entity.PublishSchedule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Status transitions are conditional single statements, so a cancel and the
+ * scheduler firing the same entry never both win.
+ */
+@Repository
+public interface PublishScheduleRepository extends JpaRepository<PublishSchedule, Long> {
+
+        List<PublishSchedule> findByExamIdOrderByFireAtAscScheduleIdAsc(Long examId);
+
+        // Due entries in firing order; a publish and a stop at the same instant keep their creation order
+        List<PublishSchedule> findByStatusAndFireAtLessThanEqualOrderByFireAtAscScheduleIdAsc(
+                        PublishSchedule.Status status, LocalDateTime now);
+
+        Optional<PublishSchedule> findFirstByStatusOrderByFireAtAsc(PublishSchedule.Status status);
+
+        // PENDING -> FIRING; 0 if the entry was cancelled in the meantime
+        @Transactional
+        @Modifying
+        @Query("UPDATE PublishSchedule s SET s.status = 'FIRING', s.firedAt = :now " +
+                        "WHERE s.scheduleId = :scheduleId AND s.status = 'PENDING'")
+        int claim(@Param("scheduleId") Long scheduleId, @Param("now") LocalDateTime now);
+
+        @Transactional
+        @Modifying
+        @Query("UPDATE PublishSchedule s SET s.status = :status, s.result = :result " +
+                        "WHERE s.scheduleId = :scheduleId AND s.status = 'FIRING'")
+        int finish(@Param("scheduleId") Long scheduleId, @Param("status") PublishSchedule.Status status,
+                        @Param("result") String result);
+
+        @Transactional
+        @Modifying
+        @Query("UPDATE PublishSchedule s SET s.status = 'CANCELLED' " +
+                        "WHERE s.scheduleId = :scheduleId AND s.status = 'PENDING'")
+        int cancel(@Param("scheduleId") Long scheduleId);
+
+        // Joins the caller's transaction (the exam deletion closes the exam and its schedule together)
+        @Transactional
+        @Modifying
+        @Query("UPDATE PublishSchedule s SET s.status = 'CANCELLED' " +
+                        "WHERE s.examId = :examId AND s.status = 'PENDING'")
+        int cancelByExamId(@Param("examId") Long examId);
+
+        // Entries cut off by a restart fire again; publish and stop are idempotent
+        @Transactional
+        @Modifying
+        @Query("UPDATE PublishSchedule s SET s.status = 'PENDING' WHERE s.status = 'FIRING'")
+        int requeueInterrupted();
+
+        @Modifying
+        @Query(value = "DELETE FROM publish_schedule WHERE exam_id = :examId", nativeQuery = true)
+        int deleteByExamId(@Param("examId") Long examId);
+}
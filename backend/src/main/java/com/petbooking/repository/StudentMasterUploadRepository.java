@@ -1,9 +1,14 @@
 package com.petbooking.repository;
 
+import com.petbooking.dto.StudentMasterListItem;
 import com.petbooking.entity.StudentMasterUpload;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,4 +20,21 @@ public interface StudentMasterUploadRepository extends JpaRepository<StudentMast
     boolean existsByRollNo(String rollNo);
 
     boolean existsByEmail(String email);
+
+    // One page of the admin list, keyset-paginated by roll number. Null filters match everything.
+    @Query("SELECT new com.petbooking.dto.StudentMasterListItem(m.id, m.rollNo, m.name, m.email, m.deptCode, " +
+            "m.studentType, m.gender) " +
+            "FROM StudentMasterUpload m " +
+            "WHERE m.rollNo > :afterRollNo " +
+            "AND (:deptCode IS NULL OR m.deptCode = :deptCode) " +
+            "AND (:studentType IS NULL OR m.studentType = :studentType) " +
+            "AND (:gender IS NULL OR m.gender = :gender) " +
+            "AND (:rollPrefix IS NULL OR m.rollNo LIKE :rollPrefix) " +
+            "ORDER BY m.rollNo")
+    List<StudentMasterListItem> findListPage(@Param("afterRollNo") String afterRollNo,
+            @Param("deptCode") String deptCode,
+            @Param("studentType") String studentType,
+            @Param("gender") String gender,
+            @Param("rollPrefix") String rollPrefix,
+            Pageable page);
 }
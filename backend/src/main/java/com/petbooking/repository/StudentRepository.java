@@ -1,11 +1,32 @@
 package com.petbooking.repository;
 
+import com.petbooking.dto.StudentListItem;
 import com.petbooking.entity.Student;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface StudentRepository extends JpaRepository<Student, String> {
     Optional<Student> findByEmail(String email);
+
+    // One page of the admin list, keyset-paginated by roll number. Null filters match everything.
+    @Query("SELECT new com.petbooking.dto.StudentListItem(s.rollNo, s.name, s.email, d.deptId, d.deptCode, " +
+            "s.category, s.createdAt) " +
+            "FROM Student s JOIN s.department d " +
+            "WHERE s.rollNo > :afterRollNo " +
+            "AND (:deptId IS NULL OR d.deptId = :deptId) " +
+            "AND (:category IS NULL OR s.category = :category) " +
+            "AND (:rollPrefix IS NULL OR s.rollNo LIKE :rollPrefix) " +
+            "ORDER BY s.rollNo")
+    List<StudentListItem> findListPage(@Param("afterRollNo") String afterRollNo,
+            @Param("deptId") Long deptId,
+            @Param("category") Student.StudentCategory category,
+            @Param("rollPrefix") String rollPrefix,
+            Pageable page);
 }
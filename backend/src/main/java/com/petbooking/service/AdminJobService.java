@@ -0,0 +1,449 @@
+package com.petbooking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petbooking.dto.ExamDtos.DeptCategoryCount;
+import com.petbooking.dto.ExamDtos.ExamInitRequest;
+import com.petbooking.dto.ExamDtos.ExamInitResponse;
+import com.petbooking.entity.AdminJob;
+import com.petbooking.entity.Exam;
+import com.petbooking.repository.AdminJobRepository;
+import com.petbooking.repository.ExamDeptPublicationRepository;
+import com.petbooking.repository.ExamRepository;
+import com.petbooking.repository.PublishScheduleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the heavy admin operations as background jobs: exam creation,
+ * deletion and archiving, publish/stop of a whole exam and slot generation.
+ *
+ * A job is split into short transactions (one department's seats, one chunk
+ * of booking.jobs.chunk-size deleted bookings) and records its progress after
+ * each, so no request waits on it and a pooled connection is held for one
+ * chunk at a time. Every chunk is idempotent and the job row is the only
+ * state, so a job that was running when the application stopped is queued
+ * again on startup and simply resumes. Cancellation is checked between chunks.
+ *
+ * At most booking.jobs.max-concurrent jobs run at once, and each pauses
+ * booking.jobs.chunk-pause-ms between chunks, so bookings keep the rest of the
+ * connection pool.
+ */
+@Service
+public class AdminJobService {
+
+    private static final String DEPARTMENTS = "departments";
+    private static final String SEATS = "seats";
+    private static final String STEPS = "steps";
+
+    @Autowired
+    private AdminJobRepository jobRepository;
+    @Autowired
+    private ExamRepository examRepository;
+    @Autowired
+    private ExamDeptPublicationRepository publicationRepository;
+    @Autowired
+    private PublishScheduleRepository publishScheduleRepository;
+    @Autowired
+    private ExamInitService examInitService;
+    @Autowired
+    private ExamAdminService examAdminService;
+    @Autowired
+    private SlotGenerationService slotGenerationService;
+    @Autowired
+    private SeatAvailabilityService seatAvailabilityService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${booking.jobs.max-concurrent:1}")
+    private int maxConcurrent;
+
+    @Value("${booking.jobs.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${booking.jobs.chunk-pause-ms:20}")
+    private long chunkPauseMs;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrent), r -> {
+            Thread t = new Thread(r, "admin-job");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Interrupts running jobs at their next chunk; they stay RUNNING in the
+     * table and are resumed by the next start.
+     */
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        int interrupted = jobRepository.requeueInterrupted(LocalDateTime.now());
+        List<AdminJob> queued = jobRepository.findByStatusInOrderByJobId(List.of(AdminJob.Status.QUEUED));
+        if (!queued.isEmpty()) {
+            System.out.println("Resuming " + queued.size() + " admin job(s), " + interrupted + " interrupted");
+        }
+        queued.forEach(job -> executor.execute(() -> run(job.getJobId())));
+    }
+
+    public Map<String, Object> submitCreateExam(ExamInitRequest request) {
+        if (request.getDeptCategories() == null || request.getDeptCategories().isEmpty()) {
+            throw new RuntimeException("No departments in the exam request");
+        }
+        return submit(AdminJob.JobType.CREATE_EXAM, null, request);
+    }
+
+    public Map<String, Object> submitDeleteExam(Long examId) {
+        requireExam(examId);
+        return submit(AdminJob.JobType.DELETE_EXAM, examId, null);
+    }
+
+    /**
+     * Like deletion, but the exam's seats are kept in a standalone table
+     * (see ExamInitService.archiveSeatPartition). Seat exams only: a counted
+     * exam has no seat partition to keep.
+     */
+    public Map<String, Object> submitArchiveExam(Long examId) {
+        Exam exam = examRepository.findById(examId)
+                .orElseThrow(() -> new RuntimeException("Exam not found: " + examId));
+        if (exam.getInventoryModel() == Exam.InventoryModel.COUNTED) {
+            throw new RuntimeException("Exam " + examId + " uses counted capacity and has no seats to archive");
+        }
+        return submit(AdminJob.JobType.ARCHIVE_EXAM, examId, null);
+    }
+
+    public Map<String, Object> submitPublish(Long examId, boolean publish) {
+        requireExam(examId);
+        return submit(publish ? AdminJob.JobType.PUBLISH_EXAM : AdminJob.JobType.STOP_EXAM, examId, null);
+    }
+
+    public Map<String, Object> submitGenerateSlots(int systemsPerSession, LocalDate startDate) {
+        return submit(AdminJob.JobType.GENERATE_SLOTS, null,
+                Map.of("systemsPerSession", systemsPerSession, "startDate", startDate.toString()));
+    }
+
+    public Map<String, Object> getJob(Long jobId) {
+        return toStatus(jobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Job not found: " + jobId)));
+    }
+
+    /**
+     * The 50 most recent jobs, newest first.
+     */
+    public List<Map<String, Object>> getJobs() {
+        return jobRepository.findTop50ByOrderByJobIdDesc().stream().map(this::toStatus).toList();
+    }
+
+    /**
+     * A queued job is cancelled at once; a running one stops after its current
+     * chunk (an exam deletion, once started, always runs to the end).
+     */
+    public Map<String, Object> cancel(Long jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (jobRepository.cancelQueued(jobId, now) == 0 && jobRepository.requestCancel(jobId, now) == 0) {
+            throw new RuntimeException("Job " + jobId + " is not queued or running");
+        }
+        return getJob(jobId);
+    }
+
+    private void requireExam(Long examId) {
+        if (!examRepository.existsById(examId)) {
+            throw new RuntimeException("Exam not found: " + examId);
+        }
+    }
+
+    private Map<String, Object> submit(AdminJob.JobType type, Long examId, Object params) {
+        AdminJob job = new AdminJob();
+        job.setJobType(type);
+        job.setExamId(examId);
+        job.setParams(params != null ? toJson(params) : null);
+        job = jobRepository.save(job);
+        Long jobId = job.getJobId();
+        executor.execute(() -> run(jobId));
+        return toStatus(job);
+    }
+
+    private void run(Long jobId) {
+        if (jobRepository.markRunning(jobId, LocalDateTime.now()) == 0) {
+            return; // cancelled while queued
+        }
+        AdminJob job = jobRepository.findById(jobId).orElseThrow();
+        try {
+            Object result = switch (job.getJobType()) {
+                case CREATE_EXAM -> createExam(job);
+                case DELETE_EXAM -> deleteExam(job);
+                case ARCHIVE_EXAM -> archiveExam(job);
+                case PUBLISH_EXAM -> setPublished(job, true);
+                case STOP_EXAM -> setPublished(job, false);
+                case GENERATE_SLOTS -> generateSlots(job);
+            };
+            jobRepository.finish(jobId, AdminJob.Status.COMPLETED, toJson(result), null, LocalDateTime.now());
+        } catch (JobCancelledException e) {
+            jobRepository.finish(jobId, AdminJob.Status.CANCELLED, null, e.getMessage(), LocalDateTime.now());
+        } catch (JobInterruptedException e) {
+            System.out.println("Admin job " + jobId + " interrupted, will resume on next start");
+        } catch (Exception e) {
+            System.out.println("Admin job " + jobId + " failed: " + e.getMessage());
+            String message = e.getMessage() != null ? e.getMessage() : e.toString();
+            jobRepository.finish(jobId, AdminJob.Status.FAILED, null,
+                    message.length() > 1000 ? message.substring(0, 1000) : message, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Exam row and quotas in the first transaction (which also records the
+     * exam id on the job), then the seats one department per transaction. A
+     * resumed job skips departments that already have their seats; a
+     * cancelled one deletes the partly created exam.
+     */
+    private ExamInitResponse createExam(AdminJob job) {
+        ExamInitRequest request = fromJson(job.getParams(), ExamInitRequest.class);
+        Long examId = job.getExamId();
+        if (examId == null) {
+            examId = new TransactionTemplate(transactionManager).execute(status -> {
+                ExamInitResponse created = examInitService.createExam(request);
+                jobRepository.setExamId(job.getJobId(), created.getExamId());
+                return created.getExamId();
+            });
+        }
+
+        List<Long> deptIds = request.getDeptCategories().stream().map(DeptCategoryCount::getDeptId).toList();
+        int done = 0;
+        if (job.getCancelRequested()) {
+            // Cancelled, then interrupted before the cleanup finished
+            if (examRepository.existsById(examId)) {
+                deleteInChunks(job.getJobId(), examId);
+            }
+            throw new JobCancelledException("Cancelled; the exam was removed");
+        }
+        try {
+            checkpoint(job.getJobId(), done, deptIds.size(), DEPARTMENTS, true);
+            for (Long deptId : deptIds) {
+                if (!examInitService.hasSeats(examId, deptId)) {
+                    examInitService.generateSeats(examId, request, List.of(deptId));
+                }
+                checkpoint(job.getJobId(), ++done, deptIds.size(), DEPARTMENTS, true);
+            }
+        } catch (JobCancelledException e) {
+            deleteInChunks(job.getJobId(), examId);
+            throw new JobCancelledException("Cancelled after " + done + " of " + deptIds.size()
+                    + " departments; the exam was removed");
+        }
+
+        ExamInitResponse response = new ExamInitResponse();
+        response.setExamId(examId);
+        response.setExamName(request.getExamName());
+        response.setTotalDays(request.getTotalDays());
+        response.setTotalSlotsGenerated(examInitService.totalSeats(examId));
+        response.setQuotasCreated(3 * deptIds.size());
+        return response;
+    }
+
+    /**
+     * Takes the exam off the date picker first, drops its seat partition (a
+     * counted exam's bookings are deleted in chunks instead), then removes what is left (quotas, capacity, the exam) in one short
+     * transaction. Not cancellable once started: a half-deleted exam is of no use.
+     */
+    private Map<String, Object> deleteExam(AdminJob job) {
+        Long examId = job.getExamId();
+        if (!examRepository.existsById(examId)) {
+            return Map.of("examId", examId, "message", "Exam already deleted");
+        }
+        int deleted = deleteInChunks(job.getJobId(), examId);
+        return Map.of("examId", examId, "seatsDeleted", deleted, "message", "Exam deleted successfully");
+    }
+
+    private int deleteInChunks(Long jobId, Long examId) {
+        closeExam(examId);
+        int total = examInitService.countSeats(examId);
+        checkpoint(jobId, 0, total, SEATS, false);
+        examInitService.dropSeatPartition(examId);
+        int done = total - examInitService.countSeats(examId);
+        checkpoint(jobId, done, total, SEATS, false);
+        int deleted;
+        while ((deleted = examInitService.deleteBookingChunk(examId, chunkSize)) > 0) {
+            done += deleted;
+            checkpoint(jobId, done, Math.max(total, done), SEATS, false);
+        }
+        examInitService.deleteExam(examId);
+        return done;
+    }
+
+    /**
+     * Closes the exam and detaches its seat partition as an archive table,
+     * then deletes the exam the way a deletion does. Not cancellable either.
+     */
+    private Map<String, Object> archiveExam(AdminJob job) {
+        Long examId = job.getExamId();
+        Exam exam = examRepository.findById(examId).orElse(null);
+        if (exam == null) {
+            return Map.of("examId", examId, "message", "Exam already deleted");
+        }
+        closeExam(examId);
+        int total = examInitService.countSeats(examId);
+        checkpoint(job.getJobId(), 0, total, SEATS, false);
+        String archive = examInitService.archiveSeatPartition(examId,
+                "Seats of exam " + examId + " (" + exam.getExamName() + "), archived " + LocalDateTime.now());
+        checkpoint(job.getJobId(), total, total, SEATS, false);
+        examInitService.deleteExam(examId);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("examId", examId);
+        result.put("seatsArchived", total);
+        result.put("archiveTable", archive);
+        result.put("message", archive != null ? "Exam archived to " + archive : "Exam deleted, no seats to archive");
+        return result;
+    }
+
+    /**
+     * Takes the exam off the date picker (no scheduled publish reopens it), so
+     * no booking is in flight while its seats are dropped or archived.
+     */
+    private void closeExam(Long examId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            publicationRepository.setPublished(examId, null, false);
+            publishScheduleRepository.cancelByExamId(examId);
+            seatAvailabilityService.removeExam(examId);
+        });
+    }
+
+    /**
+     * Publish or stop department by department (the same per-department
+     * operation as the admin buttons). Cancelling leaves the departments done
+     * so far published (or stopped).
+     */
+    private Map<String, Object> setPublished(AdminJob job, boolean publish) {
+        Long examId = job.getExamId();
+        List<Long> deptIds = examAdminService.departmentIds(examId);
+        int done = 0;
+        int seats = 0;
+        checkpoint(job.getJobId(), done, deptIds.size(), DEPARTMENTS, true);
+        for (Long deptId : deptIds) {
+            Map<String, Object> step = publish
+                    ? examAdminService.publishSlotsForDepartment(examId, deptId)
+                    : examAdminService.stopSlotsForDepartment(examId, deptId);
+            seats += (Integer) step.get(publish ? "slotsPublished" : "slotsStopped");
+            try {
+                checkpoint(job.getJobId(), ++done, deptIds.size(), DEPARTMENTS, true);
+            } catch (JobCancelledException e) {
+                throw new JobCancelledException("Cancelled after " + done + " of " + deptIds.size()
+                        + " departments");
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("examId", examId);
+        result.put(publish ? "slotsPublished" : "slotsStopped", seats);
+        result.put("message", (publish ? "Published all " : "Stopped bookings for ") + seats + " slots");
+        return result;
+    }
+
+    /**
+     * Regenerates the legacy exam_slots in one transaction: it deletes and
+     * recreates a few rows per department and day, so there is nothing to
+     * split, only the request to take off the HTTP thread.
+     */
+    private Map<String, Object> generateSlots(AdminJob job) {
+        Map<?, ?> params = fromJson(job.getParams(), Map.class);
+        checkpoint(job.getJobId(), 0, 1, STEPS, true);
+        Map<String, Object> result = slotGenerationService.generateSlots(
+                ((Number) params.get("systemsPerSession")).intValue(),
+                LocalDate.parse((String) params.get("startDate")));
+        jobRepository.updateProgress(job.getJobId(), 1, 1, STEPS, LocalDateTime.now());
+        return result;
+    }
+
+    /**
+     * Record progress, then stop here if the application is shutting down or
+     * (when cancellable) the job was cancelled; otherwise give bookings a gap
+     * before the next chunk.
+     */
+    private void checkpoint(Long jobId, int done, int total, String unit, boolean cancellable) {
+        jobRepository.updateProgress(jobId, done, total, unit, LocalDateTime.now());
+        if (Thread.currentThread().isInterrupted()) {
+            throw new JobInterruptedException();
+        }
+        if (cancellable && jobRepository.isCancelRequested(jobId)) {
+            throw new JobCancelledException("Cancelled after " + done + " of " + total + " " + unit);
+        }
+        if (chunkPauseMs > 0 && done < total) {
+            try {
+                Thread.sleep(chunkPauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JobInterruptedException();
+            }
+        }
+    }
+
+    private Map<String, Object> toStatus(AdminJob job) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", job.getJobId());
+        status.put("type", job.getJobType());
+        status.put("status", job.getStatus());
+        status.put("examId", job.getExamId());
+        status.put("progressDone", job.getProgressDone());
+        status.put("progressTotal", job.getProgressTotal());
+        status.put("progressUnit", job.getProgressUnit());
+        status.put("percent", job.getProgressTotal() > 0 ? job.getProgressDone() * 100 / job.getProgressTotal() : 0);
+        status.put("cancelRequested", job.getCancelRequested());
+        status.put("attempts", job.getAttempts());
+        status.put("createdAt", job.getCreatedAt());
+        status.put("startedAt", job.getStartedAt());
+        status.put("updatedAt", job.getUpdatedAt());
+        status.put("finishedAt", job.getFinishedAt());
+        if (job.getError() != null) {
+            status.put("error", job.getError());
+        }
+        if (job.getResult() != null) {
+            status.put("result", fromJson(job.getResult(), Object.class));
+        }
+        return status;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Cannot store job data: " + e.getMessage(), e);
+        }
+    }
+
+    private <T> T fromJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unreadable job data: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class JobCancelledException extends RuntimeException {
+        JobCancelledException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class JobInterruptedException extends RuntimeException {
+    }
+}
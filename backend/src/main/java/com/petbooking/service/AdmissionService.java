@@ -0,0 +1,205 @@
+package com.petbooking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Virtual waiting room in front of available-dates and book-seat.
+ * Students of an (exam, department) get a numbered ticket and are admitted
+ * at a fixed rate, so a publish burst reaches the booking path at the rate it
+ * can sustain. Everything lives in memory: polling a ticket never touches the database.
+ * A waiting ticket that is not polled for idle-ttl-seconds is dropped without
+ * using admission credit, and a queue with nobody waiting is removed.
+ */
+@Service
+public class AdmissionService {
+
+    @Value("${booking.admission.enabled:false}")
+    private boolean enabled;
+
+    @Value("${booking.admission.rate-per-second:20}")
+    private double ratePerSecond;
+
+    @Value("${booking.admission.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${booking.admission.pass-ttl-seconds:300}")
+    private long passTtlSeconds;
+
+    @Value("${booking.admission.idle-ttl-seconds:30}")
+    private long idleTtlSeconds;
+
+    private final Map<QueueKey, AdmissionQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, Ticket> ticketsByToken = new ConcurrentHashMap<>();
+    private final Map<String, Ticket> ticketsByStudent = new ConcurrentHashMap<>();
+
+    private record QueueKey(Long examId, Long deptId) {
+    }
+
+    private static final class AdmissionQueue {
+        private final AtomicLong lastIssued = new AtomicLong();
+        // Number of the last ticket taken off the head, admitted or dropped
+        private final AtomicLong admittedUpTo = new AtomicLong();
+        private final ConcurrentLinkedQueue<Ticket> waiting = new ConcurrentLinkedQueue<>();
+        private double credit;
+    }
+
+    private static final class Ticket {
+        private final String token;
+        private final String rollNo;
+        private final Long examId;
+        private final QueueKey queueKey;
+        private final long number;
+        private volatile long lastSeenAt = System.currentTimeMillis();
+        private volatile boolean admitted;
+        private volatile long expiresAt;
+
+        Ticket(String token, String rollNo, Long examId, QueueKey queueKey, long number) {
+            this.token = token;
+            this.rollNo = rollNo;
+            this.examId = examId;
+            this.queueKey = queueKey;
+            this.number = number;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Join the queue for an exam. Joining again (e.g. after a page refresh)
+     * returns the student's existing ticket instead of sending them to the back.
+     */
+    public Map<String, Object> join(String rollNo, Long examId, Long deptId) {
+        if (!enabled) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("admitted", true);
+            result.put("position", 0);
+            return result;
+        }
+        Ticket ticket = ticketsByStudent.computeIfAbsent(rollNo + ":" + examId, k -> {
+            QueueKey queueKey = new QueueKey(examId, deptId);
+            Ticket[] issued = new Ticket[1];
+            // Issued inside compute so admit() cannot remove the queue in between
+            queues.compute(queueKey, (key, queue) -> {
+                AdmissionQueue target = queue != null ? queue : new AdmissionQueue();
+                issued[0] = new Ticket(UUID.randomUUID().toString(), rollNo, examId, queueKey,
+                        target.lastIssued.incrementAndGet());
+                target.waiting.add(issued[0]);
+                return target;
+            });
+            ticketsByToken.put(issued[0].token, issued[0]);
+            return issued[0];
+        });
+        ticket.lastSeenAt = System.currentTimeMillis();
+        return describe(ticket);
+    }
+
+    /**
+     * Position of a ticket. Served from memory only; polling keeps a waiting ticket alive.
+     */
+    public Map<String, Object> status(String token, String rollNo, Long examId) {
+        Ticket ticket = ticketsByToken.get(token);
+        if (ticket == null || !ticket.rollNo.equals(rollNo) || !ticket.examId.equals(examId)) {
+            throw new RuntimeException("Queue token not found or expired. Please join the queue again.");
+        }
+        ticket.lastSeenAt = System.currentTimeMillis();
+        return describe(ticket);
+    }
+
+    /**
+     * True if the token was admitted for this student and exam and its pass has not run out.
+     */
+    public boolean isAdmitted(String token, String rollNo, Long examId) {
+        if (!enabled) {
+            return true;
+        }
+        if (token == null) {
+            return false;
+        }
+        Ticket ticket = ticketsByToken.get(token);
+        return ticket != null
+                && ticket.rollNo.equals(rollNo)
+                && ticket.examId.equals(examId)
+                && ticket.admitted
+                && System.currentTimeMillis() < ticket.expiresAt;
+    }
+
+    /**
+     * Advance every queue by its share of the admission rate, skipping tickets
+     * that stopped polling. Unused credit is not banked, so an idle queue
+     * cannot admit a burst all at once later.
+     * Fixed delay, not fixed rate: on the virtual-thread scheduler fixed-rate
+     * runs may overlap, and the per-queue credit is not thread-safe.
+     */
+    @Scheduled(fixedDelayString = "${booking.admission.tick-ms:100}")
+    public void admit() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long idleBefore = now - idleTtlSeconds * 1000;
+        double perTick = ratePerSecond * tickMs / 1000.0;
+        for (AdmissionQueue queue : queues.values()) {
+            queue.credit += perTick;
+            Ticket head;
+            while ((head = queue.waiting.peek()) != null) {
+                boolean idle = head.lastSeenAt < idleBefore;
+                if (!idle && queue.credit < 1) {
+                    break;
+                }
+                queue.waiting.poll();
+                queue.admittedUpTo.accumulateAndGet(head.number, Math::max);
+                if (idle) {
+                    forget(head);
+                    continue;
+                }
+                queue.credit -= 1;
+                head.expiresAt = now + passTtlSeconds * 1000;
+                head.admitted = true;
+            }
+            if (head == null) {
+                queue.credit = 0;
+            }
+        }
+        for (QueueKey key : queues.keySet()) {
+            queues.computeIfPresent(key, (k, queue) -> queue.waiting.isEmpty() ? null : queue);
+        }
+
+        // Waiting tickets deeper in a queue are dropped here and skipped when they reach its head
+        ticketsByToken.values().removeIf(ticket -> {
+            boolean expired = ticket.admitted ? now >= ticket.expiresAt : ticket.lastSeenAt < idleBefore;
+            if (expired) {
+                ticketsByStudent.remove(ticket.rollNo + ":" + ticket.examId, ticket);
+            }
+            return expired;
+        });
+    }
+
+    private void forget(Ticket ticket) {
+        ticketsByToken.remove(ticket.token, ticket);
+        ticketsByStudent.remove(ticket.rollNo + ":" + ticket.examId, ticket);
+    }
+
+    private Map<String, Object> describe(Ticket ticket) {
+        AdmissionQueue queue = queues.get(ticket.queueKey);
+        // Counts dropped tickets still ahead, so it can only overestimate
+        long position = ticket.admitted || queue == null ? 0 : Math.max(0, ticket.number - queue.admittedUpTo.get());
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("token", ticket.token);
+        result.put("examId", ticket.examId);
+        result.put("admitted", ticket.admitted);
+        result.put("position", position);
+        result.put("estimatedWaitSeconds", (long) Math.ceil(position / ratePerSecond));
+        return result;
+    }
+}
@@ -0,0 +1,260 @@
+package com.petbooking.service;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Booking and seat roster exports (CSV or XLSX).
+ *
+ * Rows are read through a server-side cursor (fetch size, autocommit off) and
+ * written straight to a temp file, so heap use does not grow with the export
+ * and the pooled connection is returned as soon as the last row is on disk,
+ * not when a slow download finishes. XLSX goes through SXSSF, which keeps only
+ * a small window of rows in memory and spools the rest to disk.
+ *
+ * A counted-capacity exam has no seat rows: its bookings are listed with the
+ * booking id as Seat ID, and its free seats as one row each without an id.
+ */
+@Service
+public class BookingExportService {
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int XLSX_ROW_WINDOW = 100;
+    private static final String[] HEADER = { "Exam", "Date", "Start", "End", "Department", "Category", "Seat ID",
+            "Roll No", "Name", "Email", "Status" };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public record ExportFilter(Long examId, LocalDate slotDate, Long deptId, Integer categoryType,
+            boolean bookedOnly) {
+    }
+
+    /**
+     * Write the export to a temp file and return it. The caller streams it to
+     * the client and deletes it.
+     */
+    public Path export(ExportFilter filter, String format) throws IOException {
+        boolean xlsx = "xlsx".equalsIgnoreCase(format);
+        if (!xlsx && !"csv".equalsIgnoreCase(format)) {
+            throw new RuntimeException("Unsupported export format: " + format + " (use csv or xlsx)");
+        }
+        Path file = Files.createTempFile("petbooking-export-", xlsx ? ".xlsx" : ".csv");
+        try (RowSink sink = xlsx ? new XlsxSink(file) : new CsvSink(file)) {
+            sink.row((Object[]) HEADER);
+            streamRows(filter, sink);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return file;
+    }
+
+    private void streamRows(ExportFilter filter, RowSink sink) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT e.exam_name, x.slot_date,
+                       CASE WHEN x.category_type = 1 THEN e.day_scholar_start_time ELSE e.hostel_start_time END,
+                       CASE WHEN x.category_type = 1 THEN e.day_scholar_end_time ELSE e.hostel_end_time END,
+                       d.dept_code, x.category_type, x.slot_id, x.roll_number, s.name, s.email,
+                       COALESCE(p.published, FALSE)
+                FROM (SELECT exam_id, dept_id, category_type, slot_date, slot_id, roll_number
+                      FROM exam_slot_seats
+                      UNION ALL
+                      SELECT exam_id, dept_id, category_type, slot_date, booking_id, roll_no
+                      FROM exam_bookings
+                      UNION ALL
+                      SELECT c.exam_id, c.dept_id, c.category_type, c.slot_date, NULL, NULL
+                      FROM exam_capacity c, generate_series(1, c.capacity - c.booked_count)) x
+                JOIN exams e ON e.exam_id = x.exam_id
+                JOIN departments d ON d.dept_id = x.dept_id
+                LEFT JOIN exam_dept_publication p ON p.exam_id = x.exam_id AND p.dept_id = x.dept_id
+                LEFT JOIN students s ON s.roll_no = x.roll_number
+                WHERE x.exam_id = ?
+                """);
+        List<Object> args = new ArrayList<>();
+        args.add(filter.examId());
+        if (filter.slotDate() != null) {
+            sql.append(" AND x.slot_date = ?");
+            args.add(filter.slotDate());
+        }
+        if (filter.deptId() != null) {
+            sql.append(" AND x.dept_id = ?");
+            args.add(filter.deptId());
+        }
+        if (filter.categoryType() != null) {
+            sql.append(" AND x.category_type = ?");
+            args.add(filter.categoryType());
+        }
+        if (filter.bookedOnly()) {
+            sql.append(" AND x.roll_number IS NOT NULL");
+        }
+        sql.append(" ORDER BY x.slot_date, d.dept_code, x.category_type, x.slot_id");
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            // PostgreSQL only uses a cursor (instead of buffering the whole result) inside a transaction
+            boolean autoCommit = con.getAutoCommit();
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(FETCH_SIZE);
+                for (int i = 0; i < args.size(); i++) {
+                    ps.setObject(i + 1, args.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        int category = rs.getInt(6);
+                        String roll = rs.getString(8);
+                        sink.row(rs.getString(1), rs.getObject(2, LocalDate.class),
+                                timeText(rs.getObject(3, LocalTime.class)), timeText(rs.getObject(4, LocalTime.class)),
+                                rs.getString(5), categoryName(category), rs.getObject(7, Long.class), roll, rs.getString(9),
+                                rs.getString(10),
+                                roll != null ? "BOOKED" : rs.getBoolean(11) ? "AVAILABLE" : "UNPUBLISHED");
+                    }
+                }
+                con.commit();
+            } catch (IOException e) {
+                con.rollback();
+                throw new UncheckedIOException(e);
+            } finally {
+                restoreAutoCommit(con, autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private static void restoreAutoCommit(Connection con, boolean autoCommit) {
+        try {
+            con.setAutoCommit(autoCommit);
+        } catch (java.sql.SQLException e) {
+            // The pool resets it on return anyway
+        }
+    }
+
+    private static String timeText(LocalTime time) {
+        return time != null ? time.toString() : "TBD";
+    }
+
+    private static String categoryName(int categoryType) {
+        return categoryType == 1 ? "DAY" : categoryType == 2 ? "HOSTEL_MALE" : "HOSTEL_FEMALE";
+    }
+
+    private interface RowSink extends Closeable {
+        void row(Object... cells) throws IOException;
+    }
+
+    private static final class CsvSink implements RowSink {
+        private final BufferedWriter writer;
+
+        CsvSink(Path file) throws IOException {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            writer.write('\uFEFF'); // BOM so Excel opens UTF-8 names correctly
+        }
+
+        @Override
+        public void row(Object... cells) throws IOException {
+            for (int i = 0; i < cells.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(cells[i]));
+            }
+            writer.write("\r\n");
+        }
+
+        private static String escape(Object cell) {
+            if (cell == null) {
+                return "";
+            }
+            String text = cell.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0
+                    || text.indexOf('\r') >= 0) {
+                return '"' + text.replace("\"", "\"\"") + '"';
+            }
+            return text;
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    private static final class XlsxSink implements RowSink {
+        private final Path file;
+        private final SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_ROW_WINDOW);
+        private final Sheet sheet;
+        private final CellStyle dateStyle;
+        private final CellStyle headerStyle;
+        private int rowIndex;
+
+        XlsxSink(Path file) {
+            this.file = file;
+            workbook.setCompressTempFiles(true);
+            sheet = workbook.createSheet("Bookings");
+            dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+            headerStyle = workbook.createCellStyle();
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            headerStyle.setFont(bold);
+        }
+
+        @Override
+        public void row(Object... cells) {
+            Row row = sheet.createRow(rowIndex);
+            for (int i = 0; i < cells.length; i++) {
+                Object value = cells[i];
+                if (value == null) {
+                    continue;
+                }
+                Cell cell = row.createCell(i);
+                if (rowIndex == 0) {
+                    cell.setCellStyle(headerStyle);
+                }
+                if (value instanceof LocalDate date) {
+                    cell.setCellValue(date);
+                    cell.setCellStyle(dateStyle);
+                } else if (value instanceof Number number) {
+                    cell.setCellValue(number.doubleValue());
+                } else {
+                    cell.setCellValue(value.toString());
+                }
+            }
+            rowIndex++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (OutputStream out = Files.newOutputStream(file)) {
+                workbook.write(out);
+            } finally {
+                workbook.dispose();
+                workbook.close();
+            }
+        }
+    }
+}
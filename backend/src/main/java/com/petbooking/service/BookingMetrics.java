@@ -0,0 +1,53 @@
+package com.petbooking.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the seat booking path, exposed at /api/admin/metrics/booking.
+ */
+@Component
+public class BookingMetrics {
+
+    private final LongAdder booked = new LongAdder();
+    private final LongAdder full = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder contendedRetries = new LongAdder();
+    private final LongAdder contendedGiveUps = new LongAdder();
+
+    public void recordBooked() {
+        booked.increment();
+    }
+
+    /** No free seat left for the requested date (true exhaustion). */
+    public void recordFull() {
+        full.increment();
+    }
+
+    public void recordDuplicate() {
+        duplicates.increment();
+    }
+
+    /** Free seats existed but were all locked; the booking was retried. */
+    public void recordContendedRetry() {
+        contendedRetries.increment();
+    }
+
+    /** Still contended when the retry budget ran out. */
+    public void recordContendedGiveUp() {
+        contendedGiveUps.increment();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("booked", booked.sum());
+        result.put("full", full.sum());
+        result.put("duplicates", duplicates.sum());
+        result.put("contendedRetries", contendedRetries.sum());
+        result.put("contendedGiveUps", contendedGiveUps.sum());
+        return result;
+    }
+}
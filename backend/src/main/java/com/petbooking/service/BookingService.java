@@ -1,10 +1,15 @@
 package com.petbooking.service;
 
 import com.petbooking.entity.*;
+import com.petbooking.exception.SeatContendedException;
 import com.petbooking.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 
@@ -203,79 +208,310 @@ public class BookingService {
     private ExamSlotSeatRepository slotSeatRepository;
     @Autowired
     private ExamRepository examRepository;
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private SeatAvailabilityService seatAvailabilityService;
+
+    @Autowired
+    private SeatBookingBatcher seatBookingBatcher;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Autowired
+    private ExamCapacityService examCapacityService;
+    @Autowired
+    private StudentProfileCache studentProfileCache;
+
+    @Value("${booking.batch.wait-timeout-ms:30000}")
+    private long batchWaitTimeoutMs;
+
+    @Value("${booking.retry.budget-ms:750}")
+    private long retryBudgetMs;
+
+    @Value("${booking.retry.initial-backoff-ms:5}")
+    private long retryInitialBackoffMs;
+
+    @Value("${booking.retry.max-backoff-ms:100}")
+    private long retryMaxBackoffMs;
 
     /**
      * Book a seat using atomic UPDATE (race-condition safe).
      * No SELECT-then-UPDATE race condition possible.
      * Uses FOR UPDATE SKIP LOCKED for concurrent request handling.
+     * In batch mode the request joins a group commit instead of opening its own
+     * transaction, so no pooled connection is held while it waits.
+     * A counted-capacity exam has no seat rows and is always booked with one
+     * statement against its capacity row, whatever booking.mode is.
      */
-    @Transactional
     public java.util.Map<String, Object> bookSeat(String rollNo, Long examId, java.time.LocalDate slotDate) {
+        java.util.Map<String, Object> result;
+        if (examCapacityService.isCounted(examId)) {
+            result = bookSeatCounted(rollNo, examId, slotDate);
+        } else if (seatBookingBatcher.isEnabled()) {
+            result = bookSeatBatched(rollNo, examId, slotDate);
+        } else if (seatInventoryService.isEnabled()) {
+            result = new TransactionTemplate(transactionManager)
+                    .execute(status -> bookSeatFromInventory(rollNo, examId, slotDate));
+        } else {
+            result = retryWhileContended(() -> bookSeatWithFunction(rollNo, examId, slotDate));
+        }
+        bookingMetrics.recordBooked();
+        return result;
+    }
+
+    /**
+     * Retry an attempt that found free seats locked by in-flight bookings, with
+     * full-jitter exponential backoff, until booking.retry.budget-ms is spent.
+     * Each attempt is its own transaction, so nothing is held while sleeping.
+     */
+    private <T> T retryWhileContended(java.util.function.Supplier<T> attempt) {
+        long deadline = System.nanoTime() + retryBudgetMs * 1_000_000L;
+        long backoffMs = retryInitialBackoffMs;
+        while (true) {
+            try {
+                return attempt.get();
+            } catch (SeatContendedException e) {
+                long remainingMs = (deadline - System.nanoTime()) / 1_000_000L;
+                if (remainingMs <= 0) {
+                    bookingMetrics.recordContendedGiveUp();
+                    throw e;
+                }
+                bookingMetrics.recordContendedRetry();
+                long sleepMs = Math.min(remainingMs,
+                        java.util.concurrent.ThreadLocalRandom.current().nextLong(backoffMs + 1));
+                try {
+                    Thread.sleep(sleepMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoffMs = Math.min(backoffMs * 2, retryMaxBackoffMs);
+            }
+        }
+    }
+
+    private RuntimeException noSlotsAvailable() {
+        bookingMetrics.recordFull();
+        return new RuntimeException("No slots available for your selection. Please try another date.");
+    }
+
+    private RuntimeException alreadyBooked() {
+        bookingMetrics.recordDuplicate();
+        return new RuntimeException("You have already booked this exam");
+    }
+
+    /**
+     * One round trip: book_exam_seat() validates the student, checks for a
+     * duplicate, claims the seat and returns it with the exam time window.
+     * The call text is tiny, so re-parsing it on every execution behind the
+     * transaction pooler (prepareThreshold=0) is cheap; the function body's
+     * plans are cached by PL/pgSQL on the server.
+     */
+    private java.util.Map<String, Object> bookSeatWithFunction(String rollNo, Long examId, LocalDate slotDate) {
+        java.util.Map<String, Object> row;
+        try {
+            row = jdbcTemplate.queryForMap("SELECT * FROM book_exam_seat(?, ?, ?)", rollNo, examId, slotDate);
+        } catch (org.springframework.dao.DataIntegrityViolationException e) {
+            // uniq_exam_student rejected a concurrent booking for the same student
+            throw alreadyBooked();
+        }
+
+        switch ((String) row.get("result_code")) {
+            case "BOOKED":
+                break;
+            case "NO_STUDENT":
+                throw new RuntimeException("Student not found");
+            case "UNKNOWN_CATEGORY":
+                throw new RuntimeException("Unknown student category");
+            case "DUPLICATE":
+                throw alreadyBooked();
+            case "CONTENDED":
+                throw new SeatContendedException();
+            default:
+                throw noSlotsAvailable();
+        }
+
+        seatAvailabilityService.seatBooked(new SeatInventoryService.InventoryKey(examId,
+                ((Number) row.get("dept_id")).longValue(), ((Number) row.get("category_type")).intValue(), slotDate));
+        return buildSeatBookingResult(((Number) row.get("slot_id")).longValue(), rollNo, examId,
+                (String) row.get("exam_name"), slotDate, (String) row.get("dept_code"),
+                ((Number) row.get("category_type")).intValue(),
+                toLocalTime(row.get("start_time")), toLocalTime(row.get("end_time")));
+    }
+
+    /**
+     * Counted-capacity path: the increment, booking row and free count are one
+     * autocommit statement, so the capacity row is locked only for its duration.
+     */
+    private java.util.Map<String, Object> bookSeatCounted(String rollNo, Long examId, LocalDate slotDate) {
+        StudentProfileCache.Profile profile = studentProfileCache.get(rollNo);
+        ExamCapacityService.Claim claim;
+        try {
+            claim = examCapacityService.book(rollNo, examId, profile.deptId(), profile.categoryType(), slotDate);
+        } catch (org.springframework.dao.DataIntegrityViolationException e) {
+            // The (exam_id, roll_no) key rejected a concurrent booking for the same student
+            throw alreadyBooked();
+        }
+        if (claim.bookingId() == null) {
+            throw claim.duplicate() ? alreadyBooked() : noSlotsAvailable();
+        }
+
+        seatAvailabilityService.changed(new SeatInventoryService.InventoryKey(examId, profile.deptId(),
+                profile.categoryType(), slotDate));
+        return buildSeatBookingResult(claim.bookingId(), rollNo, examId, claim.examName(), slotDate,
+                claim.deptCode(), profile.categoryType(), claim.startTime(), claim.endTime());
+    }
+
+    private java.util.Map<String, Object> bookSeatFromInventory(String rollNo, Long examId, LocalDate slotDate) {
         // 1. Validate Student
         Student student = studentRepository.findById(rollNo)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
         // 2. Check if student already booked this exam
         if (slotSeatRepository.existsByExamExamIdAndRollNumber(examId, rollNo)) {
-            throw new RuntimeException("You have already booked this exam");
+            throw alreadyBooked();
         }
 
         // 3. Map student category to categoryType
-        Integer categoryType;
-        switch (student.getCategory()) {
+        Integer categoryType = mapCategoryType(student.getCategory());
+        Long deptId = student.getDepartment().getDeptId();
+
+        // 4. Claim a seat from the in-memory inventory, then persist the assignment
+        var key = new SeatInventoryService.InventoryKey(examId, deptId, categoryType, slotDate);
+        Long slotId = claimFromInventory(key, rollNo);
+        if (slotId == null) {
+            throw noSlotsAvailable();
+        }
+        seatAvailabilityService.seatBooked(key);
+        Exam exam = examRepository.findById(examId)
+                .orElseThrow(() -> new RuntimeException("Exam not found"));
+
+        // 5. Build response with slot details
+        return buildSeatBookingResult(slotId, rollNo, exam, slotDate, student.getDepartment().getDeptCode(),
+                categoryType);
+    }
+
+    /**
+     * Group-commit path. The student lookup goes through JdbcTemplate so the
+     * connection is returned to the pool before the request waits for its batch;
+     * duplicate detection happens inside the batch statement.
+     */
+    private java.util.Map<String, Object> bookSeatBatched(String rollNo, Long examId, LocalDate slotDate) {
+        var profiles = jdbcTemplate.query(
+                "SELECT s.category, s.dept_id, d.dept_code FROM students s "
+                        + "JOIN departments d ON d.dept_id = s.dept_id WHERE s.roll_no = ?",
+                (rs, rowNum) -> new Object[] { rs.getString("category"), rs.getLong("dept_id"),
+                        rs.getString("dept_code") },
+                rollNo);
+        if (profiles.isEmpty()) {
+            throw new RuntimeException("Student not found");
+        }
+        Object[] profile = profiles.get(0);
+        Integer categoryType = mapCategoryType(Student.StudentCategory.valueOf((String) profile[0]));
+        Long deptId = (Long) profile[1];
+
+        var key = new SeatInventoryService.InventoryKey(examId, deptId, categoryType, slotDate);
+        // The batcher reports the committed seat, even if this request times out first
+        Long slotId = retryWhileContended(() -> awaitBatch(key, rollNo));
+
+        Exam exam = examRepository.findById(examId)
+                .orElseThrow(() -> new RuntimeException("Exam not found"));
+        return buildSeatBookingResult(slotId, rollNo, exam, slotDate, (String) profile[2], categoryType);
+    }
+
+    private Long awaitBatch(SeatInventoryService.InventoryKey key, String rollNo) {
+        try {
+            return seatBookingBatcher.submit(key, rollNo).get(batchWaitTimeoutMs,
+                    java.util.concurrent.TimeUnit.MILLISECONDS);
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+        } catch (java.util.concurrent.TimeoutException e) {
+            throw new RuntimeException("Booking is taking longer than expected. Check My Booking before retrying.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Booking interrupted");
+        }
+    }
+
+    private Integer mapCategoryType(Student.StudentCategory category) {
+        switch (category) {
             case DAY:
-                categoryType = 1;
-                break;
+                return 1;
             case HOSTEL_MALE:
-                categoryType = 2;
-                break;
+                return 2;
             case HOSTEL_FEMALE:
-                categoryType = 3;
-                break;
+                return 3;
             default:
                 throw new RuntimeException("Unknown student category");
         }
+    }
 
-        Long deptId = student.getDepartment().getDeptId();
-
-        // 4. Atomic booking - single UPDATE query, no race condition
-        int updated = slotSeatRepository.atomicBookSlot(examId, deptId, categoryType, slotDate, rollNo);
-
-        if (updated == 0) {
-            throw new RuntimeException("No slots available for your selection. Please try another date.");
+    /**
+     * Pop seats from the inventory until one persists. A seat that no longer
+     * matches (booked through another path, or unpublished before the rebuild)
+     * is dropped rather than returned to the free-list.
+     */
+    private Long claimFromInventory(SeatInventoryService.InventoryKey key, String rollNo) {
+        Long slotId;
+        while ((slotId = seatInventoryService.claim(key)) != null) {
+            int updated;
+            try {
+                updated = slotSeatRepository.assignSeat(key.examId(), slotId, rollNo);
+            } catch (org.springframework.dao.DataIntegrityViolationException e) {
+                // uniq_exam_student rejected a concurrent booking for the same student
+                seatInventoryService.release(key, slotId);
+                throw alreadyBooked();
+            } catch (RuntimeException e) {
+                seatInventoryService.release(key, slotId);
+                throw e;
+            }
+            if (updated == 1) {
+                seatInventoryService.releaseOnRollback(key, slotId);
+                return slotId;
+            }
         }
+        return null;
+    }
 
-        // 5. Get booked slot details for response
-        ExamSlotSeat bookedSlot = slotSeatRepository.findByExamIdAndRollNumber(examId, rollNo)
-                .orElseThrow(() -> new RuntimeException("Booking failed unexpectedly"));
-
-        Exam exam = bookedSlot.getExam();
+    private java.util.Map<String, Object> buildSeatBookingResult(Long slotId, String rollNo, Exam exam,
+            LocalDate slotDate, String deptCode, Integer categoryType) {
+        return buildSeatBookingResult(slotId, rollNo, exam.getExamId(), exam.getExamName(), slotDate, deptCode,
+                categoryType,
+                categoryType == 1 ? exam.getDayScholarStartTime() : exam.getHostelStartTime(),
+                categoryType == 1 ? exam.getDayScholarEndTime() : exam.getHostelEndTime());
+    }
 
-        // 6. Build response with slot details
+    private java.util.Map<String, Object> buildSeatBookingResult(Long slotId, String rollNo, Long examId,
+            String examName, LocalDate slotDate, String deptCode, Integer categoryType,
+            java.time.LocalTime startTime, java.time.LocalTime endTime) {
         var result = new java.util.HashMap<String, Object>();
-        result.put("slotId", bookedSlot.getSlotId());
+        result.put("slotId", slotId);
         result.put("rollNo", rollNo);
         result.put("examId", examId);
-        result.put("examName", exam.getExamName());
-        result.put("slotDate", bookedSlot.getSlotDate().toString());
-        result.put("department", student.getDepartment().getDeptCode());
+        result.put("examName", examName);
+        result.put("slotDate", slotDate.toString());
+        result.put("department", deptCode != null ? deptCode.trim() : null);
         result.put("category", categoryType == 1 ? "Day Scholar" : categoryType == 2 ? "Hostel Boys" : "Hostel Girls");
         result.put("status", "BOOKED");
         result.put("message", "Booking successful!");
 
         // Include time window based on category
-        if (categoryType == 1) {
-            result.put("startTime",
-                    exam.getDayScholarStartTime() != null ? exam.getDayScholarStartTime().toString() : "TBD");
-            result.put("endTime", exam.getDayScholarEndTime() != null ? exam.getDayScholarEndTime().toString() : "TBD");
-        } else {
-            result.put("startTime", exam.getHostelStartTime() != null ? exam.getHostelStartTime().toString() : "TBD");
-            result.put("endTime", exam.getHostelEndTime() != null ? exam.getHostelEndTime().toString() : "TBD");
-        }
+        result.put("startTime", startTime != null ? startTime.toString() : "TBD");
+        result.put("endTime", endTime != null ? endTime.toString() : "TBD");
 
         return result;
     }
 
+    private java.time.LocalTime toLocalTime(Object value) {
+        return value instanceof java.sql.Time time ? time.toLocalTime() : null;
+    }
+
     /**
      * Get student's booked slot for an exam.
      */
@@ -284,12 +520,13 @@ public class BookingService {
      */
     public java.util.List<java.util.Map<String, Object>> getStudentBookings(String rollNo) {
         java.util.List<ExamSlotSeat> bookedSlots = slotSeatRepository.findByRollNumber(rollNo);
+        java.util.List<java.util.Map<String, Object>> countedBookings = getCountedBookings(rollNo);
 
         if (bookedSlots.isEmpty()) {
-            return java.util.Collections.emptyList();
+            return countedBookings;
         }
 
-        return bookedSlots.stream().map(slot -> {
+        java.util.List<java.util.Map<String, Object>> seatBookings = bookedSlots.stream().map(slot -> {
             Exam exam = slot.getExam();
             Integer categoryType = slot.getCategoryType();
 
@@ -318,5 +555,42 @@ public class BookingService {
 
             return result;
         }).collect(java.util.stream.Collectors.toList());
+        seatBookings.addAll(countedBookings);
+        return seatBookings;
+    }
+
+    /**
+     * The student's bookings of counted-capacity exams, in the same shape.
+     */
+    private java.util.List<java.util.Map<String, Object>> getCountedBookings(String rollNo) {
+        return jdbcTemplate.query("""
+                SELECT b.booking_id, b.exam_id, e.exam_name, b.slot_date, d.dept_code, b.category_type,
+                       CASE WHEN b.category_type = 1 THEN e.day_scholar_start_time ELSE e.hostel_start_time END
+                           AS start_time,
+                       CASE WHEN b.category_type = 1 THEN e.day_scholar_end_time ELSE e.hostel_end_time END
+                           AS end_time
+                FROM exam_bookings b
+                JOIN exams e ON e.exam_id = b.exam_id
+                JOIN departments d ON d.dept_id = b.dept_id
+                WHERE b.roll_no = ?
+                """, (rs, rowNum) -> {
+                    int categoryType = rs.getInt("category_type");
+                    java.time.LocalTime startTime = rs.getObject("start_time", java.time.LocalTime.class);
+                    java.time.LocalTime endTime = rs.getObject("end_time", java.time.LocalTime.class);
+
+                    java.util.Map<String, Object> result = new java.util.HashMap<>();
+                    result.put("slotId", rs.getLong("booking_id"));
+                    result.put("examId", rs.getLong("exam_id"));
+                    result.put("examName", rs.getString("exam_name"));
+                    result.put("slotDate", rs.getObject("slot_date", LocalDate.class).toString());
+                    result.put("deptCode", rs.getString("dept_code"));
+                    result.put("category",
+                            categoryType == 1 ? "Day Scholar" : categoryType == 2 ? "Hostel Boys" : "Hostel Girls");
+                    result.put("status", "BOOKED");
+                    result.put("hasBooking", true);
+                    result.put("startTime", startTime != null ? startTime.toString() : "TBD");
+                    result.put("endTime", endTime != null ? endTime.toString() : "TBD");
+                    return result;
+                }, rollNo);
     }
 }
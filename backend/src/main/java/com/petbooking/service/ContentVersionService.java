@@ -0,0 +1,109 @@
+package com.petbooking.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters behind the ETags of the hot read endpoints. Each counter is
+ * bumped after the write that changes the data behind it commits, so a request
+ * that reads the version before its query can only ever get an older tag than
+ * its body, never a newer one: an unchanged tag is safe to answer with 304.
+ *
+ * - exam list: bumped when an exam is created or deleted
+ * - exam scope: publish/stop/generate/delete of any part of the exam
+ * - partition: bookings and cancellations of one (exam, dept, category)
+ * - dashboard: bumped by {@link DashboardStatsService} after it has applied a
+ *   change, since the dashboard is served from its counters, not the database
+ *
+ * Counters live only in memory; the boot id in every tag makes tags from a
+ * previous process mismatch instead of colliding with restarted counters.
+ */
+@Service
+public class ContentVersionService {
+
+    private final String bootId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong epoch = new AtomicLong();
+    private final AtomicLong examList = new AtomicLong();
+    private final Map<Long, AtomicLong> examScopes = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> dashboards = new ConcurrentHashMap<>();
+    private final Map<PartitionKey, AtomicLong> partitions = new ConcurrentHashMap<>();
+
+    private record PartitionKey(Long examId, Long deptId, Integer categoryType) {
+    }
+
+    public String examListTag() {
+        return tag(examList.get());
+    }
+
+    public String dashboardTag(Long examId) {
+        return tag(version(dashboards, examId));
+    }
+
+    public String availableDatesTag(Long examId, Long deptId, Integer categoryType) {
+        return tag(version(examScopes, examId), version(partitions, new PartitionKey(examId, deptId, categoryType)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAvailabilityChanged(SeatAvailabilityEvent event) {
+        if (event.isScopeChange()) {
+            bump(examScopes, event.examId());
+            return;
+        }
+        bump(partitions, new PartitionKey(event.examId(), event.deptId(), event.categoryType()));
+    }
+
+    /**
+     * An exam row was created or deleted. Bumps once the caller's transaction commits.
+     */
+    public void examsChangedAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            examList.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                examList.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * The in-memory dashboard counters of an exam changed.
+     */
+    public void dashboardChanged(Long examId) {
+        bump(dashboards, examId);
+    }
+
+    /**
+     * Data changed outside the tracked paths (e.g. the availability table was
+     * rebuilt): every tag handed out so far is invalid.
+     */
+    public void everythingChanged() {
+        epoch.incrementAndGet();
+    }
+
+    private static <K> long version(Map<K, AtomicLong> counters, K key) {
+        AtomicLong counter = counters.get(key);
+        return counter != null ? counter.get() : 0;
+    }
+
+    private static <K> void bump(Map<K, AtomicLong> counters, K key) {
+        counters.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private String tag(long... versions) {
+        StringBuilder tag = new StringBuilder("\"").append(bootId).append('-').append(epoch.get());
+        for (long version : versions) {
+            tag.append('-').append(version);
+        }
+        return tag.append('"').toString();
+    }
+}
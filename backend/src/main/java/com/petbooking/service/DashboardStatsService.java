@@ -0,0 +1,222 @@
+package com.petbooking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory seat counts behind the admin dashboard.
+ *
+ * An exam's counters are loaded with one GROUP BY the first time its dashboard
+ * is opened. After that, committed bookings and cancellations adjust them by
+ * one and publish/stop/generate reload the exam, so refreshing the dashboard
+ * reads memory only. A scheduled reconcile reloads every loaded exam from
+ * exam_slot_seats (exam_capacity for counted exams) to correct any drift (a delta that raced a reload, seats
+ * changed by hand in the database), and drops exams nobody has read for
+ * evict-after-ms. A reload only bumps the dashboard ETag when a count changed.
+ */
+@Service
+public class DashboardStatsService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ContentVersionService contentVersionService;
+
+    @Value("${booking.dashboard.evict-after-ms:600000}")
+    private long evictAfterMs;
+
+    private final Map<Long, ExamCounts> exams = new ConcurrentHashMap<>();
+
+    /**
+     * total / booked / published seats of one group.
+     */
+    static final class Counts {
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong booked = new AtomicLong();
+        final AtomicLong published = new AtomicLong();
+
+        void add(long total, long booked, long published) {
+            this.total.addAndGet(total);
+            this.booked.addAndGet(booked);
+            this.published.addAndGet(published);
+        }
+
+        boolean sameAs(Counts other) {
+            return other != null && total.get() == other.total.get() && booked.get() == other.booked.get()
+                    && published.get() == other.published.get();
+        }
+    }
+
+    private record DayCategory(LocalDate slotDate, Integer categoryType) {
+    }
+
+    /**
+     * Both dashboard views of one exam, rolled up from the same rows.
+     */
+    static final class ExamCounts {
+        final Map<DayCategory, Counts> byDay = new ConcurrentSkipListMap<>(
+                Comparator.comparing(DayCategory::slotDate).thenComparing(DayCategory::categoryType));
+        final Map<Long, Counts> byDept = new ConcurrentSkipListMap<>();
+        final Map<Long, String> deptCodes = new ConcurrentHashMap<>();
+        volatile long lastReadAt = System.currentTimeMillis();
+
+        boolean sameAs(ExamCounts other) {
+            return sameCounts(byDay, other.byDay) && sameCounts(byDept, other.byDept)
+                    && deptCodes.equals(other.deptCodes);
+        }
+
+        private static <K> boolean sameCounts(Map<K, Counts> a, Map<K, Counts> b) {
+            if (!a.keySet().equals(b.keySet())) {
+                return false;
+            }
+            for (Map.Entry<K, Counts> entry : a.entrySet()) {
+                if (!entry.getValue().sameAs(b.get(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Seats per (slotDate, categoryType) in date order. Throws if the exam does not exist.
+     */
+    public List<Object[]> dayStats(Long examId) {
+        List<Object[]> rows = new ArrayList<>();
+        counts(examId).byDay.forEach((key, c) -> rows.add(new Object[] { key.slotDate(), key.categoryType(),
+                c.total.get(), c.booked.get(), c.published.get() }));
+        return rows;
+    }
+
+    /**
+     * Seats per department as (deptId, deptCode, total, booked, published).
+     */
+    public List<Object[]> departmentStats(Long examId) {
+        ExamCounts counts = counts(examId);
+        List<Object[]> rows = new ArrayList<>();
+        counts.byDept.forEach((deptId, c) -> rows.add(new Object[] { deptId, counts.deptCodes.get(deptId),
+                c.total.get(), c.booked.get(), c.published.get() }));
+        return rows;
+    }
+
+    /**
+     * Apply a committed change. Only exams someone has looked at are tracked;
+     * the rest are loaded fresh on first read.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAvailabilityChanged(SeatAvailabilityEvent event) {
+        ExamCounts counts = exams.get(event.examId());
+        if (counts == null) {
+            return;
+        }
+        if (event.isScopeChange()) {
+            reload(event.examId());
+            return;
+        }
+        Counts day = counts.byDay.get(new DayCategory(event.slotDate(), event.categoryType()));
+        Counts dept = counts.byDept.get(event.deptId());
+        if (day == null || dept == null) {
+            // A group we have never seen: the seats were created after the load
+            reload(event.examId());
+            return;
+        }
+        day.booked.addAndGet(event.bookedDelta());
+        dept.booked.addAndGet(event.bookedDelta());
+        contentVersionService.dashboardChanged(event.examId());
+    }
+
+    @Scheduled(fixedDelayString = "${booking.dashboard.reconcile-ms:60000}",
+            initialDelayString = "${booking.dashboard.reconcile-ms:60000}")
+    public void reconcile() {
+        long idleBefore = System.currentTimeMillis() - evictAfterMs;
+        for (Map.Entry<Long, ExamCounts> entry : new ArrayList<>(exams.entrySet())) {
+            Long examId = entry.getKey();
+            if (entry.getValue().lastReadAt < idleBefore) {
+                // Deltas are no longer applied, so tags handed out so far must not match again
+                exams.remove(examId, entry.getValue());
+                contentVersionService.dashboardChanged(examId);
+                continue;
+            }
+            try {
+                reload(examId);
+            } catch (RuntimeException e) {
+                System.out.println("Dashboard reconcile failed for exam " + examId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private ExamCounts counts(Long examId) {
+        ExamCounts counts = exams.get(examId);
+        if (counts != null) {
+            counts.lastReadAt = System.currentTimeMillis();
+            return counts;
+        }
+        Integer found = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM exams WHERE exam_id = ?", Integer.class,
+                examId);
+        if (found == null || found == 0) {
+            throw new RuntimeException("Exam not found: " + examId);
+        }
+        return reload(examId);
+    }
+
+    /**
+     * Recount one exam and swap the result in. A deleted exam (no seats, no
+     * exam row) is dropped instead. The ETag is only bumped if a count differs.
+     */
+    private ExamCounts reload(Long examId) {
+        ExamCounts fresh = new ExamCounts();
+        jdbcTemplate.query("""
+                SELECT x.dept_id, d.dept_code, x.slot_date, x.category_type, COUNT(*) AS total,
+                       COUNT(x.roll_number) AS booked, CASE WHEN p.published THEN COUNT(*) ELSE 0 END AS published
+                FROM exam_slot_seats x
+                JOIN departments d ON d.dept_id = x.dept_id
+                LEFT JOIN exam_dept_publication p ON p.exam_id = x.exam_id AND p.dept_id = x.dept_id
+                WHERE x.exam_id = ?
+                GROUP BY x.dept_id, d.dept_code, x.slot_date, x.category_type, p.published
+                UNION ALL
+                SELECT c.dept_id, d.dept_code, c.slot_date, c.category_type, c.capacity AS total,
+                       c.booked_count AS booked, CASE WHEN p.published THEN c.capacity ELSE 0 END AS published
+                FROM exam_capacity c
+                JOIN departments d ON d.dept_id = c.dept_id
+                LEFT JOIN exam_dept_publication p ON p.exam_id = c.exam_id AND p.dept_id = c.dept_id
+                WHERE c.exam_id = ?
+                """, rs -> {
+                    long deptId = rs.getLong("dept_id");
+                    long total = rs.getLong("total");
+                    long booked = rs.getLong("booked");
+                    long published = rs.getLong("published");
+                    fresh.deptCodes.put(deptId, rs.getString("dept_code"));
+                    fresh.byDept.computeIfAbsent(deptId, k -> new Counts()).add(total, booked, published);
+                    fresh.byDay.computeIfAbsent(new DayCategory(rs.getObject("slot_date", LocalDate.class),
+                            rs.getInt("category_type")), k -> new Counts()).add(total, booked, published);
+                }, examId, examId);
+        if (fresh.byDept.isEmpty()) {
+            Integer found = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM exams WHERE exam_id = ?",
+                    Integer.class, examId);
+            if (found == null || found == 0) {
+                exams.remove(examId);
+                contentVersionService.dashboardChanged(examId);
+                return fresh;
+            }
+        }
+        ExamCounts previous = exams.put(examId, fresh);
+        if (previous != null) {
+            fresh.lastReadAt = previous.lastReadAt;
+        }
+        if (previous == null || !previous.sameAs(fresh)) {
+            contentVersionService.dashboardChanged(examId);
+        }
+        return fresh;
+    }
+}
@@ -1,13 +1,15 @@
 package com.petbooking.service;
 
-import com.petbooking.entity.Exam;
-import com.petbooking.repository.ExamRepository;
+import com.petbooking.entity.ExamSlotSeat;
+import com.petbooking.repository.ExamDeptPublicationRepository;
 import com.petbooking.repository.ExamSlotSeatRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.*;
 
 /**
@@ -21,7 +23,22 @@ public class ExamAdminService {
     private ExamSlotSeatRepository slotSeatRepository;
 
     @Autowired
-    private ExamRepository examRepository;
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private SeatAvailabilityService seatAvailabilityService;
+
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @Autowired
+    private ExamCapacityService examCapacityService;
+
+    @Autowired
+    private ExamDeptPublicationRepository publicationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     /**
      * Publish slots for a specific department.
@@ -29,7 +46,7 @@ public class ExamAdminService {
      */
     @Transactional
     public Map<String, Object> publishSlotsForDepartment(Long examId, Long deptId) {
-        int updated = slotSeatRepository.publishSlotsForDepartment(examId, deptId);
+        int updated = setPublished(examId, deptId, true);
         Map<String, Object> result = new HashMap<>();
         result.put("examId", examId);
         result.put("deptId", deptId);
@@ -43,7 +60,7 @@ public class ExamAdminService {
      */
     @Transactional
     public Map<String, Object> publishAllSlots(Long examId) {
-        int updated = slotSeatRepository.publishAllSlots(examId);
+        int updated = setPublished(examId, null, true);
         Map<String, Object> result = new HashMap<>();
         result.put("examId", examId);
         result.put("slotsPublished", updated);
@@ -53,12 +70,12 @@ public class ExamAdminService {
 
     /**
      * Stop all bookings for an exam.
-     * Sets book=false so slots become invisible to students.
+     * Unpublishes every department so slots become invisible to students.
      * Already booked slots remain intact.
      */
     @Transactional
     public Map<String, Object> stopAllBookings(Long examId) {
-        int updated = slotSeatRepository.stopAllBookings(examId);
+        int updated = setPublished(examId, null, false);
         Map<String, Object> result = new HashMap<>();
         result.put("examId", examId);
         result.put("slotsStopped", updated);
@@ -71,7 +88,7 @@ public class ExamAdminService {
      */
     @Transactional
     public Map<String, Object> stopSlotsForDepartment(Long examId, Long deptId) {
-        int updated = slotSeatRepository.stopSlotsForDepartment(examId, deptId);
+        int updated = setPublished(examId, deptId, false);
         Map<String, Object> result = new HashMap<>();
         result.put("examId", examId);
         result.put("deptId", deptId);
@@ -81,11 +98,47 @@ public class ExamAdminService {
     }
 
     /**
-     * Cancel a specific booking.
+     * Departments that have seats in the exam, the units of the publish and stop jobs.
+     */
+    public List<Long> departmentIds(Long examId) {
+        return publicationRepository.findDeptIds(examId);
+    }
+
+    /**
+     * Flip the publication row of one department (deptId set) or of every
+     * department: the booking statements check it, so no seat row is written
+     * and bookings already in flight are not waited for. Returns the number of
+     * seats in scope, as the per-seat UPDATE used to.
+     */
+    private int setPublished(Long examId, Long deptId, boolean published) {
+        publicationRepository.setPublished(examId, deptId, published);
+        seatAvailabilityService.publicationChanged(examId, deptId, published);
+        seatInventoryService.rebuildExamAfterCommit(examId);
+        return seatAvailabilityService.seatCount(examId, deptId);
+    }
+
+    /**
+     * Cancel a specific booking of an exam. slotId is a seat id or, for a
+     * counted exam, a booking id (both come from the same sequence). The exam
+     * id keeps the seat lookup to the exam's own partition.
      */
     @Transactional
-    public Map<String, Object> cancelBooking(Long slotId) {
-        int updated = slotSeatRepository.cancelBooking(slotId);
+    public Map<String, Object> cancelBooking(Long examId, Long slotId) {
+        if (examCapacityService.isCounted(examId)) {
+            return cancelCountedBooking(slotId);
+        }
+        ExamSlotSeat seat = slotSeatRepository.findByExamIdAndSlotId(examId, slotId).orElse(null);
+        // Only the cancel whose UPDATE released the seat counts it and returns it to the inventory
+        int updated = seat == null ? 0 : slotSeatRepository.cancelBooking(examId, slotId);
+        if (updated == 1) {
+            var key = new SeatInventoryService.InventoryKey(seat.getExam().getExamId(),
+                    seat.getDepartment().getDeptId(), seat.getCategoryType(), seat.getSlotDate());
+            seatAvailabilityService.seatReleased(key);
+            // The inventory only holds seats of published departments; publish reloads the rest
+            if (publicationRepository.isPublished(key.examId(), key.deptId())) {
+                seatInventoryService.releaseAfterCommit(key, slotId);
+            }
+        }
         Map<String, Object> result = new HashMap<>();
         result.put("slotId", slotId);
         result.put("success", updated > 0);
@@ -93,15 +146,51 @@ public class ExamAdminService {
         return result;
     }
 
+    private Map<String, Object> cancelCountedBooking(Long bookingId) {
+        SeatInventoryService.InventoryKey cancelled = examCapacityService.cancel(bookingId);
+        if (cancelled != null) {
+            seatAvailabilityService.seatReleased(cancelled);
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("slotId", bookingId);
+        result.put("success", cancelled != null);
+        result.put("message", cancelled != null ? "Booking cancelled" : "Booking not found or already available");
+        return result;
+    }
+
+    /**
+     * One page of booked seats of both inventory models (view exam_booked_seats),
+     * keyset-paginated by slot_id. Row: slotId, rollNumber, studentName, deptCode,
+     * slotDate, categoryType, dayScholarStartTime, hostelStartTime, examId.
+     */
+    public List<Object[]> findBookedSeatsPage(Long afterSlotId, Long slotId, Long deptId, int limit) {
+        return jdbcTemplate.query("""
+                SELECT b.slot_id, b.roll_number, st.name, d.dept_code, b.slot_date, b.category_type,
+                       e.day_scholar_start_time, e.hostel_start_time, b.exam_id
+                FROM exam_booked_seats b
+                JOIN departments d ON d.dept_id = b.dept_id
+                JOIN exams e ON e.exam_id = b.exam_id
+                LEFT JOIN students st ON st.roll_no = b.roll_number
+                WHERE b.slot_id > ?
+                  AND (CAST(? AS BIGINT) IS NULL OR b.slot_id = ?)
+                  AND (CAST(? AS BIGINT) IS NULL OR b.dept_id = ?)
+                ORDER BY b.slot_id
+                LIMIT ?
+                """, (rs, rowNum) -> new Object[] {
+                        rs.getLong("slot_id"), rs.getString("roll_number"), rs.getString("name"),
+                        rs.getString("dept_code"), rs.getObject("slot_date", LocalDate.class),
+                        rs.getInt("category_type"), rs.getObject("day_scholar_start_time", LocalTime.class),
+                        rs.getObject("hostel_start_time", LocalTime.class), rs.getLong("exam_id") },
+                afterSlotId, slotId, slotId, deptId, deptId, limit);
+    }
+
     /**
      * Get day-wise slot summary for admin dashboard.
      * Shows total, booked, and available slots per day per category.
+     * Served from the in-memory counters of {@link DashboardStatsService}.
      */
     public List<Map<String, Object>> getDashboardStats(Long examId) {
-        Exam exam = examRepository.findById(examId)
-                .orElseThrow(() -> new RuntimeException("Exam not found: " + examId));
-
-        List<Object[]> stats = slotSeatRepository.getDashboardStats(examId);
+        List<Object[]> stats = dashboardStatsService.dayStats(examId);
         List<Map<String, Object>> result = new ArrayList<>();
 
         // Group by date
@@ -145,7 +234,7 @@ public class ExamAdminService {
      * Get department-wise slot summary for admin.
      */
     public List<Map<String, Object>> getDepartmentStats(Long examId) {
-        List<Object[]> stats = slotSeatRepository.getDepartmentStats(examId);
+        List<Object[]> stats = dashboardStatsService.departmentStats(examId);
         List<Map<String, Object>> result = new ArrayList<>();
 
         for (Object[] row : stats) {
@@ -0,0 +1,161 @@
+package com.petbooking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The counted-capacity inventory model (exams.inventory_model = COUNTED).
+ *
+ * Instead of one exam_slot_seats row per seat, such an exam has one
+ * exam_capacity row per (exam, dept, category, date) holding its capacity and
+ * booked_count, plus one exam_bookings row per booked student. A booking is a
+ * conditional increment of booked_count (the way exam_quotas.current_fill is
+ * booked), so stats and delete touch a few hundred rows however many seats the
+ * exam has. The price is that all bookings of one (dept, category, date) queue
+ * on its capacity row. Publication is the exam_dept_publication row of the
+ * department, as for seat exams.
+ *
+ * Booking ids come from the seat id sequence, so a booking id never collides
+ * with a slot_id: the admin bookings list (view exam_booked_seats) and cancel
+ * by slotId work for both models. exam_seat_availability is kept in step just
+ * as for seat exams, so the date picker, live stream and ETags do not care
+ * which model an exam uses.
+ */
+@Service
+public class ExamCapacityService {
+
+    private static final String BOOK_SQL = """
+            WITH claim AS (
+                UPDATE exam_capacity SET booked_count = booked_count + 1
+                WHERE exam_id = ? AND dept_id = ? AND category_type = ? AND slot_date = ?
+                  AND booked_count < capacity
+                  AND EXISTS (SELECT 1 FROM exam_dept_publication p
+                              WHERE p.exam_id = ? AND p.dept_id = ? AND p.published)
+                  AND NOT EXISTS (SELECT 1 FROM exam_bookings WHERE exam_id = ? AND roll_no = ?)
+                RETURNING exam_id, dept_id, category_type, slot_date
+            ), booking AS (
+                INSERT INTO exam_bookings (exam_id, roll_no, dept_id, category_type, slot_date)
+                SELECT exam_id, ?, dept_id, category_type, slot_date FROM claim
+                RETURNING booking_id, exam_id, dept_id, category_type, slot_date
+            ), summary AS (
+                UPDATE exam_seat_availability a SET free_seats = a.free_seats - 1
+                FROM booking b
+                WHERE a.exam_id = b.exam_id AND a.dept_id = b.dept_id
+                  AND a.category_type = b.category_type AND a.slot_date = b.slot_date
+            )
+            SELECT (SELECT booking_id FROM booking) AS booking_id,
+                   EXISTS (SELECT 1 FROM exam_bookings WHERE exam_id = e.exam_id AND roll_no = ?) AS duplicate,
+                   e.exam_name, d.dept_code,
+                   CASE WHEN ? = 1 THEN e.day_scholar_start_time ELSE e.hostel_start_time END AS start_time,
+                   CASE WHEN ? = 1 THEN e.day_scholar_end_time ELSE e.hostel_end_time END AS end_time
+            FROM exams e, departments d
+            WHERE e.exam_id = ? AND d.dept_id = ?
+            """;
+
+    private static final String CANCEL_SQL = """
+            WITH gone AS (
+                DELETE FROM exam_bookings WHERE booking_id = ?
+                RETURNING exam_id, dept_id, category_type, slot_date
+            )
+            UPDATE exam_capacity c SET booked_count = c.booked_count - 1
+            FROM gone g
+            WHERE c.exam_id = g.exam_id AND c.dept_id = g.dept_id
+              AND c.category_type = g.category_type AND c.slot_date = g.slot_date
+            RETURNING c.exam_id, c.dept_id, c.category_type, c.slot_date
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // An exam's model never changes after it is created
+    private final Map<Long, Boolean> counted = new ConcurrentHashMap<>();
+
+    /**
+     * Outcome of {@link #book}: bookingId is null if the student already has a
+     * booking for the exam (duplicate) or no published seat was left.
+     */
+    public record Claim(Long bookingId, boolean duplicate, String examName, String deptCode,
+            LocalTime startTime, LocalTime endTime) {
+    }
+
+    public boolean isCounted(Long examId) {
+        Boolean cached = counted.get(examId);
+        if (cached != null) {
+            return cached;
+        }
+        List<String> model = jdbcTemplate.queryForList("SELECT inventory_model FROM exams WHERE exam_id = ?",
+                String.class, examId);
+        if (model.isEmpty()) {
+            return false; // unknown exam: let the seat path report it
+        }
+        boolean isCounted = "COUNTED".equals(model.get(0));
+        counted.put(examId, isCounted);
+        return isCounted;
+    }
+
+    /**
+     * Insert capacity rows for the given groups of a new exam.
+     */
+    public void createCapacity(Long examId, Object[] deptIds, Object[] dates, Object[] categories,
+            Object[] capacities) {
+        jdbcTemplate.update("""
+                INSERT INTO exam_capacity (exam_id, dept_id, slot_date, category_type, capacity, booked_count)
+                SELECT ?, g.dept_id, g.slot_date, g.category_type, SUM(g.capacity), 0
+                FROM unnest(?::bigint[], ?::date[], ?::int[], ?::int[])
+                     AS g(dept_id, slot_date, category_type, capacity)
+                GROUP BY g.dept_id, g.slot_date, g.category_type
+                """, ps -> {
+                    ps.setLong(1, examId);
+                    ps.setArray(2, ps.getConnection().createArrayOf("bigint", deptIds));
+                    ps.setArray(3, ps.getConnection().createArrayOf("date", dates));
+                    ps.setArray(4, ps.getConnection().createArrayOf("integer", categories));
+                    ps.setArray(5, ps.getConnection().createArrayOf("integer", capacities));
+                });
+    }
+
+    /**
+     * Claim one seat of the student's group in a single statement: the
+     * conditional increment, the booking row and the free-seat count. A
+     * concurrent second booking by the same student fails on the
+     * (exam_id, roll_no) unique key with a DataIntegrityViolationException.
+     */
+    public Claim book(String rollNo, Long examId, Long deptId, Integer categoryType, LocalDate slotDate) {
+        List<Claim> rows = jdbcTemplate.query(BOOK_SQL,
+                (rs, rowNum) -> new Claim(rs.getObject("booking_id", Long.class), rs.getBoolean("duplicate"),
+                        rs.getString("exam_name"), rs.getString("dept_code"),
+                        rs.getObject("start_time", LocalTime.class),
+                        rs.getObject("end_time", LocalTime.class)),
+                examId, deptId, categoryType, slotDate, examId, deptId, examId, rollNo, rollNo, rollNo, categoryType,
+                categoryType, examId, deptId);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Exam not found");
+        }
+        return rows.get(0);
+    }
+
+    /**
+     * Delete a booking and give its seat back to the group. Returns the
+     * group, or null if there is no such booking.
+     */
+    public SeatInventoryService.InventoryKey cancel(Long bookingId) {
+        List<SeatInventoryService.InventoryKey> rows = jdbcTemplate.query(CANCEL_SQL,
+                (rs, rowNum) -> new SeatInventoryService.InventoryKey(rs.getLong("exam_id"),
+                        rs.getLong("dept_id"), rs.getInt("category_type"),
+                        rs.getObject("slot_date", LocalDate.class)),
+                bookingId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public void deleteExam(Long examId) {
+        jdbcTemplate.update("DELETE FROM exam_bookings WHERE exam_id = ?", examId);
+        jdbcTemplate.update("DELETE FROM exam_capacity WHERE exam_id = ?", examId);
+        counted.remove(examId);
+    }
+}
@@ -4,12 +4,17 @@ import com.petbooking.dto.ExamDtos.*;
 import com.petbooking.entity.*;
 import com.petbooking.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ExamInitService {
@@ -22,6 +27,31 @@ public class ExamInitService {
     private ExamQuotaRepository quotaRepository;
     @Autowired
     private DepartmentRepository departmentRepository;
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private SeatAvailabilityService seatAvailabilityService;
+    @Autowired
+    private ContentVersionService contentVersionService;
+    @Autowired
+    private ExamCapacityService examCapacityService;
+    @Autowired
+    private ExamDeptPublicationRepository publicationRepository;
+    @Autowired
+    private PublishScheduleRepository publishScheduleRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private static final String INSERT_SEATS_SQL = """
+            INSERT INTO exam_slot_seats (exam_id, slot_date, dept_id, category_type, status)
+            SELECT ?, g.slot_date, g.dept_id, g.category_type, 'AVAILABLE'
+            FROM unnest(?::bigint[], ?::date[], ?::int[], ?::int[])
+                 WITH ORDINALITY AS g(dept_id, slot_date, category_type, seats, n)
+            CROSS JOIN LATERAL generate_series(1, g.seats)
+            ORDER BY g.n
+            """;
 
     /**
      * Initialize an Exam with Slot Inventory and Departmental Quotas.
@@ -29,6 +59,19 @@ public class ExamInitService {
      */
     @Transactional
     public ExamInitResponse initializeExam(ExamInitRequest request) {
+        ExamInitResponse response = createExam(request);
+        response.setTotalSlotsGenerated(generateSeats(response.getExamId(), request,
+                request.getDeptCategories().stream().map(DeptCategoryCount::getDeptId).toList()));
+        return response;
+    }
+
+    /**
+     * Steps A and C of {@link #initializeExam}: the exam row and its quotas,
+     * without any seats yet. Used on its own by the exam creation job, which
+     * then generates the seats one department per transaction.
+     */
+    @Transactional
+    public ExamInitResponse createExam(ExamInitRequest request) {
         // ============ STEP A: Create Exam Entry ============
         Exam exam = new Exam();
         exam.setExamName(request.getExamName());
@@ -56,91 +99,25 @@ public class ExamInitService {
         if (request.getSystemsPerSlot() != null) {
             exam.setSystemsPerSlot(request.getSystemsPerSlot());
         }
+        if (request.getInventoryModel() != null) {
+            exam.setInventoryModel(request.getInventoryModel());
+        }
 
         exam = examRepository.save(exam);
+        contentVersionService.examsChangedAfterCommit();
 
-        Long examId = exam.getExamId();
-        int totalSlotsGenerated = 0;
         int quotasCreated = 0;
 
-        // ============ STEP B: Generate Slot Inventory ============
-        // For each department category, create individual seat records
-        List<ExamSlotSeat> allSlots = new ArrayList<>();
+        // All departments in one query
+        Map<Long, Department> departments = new HashMap<>();
+        departmentRepository.findAllById(request.getDeptCategories().stream()
+                .map(DeptCategoryCount::getDeptId).toList())
+                .forEach(dept -> departments.put(dept.getDeptId(), dept));
 
         for (DeptCategoryCount deptCat : request.getDeptCategories()) {
-            Department dept = departmentRepository.findById(deptCat.getDeptId())
-                    .orElseThrow(() -> new RuntimeException("Department not found: " + deptCat.getDeptId()));
-
-            // Calculate slots per day for each category
-            int dayScholarPerDay = deptCat.getDayScholarCount() / request.getTotalDays();
-            int dayScholarRemainder = deptCat.getDayScholarCount() % request.getTotalDays();
-
-            int hostelBoysPerDay = deptCat.getHostellerBoysCount() / request.getTotalDays();
-            int hostelBoysRemainder = deptCat.getHostellerBoysCount() % request.getTotalDays();
-
-            int hostelGirlsPerDay = deptCat.getHostellerGirlsCount() / request.getTotalDays();
-            int hostelGirlsRemainder = deptCat.getHostellerGirlsCount() % request.getTotalDays();
-
-            // Iterate through each exam day
-            LocalDate currentDate = request.getStartDate();
-            int dayIndex = 0;
-
-            while (!currentDate.isAfter(request.getEndDate()) && dayIndex < request.getTotalDays()) {
-                // Fair Distribution Logic: Distribute remainders to the first 'remainder' days
-
-                // Day Scholars
-                int daySlotsToday = dayScholarPerDay;
-                if (dayIndex < dayScholarRemainder) {
-                    daySlotsToday++;
-                }
-
-                for (int i = 0; i < daySlotsToday; i++) {
-                    ExamSlotSeat slot = new ExamSlotSeat();
-                    slot.setExam(exam);
-                    slot.setSlotDate(currentDate);
-                    slot.setDepartment(dept);
-                    slot.setCategoryType(1); // Day Scholar
-                    slot.setStatus("AVAILABLE");
-                    slot.setBook(false);
-                    allSlots.add(slot);
-                }
-
-                // Hostel Boys
-                int hostelBoysSlotsToday = hostelBoysPerDay;
-                if (dayIndex < hostelBoysRemainder) {
-                    hostelBoysSlotsToday++;
-                }
-
-                for (int i = 0; i < hostelBoysSlotsToday; i++) {
-                    ExamSlotSeat slot = new ExamSlotSeat();
-                    slot.setExam(exam);
-                    slot.setSlotDate(currentDate);
-                    slot.setDepartment(dept);
-                    slot.setCategoryType(2); // Hostel Boys
-                    slot.setStatus("AVAILABLE");
-                    slot.setBook(false);
-                    allSlots.add(slot);
-                }
-
-                // Hostel Girls
-                int hostelGirlsSlotsToday = hostelGirlsPerDay;
-                if (dayIndex < hostelGirlsRemainder) {
-                    hostelGirlsSlotsToday++;
-                }
-
-                for (int i = 0; i < hostelGirlsSlotsToday; i++) {
-                    ExamSlotSeat slot = new ExamSlotSeat();
-                    slot.setExam(exam);
-                    slot.setSlotDate(currentDate);
-                    slot.setDepartment(dept);
-                    slot.setCategoryType(3); // Hostel Girls
-                    slot.setStatus("AVAILABLE");
-                    slot.setBook(false);
-                    allSlots.add(slot);
-                }
-
-                currentDate = currentDate.plusDays(1);
-                dayIndex++;
+            Department dept = departments.get(deptCat.getDeptId());
+            if (dept == null) {
+                throw new RuntimeException("Department not found: " + deptCat.getDeptId());
             }
 
             // ============ STEP C: Create Quota Entries ============
@@ -175,21 +152,262 @@ public class ExamInitService {
             quotasCreated++;
         }
 
-        // Bulk insert all slots for performance
-        slotSeatRepository.saveAll(allSlots);
-        totalSlotsGenerated = allSlots.size();
-
         // ============ Return Summary ============
         ExamInitResponse response = new ExamInitResponse();
-        response.setExamId(examId);
+        response.setExamId(exam.getExamId());
         response.setExamName(exam.getExamName());
         response.setTotalDays(exam.getNoOfDays());
-        response.setTotalSlotsGenerated(totalSlotsGenerated);
+        response.setTotalSlotsGenerated(0);
         response.setQuotasCreated(quotasCreated);
 
         return response;
     }
 
+    /**
+     * Step B of {@link #initializeExam}: the seats (or capacity rows) of the
+     * given departments, and their availability summary. Returns the number of
+     * seats generated.
+     */
+    @Transactional
+    public int generateSeats(Long examId, ExamInitRequest request, List<Long> deptIds) {
+        Exam exam = examRepository.findById(examId)
+                .orElseThrow(() -> new RuntimeException("Exam not found: " + examId));
+
+        // Seats per (dept, day, category); the seat rows (or capacity rows) are written in one statement
+        SeatGroups groups = new SeatGroups();
+
+        for (DeptCategoryCount deptCat : request.getDeptCategories()) {
+            if (!deptIds.contains(deptCat.getDeptId())) {
+                continue;
+            }
+
+            // Calculate slots per day for each category
+            int dayScholarPerDay = deptCat.getDayScholarCount() / request.getTotalDays();
+            int dayScholarRemainder = deptCat.getDayScholarCount() % request.getTotalDays();
+
+            int hostelBoysPerDay = deptCat.getHostellerBoysCount() / request.getTotalDays();
+            int hostelBoysRemainder = deptCat.getHostellerBoysCount() % request.getTotalDays();
+
+            int hostelGirlsPerDay = deptCat.getHostellerGirlsCount() / request.getTotalDays();
+            int hostelGirlsRemainder = deptCat.getHostellerGirlsCount() % request.getTotalDays();
+
+            // Iterate through each exam day
+            LocalDate currentDate = request.getStartDate();
+            int dayIndex = 0;
+
+            while (!currentDate.isAfter(request.getEndDate()) && dayIndex < request.getTotalDays()) {
+                // Fair Distribution Logic: Distribute remainders to the first 'remainder' days
+                groups.add(deptCat.getDeptId(), currentDate, 1, // Day Scholars
+                        dayScholarPerDay + (dayIndex < dayScholarRemainder ? 1 : 0));
+                groups.add(deptCat.getDeptId(), currentDate, 2, // Hostel Boys
+                        hostelBoysPerDay + (dayIndex < hostelBoysRemainder ? 1 : 0));
+                groups.add(deptCat.getDeptId(), currentDate, 3, // Hostel Girls
+                        hostelGirlsPerDay + (dayIndex < hostelGirlsRemainder ? 1 : 0));
+
+                currentDate = currentDate.plusDays(1);
+                dayIndex++;
+            }
+        }
+
+        // Bulk insert all slots: one statement, seat ids come from the sequence.
+        // A counted exam gets one capacity row per group instead.
+        int totalSlotsGenerated;
+        if (exam.getInventoryModel() == Exam.InventoryModel.COUNTED) {
+            totalSlotsGenerated = groups.insertCapacity(examId);
+        } else {
+            createSeatPartition(examId);
+            totalSlotsGenerated = groups.insert(examId);
+        }
+        // The departments start unpublished
+        publicationRepository.addDepartments(examId, deptIds.toArray(new Long[0]));
+        if (deptIds.size() == 1) {
+            seatAvailabilityService.refreshDepartment(examId, deptIds.get(0));
+        } else {
+            seatAvailabilityService.refreshExam(examId);
+        }
+        return totalSlotsGenerated;
+    }
+
+    /**
+     * Whether the department already has its seats (or capacity rows), so a
+     * resumed creation job can skip it.
+     */
+    public boolean hasSeats(Long examId, Long deptId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM exam_slot_seats WHERE exam_id = ? AND dept_id = ?) "
+                        + "OR EXISTS (SELECT 1 FROM exam_capacity WHERE exam_id = ? AND dept_id = ?)",
+                Boolean.class, examId, deptId, examId, deptId));
+    }
+
+    /**
+     * Seats (or counted bookings) an exam still has, the deletion job's total.
+     */
+    public int countSeats(Long examId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT (SELECT COUNT(*) FROM exam_slot_seats WHERE exam_id = ?) "
+                        + "+ (SELECT COUNT(*) FROM exam_bookings WHERE exam_id = ?)",
+                Integer.class, examId, examId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Seats generated for an exam, from the availability summary (capacity for a counted exam).
+     */
+    public int totalSeats(Long examId) {
+        Integer total = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(total_seats), 0) FROM exam_seat_availability WHERE exam_id = ?",
+                Integer.class, examId);
+        return total != null ? total : 0;
+    }
+
+    /**
+     * The partition of exam_slot_seats holding one exam's seats.
+     */
+    public static String seatPartitionName(Long examId) {
+        return "exam_slot_seats_exam_" + examId;
+    }
+
+    /**
+     * Give the exam its own partition of exam_slot_seats. Created standalone and
+     * then attached, which only takes a SHARE UPDATE EXCLUSIVE lock on the parent,
+     * so bookings on other exams carry on; the parent's indexes and foreign keys
+     * are added to the partition on attach. Joins the caller's transaction.
+     */
+    public void createSeatPartition(Long examId) {
+        String partition = seatPartitionName(examId);
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition)) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE exam_slot_seats INCLUDING DEFAULTS)");
+        jdbcTemplate.execute("ALTER TABLE exam_slot_seats ATTACH PARTITION " + partition
+                + " FOR VALUES IN (" + examId + ")");
+    }
+
+    /**
+     * Drop the exam's seat partition: all its seats go at once instead of row by
+     * row. DETACH ... CONCURRENTLY waits for the transactions still using the
+     * partition instead of locking the whole table, and cannot run inside a
+     * transaction, so this must be called outside one. A detach interrupted by
+     * a restart is finalized on the next call.
+     */
+    public void dropSeatPartition(Long examId) {
+        String partition = seatPartitionName(examId);
+        detachSeatPartition(partition);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+    }
+
+    /**
+     * The table an archived exam's seats are kept in.
+     */
+    public static String seatArchiveName(Long examId) {
+        return "exam_slot_seats_archive_" + examId;
+    }
+
+    /**
+     * Keep the exam's seats instead of dropping them: the partition is detached
+     * (outside a transaction, as for {@link #dropSeatPartition}) and renamed to
+     * {@link #seatArchiveName}, a standalone table that outlives the exam row.
+     * Its foreign keys and the slot_id default on the shared sequence are
+     * dropped so nothing ties it to the live tables. Safe to call again after
+     * an interruption. Returns the archive table, or null if the exam had no
+     * seat partition.
+     */
+    public String archiveSeatPartition(Long examId, String description) {
+        String partition = seatPartitionName(examId);
+        String archive = seatArchiveName(examId);
+        detachSeatPartition(partition);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (!jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition)) {
+                return;
+            }
+            List<String> foreignKeys = jdbcTemplate.queryForList("SELECT conname FROM pg_constraint "
+                    + "WHERE conrelid = to_regclass(?) AND contype = 'f'", String.class, partition);
+            for (String foreignKey : foreignKeys) {
+                jdbcTemplate.execute("ALTER TABLE " + partition + " DROP CONSTRAINT \"" + foreignKey + "\"");
+            }
+            jdbcTemplate.execute("ALTER TABLE " + partition + " ALTER COLUMN slot_id DROP DEFAULT");
+            jdbcTemplate.execute("ALTER TABLE " + partition + " RENAME TO " + archive);
+            jdbcTemplate.execute(jdbcTemplate.queryForObject("SELECT format('COMMENT ON TABLE %I IS %L', ?, ?)",
+                    String.class, archive, description));
+        });
+        return jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, archive)
+                ? archive : null;
+    }
+
+    /**
+     * DETACH ... CONCURRENTLY the partition if it is still attached, or
+     * finalize a detach interrupted by a restart.
+     */
+    private void detachSeatPartition(String partition) {
+        List<Boolean> detachPending = jdbcTemplate.queryForList(
+                "SELECT inhdetachpending FROM pg_inherits WHERE inhrelid = to_regclass(?)", Boolean.class, partition);
+        if (!detachPending.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE exam_slot_seats DETACH PARTITION " + partition
+                    + (detachPending.get(0) ? " FINALIZE" : " CONCURRENTLY"));
+        }
+    }
+
+    /**
+     * Delete up to limit counted bookings of an exam, the deletion job's unit of
+     * work (seats go with their partition). Returns the number of rows deleted,
+     * 0 once none are left for {@link #deleteExam} to finish in one short transaction.
+     */
+    @Transactional
+    public int deleteBookingChunk(Long examId, int limit) {
+        return jdbcTemplate.update("DELETE FROM exam_bookings WHERE booking_id IN "
+                + "(SELECT booking_id FROM exam_bookings WHERE exam_id = ? LIMIT ?)", examId, limit);
+    }
+
+    /**
+     * Seat counts collected per (dept, date, category), in the order the seats
+     * used to be created: department, then day, then category.
+     */
+    private final class SeatGroups {
+        private final List<Long> deptIds = new ArrayList<>();
+        private final List<java.sql.Date> dates = new ArrayList<>();
+        private final List<Integer> categories = new ArrayList<>();
+        private final List<Integer> seats = new ArrayList<>();
+        private int total;
+
+        void add(Long deptId, LocalDate date, int categoryType, int count) {
+            if (count == 0) {
+                return;
+            }
+            deptIds.add(deptId);
+            dates.add(java.sql.Date.valueOf(date));
+            categories.add(categoryType);
+            seats.add(count);
+            total += count;
+        }
+
+        /**
+         * Expand every group into its seat rows with generate_series: one INSERT
+         * for the whole exam instead of one per seat (IDENTITY ids keep Hibernate
+         * from batching saveAll).
+         */
+        int insert(Long examId) {
+            if (total == 0) {
+                return 0;
+            }
+            return jdbcTemplate.update(INSERT_SEATS_SQL, ps -> {
+                ps.setLong(1, examId);
+                ps.setArray(2, ps.getConnection().createArrayOf("bigint", deptIds.toArray()));
+                ps.setArray(3, ps.getConnection().createArrayOf("date", dates.toArray()));
+                ps.setArray(4, ps.getConnection().createArrayOf("integer", categories.toArray()));
+                ps.setArray(5, ps.getConnection().createArrayOf("integer", seats.toArray()));
+            });
+        }
+
+        int insertCapacity(Long examId) {
+            if (total == 0) {
+                return 0;
+            }
+            examCapacityService.createCapacity(examId, deptIds.toArray(), dates.toArray(),
+                    categories.toArray(), seats.toArray());
+            return total;
+        }
+    }
+
     /**
      * Get all exams
      */
@@ -213,16 +431,24 @@ public class ExamInitService {
     }
 
     /**
-     * Delete an exam and all related data
+     * Delete an exam and all related data. The seats go with their partition
+     * first (outside a transaction, see {@link #dropSeatPartition}); the rest
+     * is removed in one transaction.
      */
-    @Transactional
     public void deleteExam(Long examId) {
         if (!examRepository.existsById(examId)) {
             throw new RuntimeException("Exam not found: " + examId);
         }
+        dropSeatPartition(examId);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> deleteExamRows(examId));
+    }
 
+    private void deleteExamRows(Long examId) {
         // Delete related data first
-        slotSeatRepository.deleteByExamExamId(examId);
+        examCapacityService.deleteExam(examId);
+        seatAvailabilityService.removeExam(examId);
+        publicationRepository.deleteByExamId(examId);
+        publishScheduleRepository.deleteByExamId(examId);
         quotaRepository.deleteByExamExamId(examId);
 
         // Delete slots table entries if any (legacy check)
@@ -231,5 +457,7 @@ public class ExamInitService {
 
         // Delete the exam
         examRepository.deleteById(examId);
+        seatInventoryService.rebuildExamAfterCommit(examId);
+        contentVersionService.examsChangedAfterCommit();
     }
 }
@@ -0,0 +1,294 @@
+package com.petbooking.service;
+
+import com.petbooking.dto.ExamDtos.DeptPublishWindow;
+import com.petbooking.dto.ExamDtos.PublishScheduleRequest;
+import com.petbooking.entity.PublishSchedule;
+import com.petbooking.repository.ExamRepository;
+import com.petbooking.repository.PublishScheduleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publishes and stops departments at scheduled instants, so a college can
+ * open booking one department at a time (e.g. one every 5 minutes) instead
+ * of all at once. Each entry fires the same per-department operation as the
+ * admin buttons.
+ *
+ * The schedule lives in publish_schedule. One timer thread sleeps until the
+ * earliest pending entry is due and is re-armed whenever entries are added or
+ * cancelled; after a restart the pending entries are armed again and those
+ * that fell due in the meantime fire at once, in their original order.
+ */
+@Service
+public class PublishScheduleService {
+
+    @Autowired
+    private PublishScheduleRepository scheduleRepository;
+    @Autowired
+    private ExamAdminService examAdminService;
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Value("${booking.schedule.max-sleep-ms:60000}")
+    private long maxSleepMs;
+
+    @Value("${booking.schedule.grace-seconds:60}")
+    private long graceSeconds;
+
+    private ScheduledExecutorService timer;
+    private ScheduledFuture<?> nextWakeUp;
+    // Not synchronized: arm() queries the database and runs on request threads, which
+    // would pin their carrier thread in virtual-thread mode
+    private final ReentrantLock armLock = new ReentrantLock();
+    // Nothing fires before startup has requeued the entries an earlier run left FIRING
+    private volatile boolean ready;
+
+    @PostConstruct
+    void start() {
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "publish-schedule");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        timer.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeSchedule() {
+        int interrupted = scheduleRepository.requeueInterrupted();
+        List<PublishSchedule> due = scheduleRepository
+                .findByStatusAndFireAtLessThanEqualOrderByFireAtAscScheduleIdAsc(
+                        PublishSchedule.Status.PENDING, LocalDateTime.now());
+        if (!due.isEmpty() || interrupted > 0) {
+            System.out.println("Publish schedule: " + due.size() + " entries fell due while stopped, "
+                    + interrupted + " interrupted");
+        }
+        ready = true;
+        arm();
+    }
+
+    /**
+     * Add publish/stop entries for an exam; see {@link PublishScheduleRequest}
+     * for the two forms. Returns the new entries in firing order.
+     */
+    public List<Map<String, Object>> schedule(Long examId, PublishScheduleRequest request) {
+        if (!examRepository.existsById(examId)) {
+            throw new RuntimeException("Exam not found: " + examId);
+        }
+        List<Long> examDepts = examAdminService.departmentIds(examId);
+        if (examDepts.isEmpty()) {
+            throw new RuntimeException("Exam " + examId + " has no departments to publish");
+        }
+        boolean explicit = request.getDepartments() != null && !request.getDepartments().isEmpty();
+        if (explicit == (request.getStartAt() != null)) {
+            throw new RuntimeException("Give either departments or startAt");
+        }
+        List<PublishSchedule> entries = explicit
+                ? fromWindows(examId, request.getDepartments(), examDepts)
+                : staggered(examId, request, examDepts);
+
+        LocalDateTime earliest = LocalDateTime.now().minusSeconds(graceSeconds);
+        for (PublishSchedule entry : entries) {
+            if (entry.getFireAt().isBefore(earliest)) {
+                throw new RuntimeException("Schedule time is in the past: " + entry.getFireAt());
+            }
+        }
+        entries.sort(Comparator.comparing(PublishSchedule::getFireAt));
+        List<PublishSchedule> saved = scheduleRepository.saveAll(entries);
+        arm();
+        return saved.stream().map(this::toStatus).toList();
+    }
+
+    /**
+     * All entries of an exam (fired, pending and cancelled), in firing order.
+     */
+    public List<Map<String, Object>> getSchedule(Long examId) {
+        return scheduleRepository.findByExamIdOrderByFireAtAscScheduleIdAsc(examId).stream()
+                .map(this::toStatus).toList();
+    }
+
+    public Map<String, Object> cancel(Long scheduleId) {
+        PublishSchedule entry = scheduleRepository.findById(scheduleId)
+                .orElseThrow(() -> new RuntimeException("Schedule entry not found: " + scheduleId));
+        if (scheduleRepository.cancel(scheduleId) == 0) {
+            throw new RuntimeException("Schedule entry is already " + entry.getStatus());
+        }
+        arm();
+        entry.setStatus(PublishSchedule.Status.CANCELLED);
+        return toStatus(entry);
+    }
+
+    /**
+     * Cancel every pending entry of an exam; departments keep their current state.
+     */
+    public Map<String, Object> cancelExam(Long examId) {
+        int cancelled = scheduleRepository.cancelByExamId(examId);
+        arm();
+        return Map.of("examId", examId, "cancelled", cancelled);
+    }
+
+    private List<PublishSchedule> fromWindows(Long examId, List<DeptPublishWindow> windows,
+            List<Long> examDepts) {
+        List<PublishSchedule> entries = new ArrayList<>();
+        for (DeptPublishWindow window : windows) {
+            requireDepartment(window.getDeptId(), examDepts);
+            if (window.getPublishAt() == null && window.getStopAt() == null) {
+                throw new RuntimeException("Department " + window.getDeptId() + " has neither publishAt nor stopAt");
+            }
+            addWindow(entries, examId, window.getDeptId(), window.getPublishAt(), window.getStopAt());
+        }
+        return entries;
+    }
+
+    private List<PublishSchedule> staggered(Long examId, PublishScheduleRequest request, List<Long> examDepts) {
+        int stagger = request.getStaggerMinutes() != null ? request.getStaggerMinutes() : 0;
+        if (stagger < 0) {
+            throw new RuntimeException("staggerMinutes cannot be negative");
+        }
+        if (request.getWindowMinutes() != null && request.getStopAt() != null) {
+            throw new RuntimeException("Give either windowMinutes or stopAt");
+        }
+        if (request.getWindowMinutes() != null && request.getWindowMinutes() <= 0) {
+            throw new RuntimeException("windowMinutes must be positive");
+        }
+        List<Long> deptIds = request.getDeptIds() != null && !request.getDeptIds().isEmpty()
+                ? request.getDeptIds()
+                : examDepts;
+        List<PublishSchedule> entries = new ArrayList<>();
+        for (int i = 0; i < deptIds.size(); i++) {
+            Long deptId = deptIds.get(i);
+            requireDepartment(deptId, examDepts);
+            LocalDateTime publishAt = request.getStartAt().plusMinutes((long) i * stagger);
+            LocalDateTime stopAt = request.getWindowMinutes() != null
+                    ? publishAt.plusMinutes(request.getWindowMinutes())
+                    : request.getStopAt();
+            addWindow(entries, examId, deptId, publishAt, stopAt);
+        }
+        return entries;
+    }
+
+    private void addWindow(List<PublishSchedule> entries, Long examId, Long deptId,
+            LocalDateTime publishAt, LocalDateTime stopAt) {
+        if (publishAt != null && stopAt != null && !stopAt.isAfter(publishAt)) {
+            throw new RuntimeException("Department " + deptId + " would stop at " + stopAt
+                    + ", before it is published at " + publishAt);
+        }
+        if (publishAt != null) {
+            entries.add(newEntry(examId, deptId, PublishSchedule.Action.PUBLISH, publishAt));
+        }
+        if (stopAt != null) {
+            entries.add(newEntry(examId, deptId, PublishSchedule.Action.STOP, stopAt));
+        }
+    }
+
+    private PublishSchedule newEntry(Long examId, Long deptId, PublishSchedule.Action action,
+            LocalDateTime fireAt) {
+        PublishSchedule entry = new PublishSchedule();
+        entry.setExamId(examId);
+        entry.setDeptId(deptId);
+        entry.setAction(action);
+        entry.setFireAt(fireAt);
+        return entry;
+    }
+
+    private void requireDepartment(Long deptId, List<Long> examDepts) {
+        if (deptId == null || !examDepts.contains(deptId)) {
+            throw new RuntimeException("Department " + deptId + " has no seats in this exam");
+        }
+    }
+
+    /**
+     * Point the timer at the earliest pending entry. The sleep is capped at
+     * max-sleep-ms so a wall clock adjusted meanwhile is noticed.
+     */
+    private void arm() {
+        if (!ready) {
+            return;
+        }
+        armLock.lock();
+        try {
+            if (nextWakeUp != null) {
+                nextWakeUp.cancel(false);
+            }
+            Optional<PublishSchedule> next = scheduleRepository.findFirstByStatusOrderByFireAtAsc(
+                    PublishSchedule.Status.PENDING);
+            if (next.isEmpty()) {
+                nextWakeUp = null;
+                return;
+            }
+            long delayNanos = Duration.between(LocalDateTime.now(), next.get().getFireAt()).toNanos();
+            delayNanos = Math.max(0, Math.min(delayNanos, TimeUnit.MILLISECONDS.toNanos(maxSleepMs)));
+            nextWakeUp = timer.schedule(this::fireDue, delayNanos, TimeUnit.NANOSECONDS);
+        } finally {
+            armLock.unlock();
+        }
+    }
+
+    private void fireDue() {
+        try {
+            List<PublishSchedule> due = scheduleRepository
+                    .findByStatusAndFireAtLessThanEqualOrderByFireAtAscScheduleIdAsc(
+                            PublishSchedule.Status.PENDING, LocalDateTime.now());
+            for (PublishSchedule entry : due) {
+                fire(entry);
+            }
+        } catch (Exception e) {
+            System.out.println("Publish schedule check failed: " + e.getMessage());
+        } finally {
+            arm();
+        }
+    }
+
+    private void fire(PublishSchedule entry) {
+        LocalDateTime now = LocalDateTime.now();
+        if (scheduleRepository.claim(entry.getScheduleId(), now) == 0) {
+            return;
+        }
+        try {
+            Map<String, Object> result = entry.getAction() == PublishSchedule.Action.PUBLISH
+                    ? examAdminService.publishSlotsForDepartment(entry.getExamId(), entry.getDeptId())
+                    : examAdminService.stopSlotsForDepartment(entry.getExamId(), entry.getDeptId());
+            scheduleRepository.finish(entry.getScheduleId(), PublishSchedule.Status.DONE,
+                    (String) result.get("message"));
+            System.out.println("Scheduled " + entry.getAction() + " of exam " + entry.getExamId() + " dept "
+                    + entry.getDeptId() + " fired " + Duration.between(entry.getFireAt(), now).toMillis()
+                    + " ms after " + entry.getFireAt());
+        } catch (Exception e) {
+            String message = String.valueOf(e.getMessage());
+            System.out.println("Scheduled " + entry.getAction() + " " + entry.getScheduleId() + " failed: " + message);
+            scheduleRepository.finish(entry.getScheduleId(), PublishSchedule.Status.FAILED,
+                    message.length() > 1000 ? message.substring(0, 1000) : message);
+        }
+    }
+
+    private Map<String, Object> toStatus(PublishSchedule entry) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("scheduleId", entry.getScheduleId());
+        status.put("examId", entry.getExamId());
+        status.put("deptId", entry.getDeptId());
+        status.put("action", entry.getAction());
+        status.put("fireAt", entry.getFireAt());
+        status.put("status", entry.getStatus());
+        status.put("firedAt", entry.getFiredAt());
+        status.put("result", entry.getResult());
+        return status;
+    }
+}
@@ -0,0 +1,27 @@
+package com.petbooking.service;
+
+import java.time.LocalDate;
+
+/**
+ * Free seat counts changed. A booking or cancellation names one date of one
+ * (exam, dept, category); publish/stop/delete leave deptId (all departments),
+ * categoryType and slotDate null to mean "everything in this scope".
+ * bookedDelta is the number of seats booked (negative for cancellations; seat
+ * bookings of one key are reported together once their free_seats delta has
+ * been applied) and 0 for a scope change.
+ */
+public record SeatAvailabilityEvent(Long examId, Long deptId, Integer categoryType, LocalDate slotDate,
+        int bookedDelta) {
+
+    public static SeatAvailabilityEvent seat(SeatInventoryService.InventoryKey key, int bookedDelta) {
+        return new SeatAvailabilityEvent(key.examId(), key.deptId(), key.categoryType(), key.slotDate(), bookedDelta);
+    }
+
+    public static SeatAvailabilityEvent scope(Long examId, Long deptId) {
+        return new SeatAvailabilityEvent(examId, deptId, null, null, 0);
+    }
+
+    public boolean isScopeChange() {
+        return slotDate == null;
+    }
+}
@@ -0,0 +1,304 @@
+package com.petbooking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes live seat availability to students over Server-Sent Events.
+ *
+ * Committed changes only mark a stream dirty. A scheduled flush reads the
+ * current counts of each dirty stream once and writes the same serialized
+ * event to every subscriber, so N connected students cost one query and one
+ * serialization per change window instead of N polls.
+ *
+ * The flush runs on the scheduler thread shared with the other scheduled jobs
+ * (waiting room, availability deltas, dashboard), so it never writes to a
+ * socket itself: each subscriber has an outbox that booking.sse.send-threads
+ * sender threads drain in order. A client that falls more than
+ * booking.sse.max-queued events behind is disconnected and gets a fresh
+ * snapshot when its EventSource reconnects.
+ *
+ * Reads go through JdbcTemplate: a JPA call on the request thread would keep
+ * a pooled connection bound (open-in-view) for the life of the stream.
+ */
+@Service
+public class SeatAvailabilityPublisher {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StudentProfileCache studentProfileCache;
+
+    @Value("${booking.sse.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${booking.sse.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    @Value("${booking.sse.send-threads:4}")
+    private int sendThreads;
+
+    @Value("${booking.sse.max-queued:20}")
+    private int maxQueued;
+
+    private final Map<StreamKey, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<StreamKey, Set<LocalDate>> dirtyDates = new ConcurrentHashMap<>();
+    private final Set<StreamKey> dirtyStreams = ConcurrentHashMap.newKeySet();
+    private volatile long lastHeartbeat = System.currentTimeMillis();
+    private ExecutorService sender;
+
+    /**
+     * One stream per (exam, dept, category): the audience of one date picker.
+     */
+    private record StreamKey(Long examId, Long deptId, Integer categoryType) {
+    }
+
+    /**
+     * One open stream and the events not yet written to it. At most one sender
+     * drains it at a time, so its events go out in order.
+     */
+    private static final class Subscriber {
+        private final StreamKey key;
+        private final SseEmitter emitter;
+        // Serialized payloads; empty is a keep-alive comment
+        private final Queue<Optional<String>> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean overflowed;
+
+        Subscriber(StreamKey key, SseEmitter emitter) {
+            this.key = key;
+            this.emitter = emitter;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        sender = Executors.newFixedThreadPool(sendThreads, r -> {
+            Thread t = new Thread(r, "sse-send");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * Open a stream for a student. The first event is a full snapshot of the
+     * student's dates; later events carry only the dates that changed.
+     */
+    public SseEmitter subscribe(String rollNo, Long examId) {
+        var profile = studentProfileCache.get(rollNo);
+        StreamKey key = new StreamKey(examId, profile.deptId(), profile.categoryType());
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(key, emitter);
+        subscribers.compute(key, (k, set) -> {
+            Set<Subscriber> updated = set != null ? set : new CopyOnWriteArraySet<>();
+            updated.add(subscriber);
+            return updated;
+        });
+        Runnable remove = () -> unsubscribe(subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        // Registered before the snapshot is read, so no change falls in between
+        try {
+            enqueue(subscriber, serialize(key, true, null));
+        } catch (RuntimeException | IOException e) {
+            unsubscribe(subscriber);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    /**
+     * Record a committed change. Runs immediately when there was no transaction
+     * (the book_exam_seat() call commits on its own).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAvailabilityChanged(SeatAvailabilityEvent event) {
+        for (StreamKey key : subscribers.keySet()) {
+            if (!key.examId().equals(event.examId())
+                    || (event.deptId() != null && !key.deptId().equals(event.deptId()))
+                    || (event.categoryType() != null && !key.categoryType().equals(event.categoryType()))) {
+                continue;
+            }
+            if (event.isScopeChange()) {
+                dirtyStreams.add(key);
+            } else {
+                dirtyDates.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(event.slotDate());
+            }
+        }
+    }
+
+    /**
+     * Coalesce everything marked since the last run into one event per stream
+     * and queue it for the stream's subscribers; the senders write it.
+     */
+    @Scheduled(fixedDelayString = "${booking.sse.flush-ms:250}")
+    public void flush() {
+        Set<StreamKey> keys = new HashSet<>(dirtyStreams);
+        keys.addAll(dirtyDates.keySet());
+        for (StreamKey key : keys) {
+            boolean snapshot = dirtyStreams.remove(key);
+            Set<LocalDate> dates = dirtyDates.remove(key);
+            Set<Subscriber> streamSubscribers = subscribers.get(key);
+            if (streamSubscribers == null || streamSubscribers.isEmpty()) {
+                continue;
+            }
+            String payload;
+            try {
+                payload = serialize(key, snapshot, snapshot ? null : dates);
+            } catch (RuntimeException | IOException e) {
+                System.out.println("Availability push failed for " + key + ": " + e.getMessage());
+                continue;
+            }
+            for (Subscriber subscriber : streamSubscribers) {
+                enqueue(subscriber, payload);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastHeartbeat >= heartbeatMs) {
+            lastHeartbeat = now;
+            subscribers.values().forEach(set -> set.forEach(subscriber -> enqueue(subscriber, null)));
+        }
+    }
+
+    /**
+     * Queue an event (null for a keep-alive) and make sure a sender drains the
+     * outbox. A subscriber already maxQueued events behind is dropped instead.
+     */
+    private void enqueue(Subscriber subscriber, String payload) {
+        if (subscriber.queued.incrementAndGet() > maxQueued) {
+            // The sender still blocked on this client completes the stream once its write returns
+            subscriber.overflowed = true;
+            unsubscribe(subscriber);
+            return;
+        }
+        subscriber.outbox.offer(Optional.ofNullable(payload));
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sender.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false); // shutting down
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        Optional<String> payload;
+        while ((payload = subscriber.outbox.poll()) != null) {
+            subscriber.queued.decrementAndGet();
+            if (subscriber.overflowed) {
+                subscriber.outbox.clear();
+                subscriber.emitter.complete();
+                return;
+            }
+            try {
+                subscriber.emitter.send(payload.isPresent()
+                        ? SseEmitter.event().name("availability").data(payload.get(), MediaType.APPLICATION_JSON)
+                        : SseEmitter.event().comment("keep-alive"));
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the container reports completion separately
+                unsubscribe(subscriber);
+                subscriber.outbox.clear();
+                return;
+            }
+        }
+        subscriber.draining.set(false);
+        // An event queued after the last poll but before the flag was cleared
+        if (!subscriber.outbox.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.key, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Current counts for a stream. A snapshot lists every date with free seats;
+     * a delta lists only the given dates, with 0 for dates that filled up.
+     */
+    private String serialize(StreamKey key, boolean snapshot, Set<LocalDate> onlyDates) throws IOException {
+        Map<LocalDate, Integer> counts = new TreeMap<>();
+        if (onlyDates != null) {
+            onlyDates.forEach(date -> counts.put(date, 0));
+        }
+        // A stopped department has no free dates, whatever its seats
+        jdbcTemplate.query("SELECT a.slot_date, a.free_seats FROM exam_seat_availability a "
+                + "JOIN exam_dept_publication p ON p.exam_id = a.exam_id AND p.dept_id = a.dept_id AND p.published "
+                + "WHERE a.exam_id = ? AND a.dept_id = ? AND a.category_type = ? ORDER BY a.slot_date", rs -> {
+                    LocalDate date = rs.getObject("slot_date", LocalDate.class);
+                    int free = rs.getInt("free_seats");
+                    if (onlyDates != null ? onlyDates.contains(date) : free > 0) {
+                        counts.put(date, Math.max(free, 0));
+                    }
+                }, key.examId(), key.deptId(), key.categoryType());
+
+        var window = jdbcTemplate.query(
+                "SELECT day_scholar_start_time, day_scholar_end_time, hostel_start_time, hostel_end_time "
+                        + "FROM exams WHERE exam_id = ?",
+                (rs, rowNum) -> key.categoryType() == 1
+                        ? new Object[] { rs.getObject("day_scholar_start_time", LocalTime.class),
+                                rs.getObject("day_scholar_end_time", LocalTime.class) }
+                        : new Object[] { rs.getObject("hostel_start_time", LocalTime.class),
+                                rs.getObject("hostel_end_time", LocalTime.class) },
+                key.examId());
+
+        List<Map<String, Object>> dates = new ArrayList<>();
+        counts.forEach((date, free) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("slotDate", date.toString());
+            item.put("availableCount", free);
+            dates.add(item);
+        });
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("examId", key.examId());
+        body.put("snapshot", snapshot);
+        body.put("startTime", window.isEmpty() || window.get(0)[0] == null ? "TBD" : window.get(0)[0].toString());
+        body.put("endTime", window.isEmpty() || window.get(0)[1] == null ? "TBD" : window.get(0)[1].toString());
+        body.put("dates", dates);
+        return objectMapper.writeValueAsString(body);
+    }
+}
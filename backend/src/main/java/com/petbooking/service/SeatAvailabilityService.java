@@ -0,0 +1,238 @@
+package com.petbooking.service;
+
+import com.petbooking.repository.ExamSeatAvailabilityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Keeps exam_seat_availability in step with exam_slot_seats, or with
+ * exam_capacity for counted-capacity exams. Recounts, publish and stop join
+ * the caller's transaction, so the counts commit or roll back with the change.
+ *
+ * free_seats counts unbooked seats whether or not the department is
+ * published, so a booking or cancellation always moves it by one and publish
+ * or stop only rewrite published_seats of the department's rows; a booking
+ * still in flight when its department is stopped leaves the counts correct.
+ *
+ * Seat bookings and cancellations do not write their row in their own
+ * transaction: all bookings of one date would queue on it and undo the
+ * spreading of book_exam_seat(). Their deltas are summed in memory after
+ * commit and applied every flush-ms, one UPDATE per (exam, dept, category,
+ * date). Deltas lost with the process, or racing a recount, are corrected by
+ * the recount every recount-ms of each exam that saw bookings. The counted
+ * booking statement still adjusts its row in SQL, since its bookings queue on
+ * the matching exam_capacity row anyway, and only reports through
+ * {@link #changed}.
+ *
+ * Each change is also published as a {@link SeatAvailabilityEvent}; listeners
+ * see it after commit, or for seat bookings once the delta has been applied.
+ */
+@Service
+public class SeatAvailabilityService {
+
+    @Autowired
+    private ExamSeatAvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // free_seats deltas of committed seat bookings and cancellations, not yet applied
+    private final Map<SeatInventoryService.InventoryKey, Integer> pendingFree = new ConcurrentHashMap<>();
+    // Exams whose deltas were applied since their last recount
+    private final Set<Long> recountDue = ConcurrentHashMap.newKeySet();
+
+    /**
+     * A seat of the key was booked. Counted once the caller's transaction commits.
+     */
+    public void seatBooked(SeatInventoryService.InventoryKey key) {
+        seatsBooked(key, 1);
+    }
+
+    /**
+     * Several seats of one key were booked (a group-commit batch).
+     */
+    public void seatsBooked(SeatInventoryService.InventoryKey key, int count) {
+        adjustAfterCommit(key, -count);
+    }
+
+    public void seatReleased(SeatInventoryService.InventoryKey key) {
+        adjustAfterCommit(key, 1);
+    }
+
+    private void adjustAfterCommit(SeatInventoryService.InventoryKey key, int freeDelta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingFree.merge(key, freeDelta, Integer::sum);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pendingFree.merge(key, freeDelta, Integer::sum);
+            }
+        });
+    }
+
+    /**
+     * Apply the summed deltas and report each changed key.
+     */
+    @Scheduled(fixedDelayString = "${booking.availability.flush-ms:100}")
+    public void flushFreeSeats() {
+        Map<SeatInventoryService.InventoryKey, Integer> deltas = drain(key -> true);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>();
+        deltas.forEach((key, delta) -> args.add(new Object[] { delta, key.examId(), key.deptId(),
+                key.categoryType(), Date.valueOf(key.slotDate()) }));
+        try {
+            jdbcTemplate.batchUpdate("UPDATE exam_seat_availability SET free_seats = free_seats + ? "
+                    + "WHERE exam_id = ? AND dept_id = ? AND category_type = ? AND slot_date = ?", args);
+        } catch (RuntimeException e) {
+            System.out.println("Seat availability flush failed, retrying: " + e.getMessage());
+            deltas.forEach((key, delta) -> pendingFree.merge(key, delta, Integer::sum));
+            return;
+        }
+        deltas.forEach((key, delta) -> {
+            recountDue.add(key.examId());
+            eventPublisher.publishEvent(SeatAvailabilityEvent.seat(key, -delta));
+        });
+    }
+
+    /**
+     * Recount the exams that saw bookings since their last recount. Runs on its
+     * own, so no flush is in flight; deltas drained here are part of the count.
+     */
+    @Scheduled(fixedDelayString = "${booking.availability.recount-ms:300000}",
+            initialDelayString = "${booking.availability.recount-ms:300000}")
+    public void recountBooked() {
+        for (Long examId : new ArrayList<>(recountDue)) {
+            recountDue.remove(examId);
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> refreshExam(examId));
+            } catch (RuntimeException e) {
+                System.out.println("Seat availability recount failed for exam " + examId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Map<SeatInventoryService.InventoryKey, Integer> drain(
+            Predicate<SeatInventoryService.InventoryKey> scope) {
+        Map<SeatInventoryService.InventoryKey, Integer> drained = new HashMap<>();
+        for (SeatInventoryService.InventoryKey key : pendingFree.keySet()) {
+            if (scope.test(key)) {
+                Integer delta = pendingFree.remove(key);
+                if (delta != null && delta != 0) {
+                    drained.put(key, delta);
+                }
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * A recount in the caller's transaction supersedes the pending deltas of
+     * its scope; they come back if the transaction rolls back.
+     */
+    private void discardPending(Predicate<SeatInventoryService.InventoryKey> scope) {
+        Map<SeatInventoryService.InventoryKey, Integer> discarded = drain(scope);
+        if (discarded.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    discarded.forEach((key, delta) -> pendingFree.merge(key, delta, Integer::sum));
+                }
+            }
+        });
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshExam(Long examId) {
+        discardPending(key -> key.examId().equals(examId));
+        availabilityRepository.refreshExam(examId);
+        availabilityRepository.refreshFromCapacity(examId, null);
+        eventPublisher.publishEvent(SeatAvailabilityEvent.scope(examId, null));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshDepartment(Long examId, Long deptId) {
+        discardPending(key -> key.examId().equals(examId) && key.deptId().equals(deptId));
+        availabilityRepository.refreshDepartment(examId, deptId);
+        availabilityRepository.refreshFromCapacity(examId, deptId);
+        eventPublisher.publishEvent(SeatAvailabilityEvent.scope(examId, deptId));
+    }
+
+    /**
+     * A department (deptId set) or the whole exam was published or stopped.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publicationChanged(Long examId, Long deptId, boolean published) {
+        availabilityRepository.setPublished(examId, deptId, published);
+        eventPublisher.publishEvent(SeatAvailabilityEvent.scope(examId, deptId));
+    }
+
+    /**
+     * Seats of a department (deptId set) or of the whole exam.
+     */
+    public int seatCount(Long examId, Long deptId) {
+        return availabilityRepository.sumTotalSeats(examId, deptId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeExam(Long examId) {
+        discardPending(key -> key.examId().equals(examId));
+        availabilityRepository.deleteByExamId(examId);
+        eventPublisher.publishEvent(SeatAvailabilityEvent.scope(examId, null));
+    }
+
+    /**
+     * Report a booking whose counts were already adjusted in SQL.
+     */
+    public void changed(SeatInventoryService.InventoryKey key) {
+        eventPublisher.publishEvent(SeatAvailabilityEvent.seat(key, 1));
+    }
+
+
+    /**
+     * Rows of (slotDate, freeSeats) with at least one free seat, ordered by date;
+     * none while the department is not published.
+     */
+    public List<Object[]> findAvailableDates(Long examId, Long deptId, Integer categoryType) {
+        return availabilityRepository.findAvailableDates(examId, deptId, categoryType);
+    }
+
+    /**
+     * Recount the whole table from exam_slot_seats, exam_capacity and
+     * exam_dept_publication (recovery after manual edits or a bug). Seat
+     * writes wait until the rebuild commits.
+     */
+    @Transactional
+    public int rebuild() {
+        availabilityRepository.lockSeatsForRebuild();
+        discardPending(key -> true);
+        availabilityRepository.deleteAllRows();
+        return availabilityRepository.insertAllFromSeats() + availabilityRepository.insertAllFromCapacity();
+    }
+}
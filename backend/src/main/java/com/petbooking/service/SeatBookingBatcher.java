@@ -0,0 +1,309 @@
+package com.petbooking.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import com.petbooking.exception.SeatContendedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.Date;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Group-commit booking: concurrent bookSeat calls for the same
+ * (exam, dept, category, date) are collected for a few milliseconds and
+ * assigned together with one multi-row UPDATE ... RETURNING in one transaction.
+ * The uniq_exam_student index still guards one seat per roll number per exam.
+ * Committed seats are reported from here, not by the waiting requests, so a
+ * booking whose request gave up waiting still reaches the live counts.
+ */
+@Service
+public class SeatBookingBatcher {
+
+    private static final String BATCH_BOOK_SQL = """
+            WITH req AS (
+                SELECT r.roll_number, r.ord
+                FROM unnest(?::varchar[]) WITH ORDINALITY AS r(roll_number, ord)
+                WHERE NOT EXISTS (
+                    SELECT 1 FROM exam_slot_seats b
+                    WHERE b.exam_id = ? AND b.roll_number = r.roll_number
+                )
+            ),
+            free AS (
+                SELECT slot_id FROM exam_slot_seats
+                WHERE exam_id = ?
+                AND dept_id = ?
+                AND category_type = ?
+                AND slot_date = ?
+                AND roll_number IS NULL
+                AND EXISTS (SELECT 1 FROM exam_dept_publication p
+                            WHERE p.exam_id = ? AND p.dept_id = ? AND p.published)
+                ORDER BY slot_id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            ),
+            pairs AS (
+                SELECT f.slot_id, q.roll_number
+                FROM (SELECT slot_id, row_number() OVER (ORDER BY slot_id) AS rn FROM free) f
+                JOIN (SELECT roll_number, row_number() OVER (ORDER BY ord) AS rn FROM req) q ON q.rn = f.rn
+            )
+            UPDATE exam_slot_seats s
+            SET roll_number = p.roll_number, status = 'BOOKED'
+            FROM pairs p
+            WHERE s.exam_id = ? AND s.slot_id = p.slot_id
+            RETURNING s.slot_id, s.roll_number
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Autowired
+    private SeatAvailabilityService seatAvailabilityService;
+
+    @Value("${booking.mode:sql}")
+    private String bookingMode;
+
+    @Value("${booking.batch.window-ms:5}")
+    private long windowMs;
+
+    @Value("${booking.batch.max-size:100}")
+    private int maxBatchSize;
+
+    @Value("${booking.batch.flush-threads:2}")
+    private int flushThreads;
+
+    private final Map<SeatInventoryService.InventoryKey, Batch> openBatches = new ConcurrentHashMap<>();
+    private ScheduledExecutorService windowTimer;
+    private ExecutorService flushExecutor;
+
+    private record PendingBooking(String rollNo, CompletableFuture<Long> result) {
+    }
+
+    /**
+     * Requests collected for one key. Once sealed, late arrivals open a new batch.
+     */
+    private final class Batch {
+        private final SeatInventoryService.InventoryKey key;
+        private final List<PendingBooking> pending = new ArrayList<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean sealed;
+
+        Batch(SeatInventoryService.InventoryKey key) {
+            this.key = key;
+        }
+
+        /**
+         * @return false if the batch was sealed before the request got in
+         */
+        boolean add(PendingBooking booking) {
+            lock.lock();
+            try {
+                if (sealed) {
+                    return false;
+                }
+                pending.add(booking);
+                if (pending.size() >= maxBatchSize) {
+                    seal();
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void seal() {
+            lock.lock();
+            try {
+                if (sealed) {
+                    return;
+                }
+                sealed = true;
+                openBatches.remove(key, this);
+                List<PendingBooking> toFlush = List.copyOf(pending);
+                flushExecutor.execute(() -> flush(key, toFlush));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        windowTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-batch-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        flushExecutor = Executors.newFixedThreadPool(flushThreads, r -> {
+            Thread t = new Thread(r, "seat-batch-flush");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        if (windowTimer != null) {
+            windowTimer.shutdown();
+        }
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return "batch".equalsIgnoreCase(bookingMode);
+    }
+
+    /**
+     * Queue a booking. The future completes with the assigned slot_id, or
+     * exceptionally with a RuntimeException carrying the user-facing reason.
+     */
+    public CompletableFuture<Long> submit(SeatInventoryService.InventoryKey key, String rollNo) {
+        PendingBooking booking = new PendingBooking(rollNo, new CompletableFuture<>());
+        while (true) {
+            Batch batch = openBatches.computeIfAbsent(key, k -> {
+                Batch created = new Batch(k);
+                windowTimer.schedule(created::seal, windowMs, TimeUnit.MILLISECONDS);
+                return created;
+            });
+            if (batch.add(booking)) {
+                return booking.result();
+            }
+        }
+    }
+
+    private void flush(SeatInventoryService.InventoryKey key, List<PendingBooking> batch) {
+        // The same roll number twice in one window: first one wins, the rest are duplicates
+        Map<String, PendingBooking> byRoll = new LinkedHashMap<>();
+        for (PendingBooking booking : batch) {
+            if (byRoll.putIfAbsent(booking.rollNo(), booking) != null) {
+                bookingMetrics.recordDuplicate();
+                booking.result().completeExceptionally(
+                        new RuntimeException("You have already booked this exam"));
+            }
+        }
+
+        try {
+            Map<String, Long> assigned = assign(key, new ArrayList<>(byRoll.keySet()));
+            complete(key, byRoll, assigned);
+        } catch (DataIntegrityViolationException e) {
+            // A roll number in the batch was booked concurrently through another batch;
+            // the whole statement rolled back, so retry each request on its own.
+            for (PendingBooking booking : byRoll.values()) {
+                try {
+                    Map<String, Long> assigned = assign(key, List.of(booking.rollNo()));
+                    complete(key, Map.of(booking.rollNo(), booking), assigned);
+                } catch (DataIntegrityViolationException duplicate) {
+                    bookingMetrics.recordDuplicate();
+                    booking.result().completeExceptionally(
+                            new RuntimeException("You have already booked this exam"));
+                } catch (RuntimeException single) {
+                    booking.result().completeExceptionally(single);
+                }
+            }
+        } catch (RuntimeException e) {
+            for (PendingBooking booking : byRoll.values()) {
+                booking.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    private Map<String, Long> assign(SeatInventoryService.InventoryKey key, List<String> rollNos) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        return tx.execute(status -> {
+            Map<String, Long> assigned = new HashMap<>();
+            jdbcTemplate.query(con -> {
+                var ps = con.prepareStatement(BATCH_BOOK_SQL);
+                Array rolls = con.createArrayOf("varchar", rollNos.toArray());
+                ps.setArray(1, rolls);
+                ps.setLong(2, key.examId());
+                ps.setLong(3, key.examId());
+                ps.setLong(4, key.deptId());
+                ps.setInt(5, key.categoryType());
+                ps.setDate(6, Date.valueOf(key.slotDate()));
+                ps.setLong(7, key.examId());
+                ps.setLong(8, key.deptId());
+                ps.setInt(9, rollNos.size());
+                ps.setLong(10, key.examId());
+                return ps;
+            }, rs -> {
+                assigned.put(rs.getString("roll_number"), rs.getLong("slot_id"));
+            });
+            return assigned;
+        });
+    }
+
+    private void complete(SeatInventoryService.InventoryKey key, Map<String, PendingBooking> byRoll,
+            Map<String, Long> assigned) {
+        if (!assigned.isEmpty()) {
+            seatAvailabilityService.seatsBooked(key, assigned.size());
+        }
+        List<String> unassigned = new ArrayList<>();
+        for (PendingBooking booking : byRoll.values()) {
+            Long slotId = assigned.get(booking.rollNo());
+            if (slotId != null) {
+                booking.result().complete(slotId);
+            } else {
+                unassigned.add(booking.rollNo());
+            }
+        }
+        if (unassigned.isEmpty()) {
+            return;
+        }
+
+        // Tell duplicates (filtered out by the statement) apart from requests left without a seat
+        Set<String> alreadyBooked = new HashSet<>(jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(
+                    "SELECT roll_number FROM exam_slot_seats WHERE exam_id = ? AND roll_number = ANY(?)");
+            ps.setLong(1, key.examId());
+            ps.setArray(2, con.createArrayOf("varchar", unassigned.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1)));
+
+        // Free seats that this batch could not lock belong to in-flight transactions
+        boolean contended = unassigned.size() > alreadyBooked.size() && hasFreeSeat(key);
+
+        for (String rollNo : unassigned) {
+            RuntimeException failure;
+            if (alreadyBooked.contains(rollNo)) {
+                bookingMetrics.recordDuplicate();
+                failure = new RuntimeException("You have already booked this exam");
+            } else if (contended) {
+                failure = new SeatContendedException();
+            } else {
+                bookingMetrics.recordFull();
+                failure = new RuntimeException("No slots available for your selection. Please try another date.");
+            }
+            byRoll.get(rollNo).result().completeExceptionally(failure);
+        }
+    }
+
+    private boolean hasFreeSeat(SeatInventoryService.InventoryKey key) {
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM exam_slot_seats WHERE exam_id = ? AND dept_id = ? "
+                        + "AND category_type = ? AND slot_date = ? AND roll_number IS NULL) "
+                        + "AND EXISTS (SELECT 1 FROM exam_dept_publication WHERE exam_id = ? AND dept_id = ? "
+                        + "AND published)",
+                Boolean.class, key.examId(), key.deptId(), key.categoryType(), key.slotDate(), key.examId(),
+                key.deptId());
+        return Boolean.TRUE.equals(exists);
+    }
+}
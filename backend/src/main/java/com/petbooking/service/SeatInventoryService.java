@@ -0,0 +1,253 @@
+package com.petbooking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inventory of published, unbooked exam seats.
+ * Keeps a lock-free free-list of slot_ids per (examId, deptId, categoryType, slotDate)
+ * so a booking claims its seat in memory and only persists the assignment.
+ * The database stays the source of truth: the inventory is rebuilt from
+ * exam_slot_seats on startup and whenever an exam is published or stopped.
+ *
+ * A claimed seat is only booked once the claiming transaction commits, so a
+ * reload could see it as free and put it back on the free-list. A booking
+ * therefore holds its exam's claim lock (shared) from its first claim until
+ * its transaction completes, and a rebuild takes it exclusively while it loads
+ * and swaps in the exam's free-lists: it waits for the claims in flight and
+ * holds back new ones for that one query.
+ */
+@Service
+public class SeatInventoryService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${booking.mode:sql}")
+    private String bookingMode;
+
+    private final Map<InventoryKey, Partition> partitions = new ConcurrentHashMap<>();
+    private final Map<Long, ReentrantReadWriteLock> claimLocks = new ConcurrentHashMap<>();
+
+    public record InventoryKey(Long examId, Long deptId, Integer categoryType, LocalDate slotDate) {
+    }
+
+    /**
+     * Free seats of one (exam, dept, category, date). The counter mirrors the queue
+     * size so availability can be read without walking the queue.
+     */
+    static final class Partition {
+        private final ConcurrentLinkedQueue<Long> freeSlots = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger freeCount = new AtomicInteger();
+
+        Long poll() {
+            Long slotId = freeSlots.poll();
+            if (slotId != null) {
+                freeCount.decrementAndGet();
+            }
+            return slotId;
+        }
+
+        void offer(Long slotId) {
+            freeSlots.offer(slotId);
+            freeCount.incrementAndGet();
+        }
+
+        int size() {
+            return freeCount.get();
+        }
+    }
+
+    public boolean isEnabled() {
+        return "inventory".equalsIgnoreCase(bookingMode);
+    }
+
+    /**
+     * Load every published free seat. Runs after DatabaseInitializer so the
+     * exam_dept_publication table is guaranteed to exist.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        if (!isEnabled()) {
+            return;
+        }
+        TreeSet<Long> examIds = new TreeSet<>(jdbcTemplate.queryForList(
+                "SELECT DISTINCT exam_id FROM exam_dept_publication WHERE published", Long.class));
+        partitions.keySet().forEach(key -> examIds.add(key.examId()));
+        examIds.forEach(this::rebuildExam);
+        System.out.println("Seat inventory loaded: " + partitions.size() + " partitions, " + totalFree()
+                + " free seats");
+    }
+
+    /**
+     * Replace the in-memory partitions of one exam with the current DB state.
+     */
+    public void rebuildExam(Long examId) {
+        if (!isEnabled()) {
+            return;
+        }
+        ReentrantReadWriteLock.WriteLock lock = claimLock(examId).writeLock();
+        lock.lock();
+        try {
+            Map<InventoryKey, Partition> loaded = loadPartitions(examId);
+            partitions.keySet().removeIf(key -> key.examId().equals(examId) && !loaded.containsKey(key));
+            partitions.putAll(loaded);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rebuild once the surrounding transaction has committed, so the reload sees
+     * the publish/stop that triggered it.
+     */
+    public void rebuildExamAfterCommit(Long examId) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebuildExam(examId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rebuildExam(examId);
+            }
+        });
+    }
+
+    /**
+     * Take a free slot_id for the key, or null when the partition is exhausted.
+     * The first claim of a transaction takes the exam's claim lock until the
+     * transaction completes (see the class comment).
+     */
+    public Long claim(InventoryKey key) {
+        ReentrantReadWriteLock lock = claimLock(key.examId());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lock.readLock().lock();
+            try {
+                return poll(key);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        if (lock.getReadHoldCount() == 0) {
+            lock.readLock().lock();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.LOWEST_PRECEDENCE; // after releaseOnRollback has put its seat back
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    lock.readLock().unlock();
+                }
+            });
+        }
+        return poll(key);
+    }
+
+    private Long poll(InventoryKey key) {
+        Partition partition = partitions.get(key);
+        return partition == null ? null : partition.poll();
+    }
+
+    private ReentrantReadWriteLock claimLock(Long examId) {
+        return claimLocks.computeIfAbsent(examId, id -> new ReentrantReadWriteLock());
+    }
+
+    /**
+     * Put a persisted seat back on the free-list if the surrounding transaction
+     * rolls back (e.g. the unique index rejects a duplicate booking).
+     */
+    public void releaseOnRollback(InventoryKey key, Long slotId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return 0;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    release(key, slotId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Return a seat to the free-list (rollback or cancellation).
+     */
+    public void release(InventoryKey key, Long slotId) {
+        if (!isEnabled()) {
+            return;
+        }
+        partitions.computeIfAbsent(key, k -> new Partition()).offer(slotId);
+    }
+
+    public void releaseAfterCommit(InventoryKey key, Long slotId) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(key, slotId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(key, slotId);
+            }
+        });
+    }
+
+    public int freeCount(InventoryKey key) {
+        Partition partition = partitions.get(key);
+        return partition == null ? 0 : partition.size();
+    }
+
+    public long totalFree() {
+        return partitions.values().stream().mapToLong(Partition::size).sum();
+    }
+
+    private Map<InventoryKey, Partition> loadPartitions(Long examId) {
+        Map<InventoryKey, Partition> loaded = new HashMap<>();
+        String sql = "SELECT s.slot_id, s.exam_id, s.dept_id, s.category_type, s.slot_date FROM exam_slot_seats s "
+                + "JOIN exam_dept_publication p ON p.exam_id = s.exam_id AND p.dept_id = s.dept_id AND p.published "
+                + "WHERE s.roll_number IS NULL"
+                + (examId != null ? " AND s.exam_id = ?" : "")
+                + " ORDER BY s.slot_id";
+        Object[] args = examId != null ? new Object[] { examId } : new Object[0];
+        jdbcTemplate.query(sql, rs -> {
+            InventoryKey key = new InventoryKey(
+                    rs.getLong("exam_id"),
+                    rs.getLong("dept_id"),
+                    rs.getInt("category_type"),
+                    rs.getObject("slot_date", LocalDate.class));
+            loaded.computeIfAbsent(key, k -> new Partition()).offer(rs.getLong("slot_id"));
+        }, args);
+        return loaded;
+    }
+}
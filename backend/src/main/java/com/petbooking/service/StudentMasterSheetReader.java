@@ -0,0 +1,160 @@
+package com.petbooking.service;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads a student master .xlsx with POI's SAX event API: the first sheet, or
+ * every sheet in workbook order when a file is split by department or year.
+ *
+ * The sheet XML is parsed straight from the zip and every row is handed to the
+ * caller as soon as its end tag is seen, so no cell objects are kept: memory is
+ * the shared strings table plus one row, however many rows the sheet has
+ * (XSSFWorkbook keeps the whole sheet as a DOM, several hundred MB for 60k rows).
+ *
+ * Cells come back as the upload always read them: text trimmed, numbers as
+ * whole numbers (roll numbers typed as numbers), anything missing as "".
+ * The first row of each sheet is the header and is skipped.
+ */
+public final class StudentMasterSheetReader {
+
+    /**
+     * Name, RollNo, EmailID, Gender, Department, Hosteller/Dayscholar.
+     */
+    public static final int COLUMNS = 6;
+
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @param rowNum 1-based row number as shown in Excel
+         * @param cells  exactly {@link #COLUMNS} values, never null
+         */
+        void row(int rowNum, String[] cells);
+    }
+
+    @FunctionalInterface
+    public interface SheetRowHandler {
+        /**
+         * @param sheetIndex 0-based position of the sheet in the workbook
+         * @param sheetName  the sheet's tab name
+         * @param rowNum     1-based row number as shown in Excel
+         * @param cells      exactly {@link #COLUMNS} values, never null
+         */
+        void row(int sheetIndex, String sheetName, int rowNum, String[] cells);
+    }
+
+    private StudentMasterSheetReader() {
+    }
+
+    public static void read(Path file, RowHandler handler) throws IOException {
+        read(file, false, (sheetIndex, sheetName, rowNum, cells) -> handler.row(rowNum, cells));
+    }
+
+    /**
+     * @param allSheets read every sheet instead of only the first
+     */
+    public static void read(Path file, boolean allSheets, SheetRowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            for (int sheetIndex = 0; sheets.hasNext(); sheetIndex++) {
+                try (InputStream sheet = sheets.next()) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), null, strings,
+                            new RowCollector(sheetIndex, sheets.getSheetName(), handler), new WholeNumberFormatter(),
+                            false));
+                    parser.parse(new InputSource(sheet));
+                }
+                if (!allSheets) {
+                    break;
+                }
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Not a readable .xlsx file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Collects the cells of the current row and passes it on at its end.
+     */
+    private static final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final int sheetIndex;
+        private final String sheetName;
+        private final SheetRowHandler handler;
+        private final String[] cells = new String[COLUMNS];
+        private boolean headerSkipped;
+        private int nextColumn;
+
+        RowCollector(int sheetIndex, String sheetName, SheetRowHandler handler) {
+            this.sheetIndex = sheetIndex;
+            this.sheetName = sheetName;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(cells, "");
+            nextColumn = 0;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? column(cellReference) : nextColumn;
+            nextColumn = column + 1;
+            if (column < COLUMNS && formattedValue != null) {
+                cells[column] = formattedValue.trim();
+            }
+        }
+
+        // "C17" -> 2; cheaper than new CellReference(), which is noticeable at one call per cell
+        private static int column(String cellReference) {
+            int column = 0;
+            for (int i = 0; i < cellReference.length(); i++) {
+                char c = cellReference.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                column = column * 26 + (c - 'A' + 1);
+            }
+            return column - 1;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!headerSkipped) {
+                headerSkipped = true;
+                return;
+            }
+            handler.row(sheetIndex, sheetName, rowNum + 1, cells.clone());
+        }
+    }
+
+    /**
+     * Numbers as whole numbers, whatever their cell format (matches the old
+     * (long) getNumericCellValue()).
+     */
+    private static final class WholeNumberFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString,
+                boolean use1904Windowing) {
+            return String.valueOf((long) value);
+        }
+    }
+}
@@ -1,151 +1,479 @@
 package com.petbooking.service;
 
 import com.petbooking.dto.StudentUploadResponse;
-import com.petbooking.entity.Department;
-import com.petbooking.entity.StudentMasterUpload;
-import com.petbooking.repository.DepartmentRepository;
-import com.petbooking.repository.StudentMasterUploadRepository;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.*;
 
+/**
+ * Student master upload: validate each sheet row and insert the good ones
+ * into student_master_upload.
+ *
+ * An upload runs as a background job ({@link StudentUploadJob}) in three
+ * pipelined stages:
+ * - parse: a thread streams the sheets (see {@link StudentMasterSheetReader})
+ *   and cuts the rows into chunks
+ * - validate: each chunk is checked and normalised on a fork-join pool while
+ *   the next one is being parsed
+ * - persist: the job thread takes the validated chunks in sheet order, checks
+ *   them for duplicates with one query per chunk (duplicates inside the upload
+ *   are caught in memory) and writes them with one JDBC batch
+ * A bounded queue between the stages keeps memory flat when the database is
+ * the slow one. Departments are loaded once and only missing ones are inserted.
+ * Errors are reported per row exactly as before; a job over several files or
+ * sheets prefixes them with the file and sheet name.
+ */
 @Service
 public class StudentMasterUploadService {
 
-    @Autowired
-    private StudentMasterUploadRepository repository;
+    private static final int CHUNK_SIZE = 1000;
+
+    /**
+     * Chunks parsed or validated but not yet persisted.
+     */
+    private static final int PIPELINE_DEPTH = 4;
+
+    private static final Future<List<MasterRow>> END_OF_INPUT = CompletableFuture.completedFuture(List.of());
+
+    private static final String INSERT_SQL = """
+            INSERT INTO student_master_upload (roll_no, name, email, dept_code, student_type, gender,
+                                               uploaded_by_admin_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT DO NOTHING
+            """;
 
     @Autowired
-    private DepartmentRepository departmentRepository;
+    private JdbcTemplate jdbcTemplate;
 
-    public StudentUploadResponse processExcelFile(MultipartFile file, Long adminId) throws IOException {
-        InputStream inputStream = file.getInputStream();
-        Workbook workbook = new XSSFWorkbook(inputStream);
-        Sheet sheet = workbook.getSheetAt(0);
+    @Value("${booking.upload.concurrent-jobs:1}")
+    private int concurrentJobs;
+
+    @Value("${booking.upload.validation-threads:0}")
+    private int validationThreads;
 
-        int totalRows = 0;
-        int insertedCount = 0;
-        int skippedCount = 0;
-        List<String> errors = new ArrayList<>();
-        Set<String> deptCodesProcessed = new HashSet<>();
+    @Value("${booking.upload.job-retention-minutes:60}")
+    private long jobRetentionMinutes;
 
-        Iterator<Row> rowIterator = sheet.iterator();
+    private final Map<String, StudentUploadJob> jobs = new ConcurrentHashMap<>();
+    private ExecutorService jobExecutor;
+    private ExecutorService parseExecutor;
+    private ForkJoinPool validationPool;
 
-        // Skip header
-        if (rowIterator.hasNext()) {
-            rowIterator.next();
+    @PostConstruct
+    void start() {
+        jobExecutor = Executors.newFixedThreadPool(Math.max(1, concurrentJobs), r -> {
+            Thread t = new Thread(r, "student-upload-job");
+            t.setDaemon(true);
+            return t;
+        });
+        parseExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "student-upload-parse");
+            t.setDaemon(true);
+            return t;
+        });
+        validationPool = new ForkJoinPool(validationThreads > 0 ? validationThreads
+                : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void stop() {
+        jobExecutor.shutdownNow();
+        parseExecutor.shutdownNow();
+        validationPool.shutdownNow();
+    }
+
+    /**
+     * Validate and insert the rows of an uploaded student master sheet, waiting
+     * for the result. Runs as a job like {@link #startJob}, so it queues behind
+     * background uploads.
+     */
+    public StudentUploadResponse processExcelFile(MultipartFile file, Long adminId) throws IOException {
+        StudentUploadJob job = startJob(List.of(file), adminId, false);
+        try {
+            return job.getCompletion().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Upload interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RuntimeException(e.getCause());
         }
+    }
 
-        while (rowIterator.hasNext()) {
-            Row row = rowIterator.next();
-            totalRows++;
-            int rowNum = row.getRowNum() + 1;
+    /**
+     * Queue an upload of one or more files and return at once. The files are
+     * spooled to disk here (the multipart parts are gone after the request) and
+     * streamed from there, so heap use does not grow with their size.
+     *
+     * @param allSheets read every sheet of each file instead of only the first
+     */
+    public StudentUploadJob startJob(List<MultipartFile> files, Long adminId, boolean allSheets) throws IOException {
+        if (files.isEmpty()) {
+            throw new RuntimeException("No files uploaded");
+        }
+        purgeFinishedJobs();
+        List<Path> spooled = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                Path upload = Files.createTempFile("student-master-", ".xlsx");
+                spooled.add(upload);
+                file.transferTo(upload);
+                names.add(file.getOriginalFilename() != null ? file.getOriginalFilename() : "file" + names.size());
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteAll(spooled);
+            throw e;
+        }
+        StudentUploadJob job = new StudentUploadJob(names, allSheets);
+        jobs.put(job.getJobId(), job);
+        jobExecutor.execute(() -> run(job, names, spooled, adminId));
+        return job;
+    }
 
-            try {
-                // Excel columns: Name(0), RollNo(1), EmailID(2), Gender(3), Department(4),
-                // Hosteller/Dayscholar(5)
-                String name = getCellValue(row, 0);
-                String rollNo = getCellValue(row, 1);
-                String email = getCellValue(row, 2);
-                String gender = getCellValue(row, 3);
-                String deptCode = getCellValue(row, 4);
-                String studentTypeRaw = getCellValue(row, 5);
-
-                if (isEmpty(rollNo) || isEmpty(name) || isEmpty(email) || isEmpty(deptCode)) {
-                    errors.add("Row " + rowNum + ": Missing required fields (RollNo, Name, Email, Dept)");
-                    skippedCount++;
-                    continue;
-                }
+    public StudentUploadJob getJob(String jobId) {
+        StudentUploadJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Upload job not found: " + jobId);
+        }
+        return job;
+    }
 
-                // Auto-create department if not exists
-                if (!deptCodesProcessed.contains(deptCode.toUpperCase())) {
-                    if (!departmentRepository.existsByDeptCode(deptCode)) {
-                        Department newDept = new Department();
-                        newDept.setDeptCode(deptCode.toUpperCase());
-                        departmentRepository.save(newDept);
-                    }
-                    deptCodesProcessed.add(deptCode.toUpperCase());
-                }
+    /**
+     * Jobs still running or finished within the retention window, newest first.
+     */
+    public List<StudentUploadJob> getJobs() {
+        purgeFinishedJobs();
+        List<StudentUploadJob> recent = new ArrayList<>(jobs.values());
+        recent.sort(Comparator.comparing(StudentUploadJob::getCreatedAt).reversed());
+        return recent;
+    }
 
-                // Map "Hosteller" -> "HOSTEL", "Dayscholar" -> "DAY"
-                String studentType;
-                if ("HOSTELLER".equalsIgnoreCase(studentTypeRaw) || "HOSTEL".equalsIgnoreCase(studentTypeRaw)) {
-                    studentType = "HOSTEL";
-                } else if ("DAYSCHOLAR".equalsIgnoreCase(studentTypeRaw) || "DAY".equalsIgnoreCase(studentTypeRaw)) {
-                    studentType = "DAY";
-                } else {
-                    errors.add("Row " + rowNum + ": Invalid Student Type '" + studentTypeRaw
-                            + "' (must be Hosteller/Hostel or Dayscholar/Day)");
-                    skippedCount++;
-                    continue;
+    private void purgeFinishedJobs() {
+        Instant cutoff = Instant.now().minus(jobRetentionMinutes, ChronoUnit.MINUTES);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    /**
+     * The persist stage, on the job thread. Parsing and validation run ahead of
+     * it by at most {@link #PIPELINE_DEPTH} chunks.
+     */
+    private void run(StudentUploadJob job, List<String> names, List<Path> files, Long adminId) {
+        job.started();
+        BlockingQueue<Future<List<MasterRow>>> validated = new ArrayBlockingQueue<>(PIPELINE_DEPTH);
+        Future<?> parser = parseExecutor.submit(() -> {
+            parse(job, names, files, validated);
+            return null;
+        });
+        try {
+            Upload upload = new Upload(job, adminId);
+            for (Future<List<MasterRow>> chunk = validated.take(); chunk != END_OF_INPUT; chunk = validated.take()) {
+                for (MasterRow row : chunk.get()) {
+                    upload.add(row);
                 }
+            }
+            parser.get(); // a file that could not be read fails the job
+            upload.flush();
+            job.completed(upload.response());
+        } catch (ExecutionException e) {
+            fail(job, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(job, e);
+        } catch (RuntimeException e) {
+            fail(job, e);
+        } finally {
+            parser.cancel(true);
+            deleteAll(files);
+        }
+    }
+
+    private static void fail(StudentUploadJob job, Throwable cause) {
+        System.out.println("Student master upload " + job.getJobId() + " failed: " + cause.getMessage());
+        job.failed(cause);
+    }
 
-                if ("HOSTEL".equals(studentType)) {
-                    if (!"MALE".equalsIgnoreCase(gender) && !"FEMALE".equalsIgnoreCase(gender)) {
-                        errors.add("Row " + rowNum + ": Invalid Gender for Hosteller (must be MALE or FEMALE)");
-                        skippedCount++;
-                        continue;
+    /**
+     * The parse stage: stream every file, hand each full chunk to the
+     * validation pool and queue its result for the persist stage in order.
+     */
+    private void parse(StudentUploadJob job, List<String> names, List<Path> files,
+            BlockingQueue<Future<List<MasterRow>>> validated) throws IOException, InterruptedException {
+        try {
+            for (int f = 0; f < files.size(); f++) {
+                String fileName = names.get(f);
+                List<SheetRow> chunk = new ArrayList<>(CHUNK_SIZE);
+                int[] source = { -1, -1 }; // sheet index seen last, its source index
+                StudentMasterSheetReader.read(files.get(f), job.isAllSheets(), (sheetIndex, sheetName, rowNum,
+                        cells) -> {
+                    if (sheetIndex != source[0]) {
+                        source[0] = sheetIndex;
+                        source[1] = job.addSource(job.isAllSheets() ? fileName + " [" + sheetName + "]" : fileName);
+                    }
+                    chunk.add(new SheetRow(source[1], rowNum, cells));
+                    job.rowsRead.incrementAndGet();
+                    if (chunk.size() >= CHUNK_SIZE) {
+                        submit(List.copyOf(chunk), validated);
+                        chunk.clear();
                     }
+                });
+                if (!chunk.isEmpty()) {
+                    submit(List.copyOf(chunk), validated);
                 }
+            }
+        } finally {
+            if (!Thread.currentThread().isInterrupted()) {
+                validated.put(END_OF_INPUT);
+            }
+        }
+    }
 
-                // Check duplicates (in this upload table)
-                if (repository.existsByRollNo(rollNo) || repository.existsByEmail(email)) {
-                    errors.add("Row " + rowNum + ": Duplicate RollNo or Email");
-                    skippedCount++;
-                    continue;
+    private void submit(List<SheetRow> rows, BlockingQueue<Future<List<MasterRow>>> validated) {
+        // The parallel stream runs on the pool the task was submitted to
+        Future<List<MasterRow>> result = validationPool.submit(() -> rows.parallelStream()
+                .map(row -> validate(row.source(), row.rowNum(), row.cells()))
+                .toList());
+        try {
+            validated.put(result);
+        } catch (InterruptedException e) {
+            // The job failed or is shutting down: stop reading
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            throw new CancellationException("Upload cancelled");
+        }
+    }
+
+    private static void deleteAll(List<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.out.println("Could not delete upload spool file " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private record SheetRow(int source, int rowNum, String[] cells) {
+    }
+
+    /**
+     * A sheet row after the checks that need no database.
+     *
+     * @param source    the file/sheet the row came from, see {@link StudentUploadJob#addSource}
+     * @param error     reject the row with this message (checked before duplicates)
+     * @param lateError reject the row with this message only if it is not a duplicate
+     *                  (the original check order reported duplicates first)
+     * @param deptCode  set once the required fields are present: the department is
+     *                  created even if the row is rejected later
+     */
+    record MasterRow(int source, int rowNum, String error, String lateError, String deptCode, String rollNo,
+            String name, String email, String studentType, String gender) {
+
+        static MasterRow rejected(int source, int rowNum, String deptCode, String error) {
+            return new MasterRow(source, rowNum, error, null, deptCode, null, null, null, null, null);
+        }
+    }
+
+    static MasterRow validate(int source, int rowNum, String[] cells) {
+        // Excel columns: Name(0), RollNo(1), EmailID(2), Gender(3), Department(4),
+        // Hosteller/Dayscholar(5)
+        String name = cells[0];
+        String rollNo = cells[1];
+        String email = cells[2];
+        String gender = cells[3];
+        String deptCode = cells[4];
+        String studentTypeRaw = cells[5];
+
+        if (isEmpty(rollNo) || isEmpty(name) || isEmpty(email) || isEmpty(deptCode)) {
+            return MasterRow.rejected(source, rowNum, null, "Missing required fields (RollNo, Name, Email, Dept)");
+        }
+        deptCode = deptCode.toUpperCase();
+
+        // Map "Hosteller" -> "HOSTEL", "Dayscholar" -> "DAY"
+        String studentType;
+        if ("HOSTELLER".equalsIgnoreCase(studentTypeRaw) || "HOSTEL".equalsIgnoreCase(studentTypeRaw)) {
+            studentType = "HOSTEL";
+        } else if ("DAYSCHOLAR".equalsIgnoreCase(studentTypeRaw) || "DAY".equalsIgnoreCase(studentTypeRaw)) {
+            studentType = "DAY";
+        } else {
+            return MasterRow.rejected(source, rowNum, deptCode, "Invalid Student Type '" + studentTypeRaw
+                    + "' (must be Hosteller/Hostel or Dayscholar/Day)");
+        }
+
+        if ("HOSTEL".equals(studentType)) {
+            if (!"MALE".equalsIgnoreCase(gender) && !"FEMALE".equalsIgnoreCase(gender)) {
+                return MasterRow.rejected(source, rowNum, deptCode, "Invalid Gender for Hosteller (must be MALE or FEMALE)");
+            }
+        }
+
+        String lateError = isEmpty(gender) ? "Gender required" : null;
+        return new MasterRow(source, rowNum, null, lateError, deptCode, rollNo, name, email, studentType,
+                gender.toUpperCase());
+    }
+
+    /**
+     * The persist stage's state: per-row errors, claimed keys and the chunk
+     * being collected. Progress counters live on the job.
+     */
+    private final class Upload {
+        private final StudentUploadJob job;
+        private final Long adminId;
+        private final Set<String> departments = new HashSet<>();
+        private final Set<String> claimedRollNos = new HashSet<>();
+        private final Set<String> claimedEmails = new HashSet<>();
+        // Keyed by (source, row) so each sheet's errors stay together and in row order
+        private final SortedMap<Long, String> errors = new TreeMap<>();
+        private final List<MasterRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        Upload(StudentUploadJob job, Long adminId) {
+            this.job = job;
+            this.adminId = adminId;
+            departments.addAll(jdbcTemplate.queryForList("SELECT dept_code FROM departments", String.class));
+        }
+
+        void add(MasterRow row) {
+            job.rowsProcessed.incrementAndGet();
+            if (row.deptCode() != null && !ensureDepartment(row)) {
+                return;
+            }
+            if (row.error() != null) {
+                reject(row, row.error());
+                return;
+            }
+            chunk.add(row);
+            if (chunk.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        // Auto-create department if not exists
+        private boolean ensureDepartment(MasterRow row) {
+            if (departments.contains(row.deptCode())) {
+                return true;
+            }
+            try {
+                jdbcTemplate.update("INSERT INTO departments (dept_code) VALUES (?) ON CONFLICT (dept_code) DO NOTHING",
+                        row.deptCode());
+                departments.add(row.deptCode());
+                return true;
+            } catch (DataAccessException e) {
+                reject(row, "Error processing - " + e.getMessage());
+                return false;
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            // Check duplicates (in this upload table): one round trip for the whole chunk
+            String[] rollNos = chunk.stream().map(MasterRow::rollNo).toArray(String[]::new);
+            String[] emails = chunk.stream().map(MasterRow::email).toArray(String[]::new);
+            Set<String> existingRollNos = new HashSet<>();
+            Set<String> existingEmails = new HashSet<>();
+            jdbcTemplate.query("SELECT roll_no, email FROM student_master_upload WHERE roll_no = ANY(?) OR email = ANY(?)",
+                    ps -> {
+                        ps.setArray(1, ps.getConnection().createArrayOf("varchar", rollNos));
+                        ps.setArray(2, ps.getConnection().createArrayOf("varchar", emails));
+                    }, rs -> {
+                        existingRollNos.add(rs.getString("roll_no"));
+                        existingEmails.add(rs.getString("email"));
+                    });
+
+            List<MasterRow> inserts = new ArrayList<>(chunk.size());
+            for (MasterRow row : chunk) {
+                if (existingRollNos.contains(row.rollNo()) || existingEmails.contains(row.email())
+                        || claimedRollNos.contains(row.rollNo()) || claimedEmails.contains(row.email())) {
+                    reject(row, "Duplicate RollNo or Email");
+                } else if (row.lateError() != null) {
+                    reject(row, row.lateError());
+                } else {
+                    claimedRollNos.add(row.rollNo());
+                    claimedEmails.add(row.email());
+                    inserts.add(row);
                 }
+            }
+            chunk.clear();
+            insert(inserts);
+        }
 
-                StudentMasterUpload entity = new StudentMasterUpload();
-                entity.setRollNo(rollNo);
-                entity.setName(name);
-                entity.setEmail(email);
-                entity.setDeptCode(deptCode.toUpperCase());
-                entity.setStudentType(studentType.toUpperCase());
-                entity.setGender(gender != null ? gender.toUpperCase() : "MALE");
-                if (isEmpty(gender) && "DAY".equalsIgnoreCase(studentType)) {
-                    if (isEmpty(gender)) {
-                        errors.add("Row " + rowNum + ": Gender required");
-                        skippedCount++;
-                        continue;
+        private void insert(List<MasterRow> rows) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            int[] counts;
+            try {
+                counts = jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> bind(ps, row))[0];
+            } catch (DataAccessException e) {
+                // Something in the batch is invalid (e.g. a value too long): retry row by row to name it
+                for (MasterRow row : rows) {
+                    try {
+                        if (jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, row)) > 0) {
+                            job.insertedCount.incrementAndGet();
+                        } else {
+                            reject(row, "Duplicate RollNo or Email");
+                        }
+                    } catch (DataAccessException rowError) {
+                        claimedRollNos.remove(row.rollNo());
+                        claimedEmails.remove(row.email());
+                        reject(row, "Error processing - " + rowError.getMessage());
                     }
                 }
+                return;
+            }
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    job.insertedCount.incrementAndGet();
+                } else {
+                    // Inserted by a concurrent upload since the duplicate check
+                    reject(rows.get(i), "Duplicate RollNo or Email");
+                }
+            }
+        }
 
-                entity.setUploadedByAdminId(adminId);
-                repository.save(entity);
-                insertedCount++;
+        private void bind(java.sql.PreparedStatement ps, MasterRow row) throws java.sql.SQLException {
+            ps.setString(1, row.rollNo());
+            ps.setString(2, row.name());
+            ps.setString(3, row.email());
+            ps.setString(4, row.deptCode());
+            ps.setString(5, row.studentType());
+            ps.setString(6, row.gender());
+            ps.setObject(7, adminId);
+        }
 
-            } catch (Exception e) {
-                errors.add("Row " + rowNum + ": Error processing - " + e.getMessage());
-                skippedCount++;
+        private void reject(MasterRow row, String message) {
+            String error = "Row " + row.rowNum() + ": " + message;
+            if (job.isMultiSource()) {
+                error = job.sourceLabel(row.source()) + " " + error;
             }
+            errors.put(((long) row.source() << 32) | row.rowNum(), error);
+            job.errorRecorded(error);
         }
-        workbook.close();
 
-        return new StudentUploadResponse(totalRows, insertedCount, skippedCount, errors);
-    }
-
-    private String getCellValue(Row row, int index) {
-        Cell cell = row.getCell(index, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
-        if (cell == null)
-            return "";
-        try {
-            return switch (cell.getCellType()) {
-                case STRING -> cell.getStringCellValue().trim();
-                case NUMERIC -> String.valueOf((long) cell.getNumericCellValue()); // Handle numeric roll nos
-                default -> "";
-            };
-        } catch (Exception e) {
-            return "";
+        StudentUploadResponse response() {
+            return new StudentUploadResponse(job.rowsProcessed.get(), job.insertedCount.get(), errors.size(),
+                    new ArrayList<>(errors.values()));
         }
     }
 
-    private boolean isEmpty(String str) {
+    private static boolean isEmpty(String str) {
         return str == null || str.trim().isEmpty();
     }
 }
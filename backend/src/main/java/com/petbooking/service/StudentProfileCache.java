@@ -0,0 +1,57 @@
+package com.petbooking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Department and category of each student, the two fields the read paths need
+ * to find a student's seat partition. A student's profile only changes through
+ * the admin edit, which evicts it, so the entry can be kept until then.
+ * Bounded by the number of students.
+ */
+@Service
+public class StudentProfileCache {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<String, Profile> profiles = new ConcurrentHashMap<>();
+
+    public record Profile(Long deptId, Integer categoryType) {
+    }
+
+    /**
+     * The student's profile, loaded on first use. Throws if the student does not exist.
+     */
+    public Profile get(String rollNo) {
+        Profile profile = profiles.get(rollNo);
+        if (profile != null) {
+            return profile;
+        }
+        List<Profile> rows = jdbcTemplate.query("SELECT category, dept_id FROM students WHERE roll_no = ?",
+                (rs, rowNum) -> new Profile(rs.getLong("dept_id"), categoryType(rs.getString("category"))), rollNo);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Student not found");
+        }
+        profiles.put(rollNo, rows.get(0));
+        return rows.get(0);
+    }
+
+    public void evict(String rollNo) {
+        profiles.remove(rollNo);
+    }
+
+    private static Integer categoryType(String category) {
+        return switch (category) {
+            case "DAY" -> 1;
+            case "HOSTEL_MALE" -> 2;
+            case "HOSTEL_FEMALE" -> 3;
+            default -> throw new RuntimeException("Unknown student category");
+        };
+    }
+}
@@ -0,0 +1,153 @@
+package com.petbooking.service;
+
+import com.petbooking.dto.StudentUploadResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One background student master upload and its progress. The counters are
+ * written by the pipeline threads and read by the status endpoint at any time.
+ */
+public class StudentUploadJob {
+
+    /**
+     * Errors shown while the job runs; the full list comes with the result.
+     */
+    private static final int ERROR_SAMPLE_SIZE = 50;
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String jobId = UUID.randomUUID().toString();
+    private final List<String> fileNames;
+    private final boolean allSheets;
+    private final Instant createdAt = Instant.now();
+    private final CompletableFuture<StudentUploadResponse> completion = new CompletableFuture<>();
+    private final List<String> sources = new CopyOnWriteArrayList<>();
+    private final List<String> errorSample = new CopyOnWriteArrayList<>();
+
+    final AtomicInteger rowsRead = new AtomicInteger();
+    final AtomicInteger rowsProcessed = new AtomicInteger();
+    final AtomicInteger insertedCount = new AtomicInteger();
+    final AtomicInteger errorCount = new AtomicInteger();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String failure;
+
+    StudentUploadJob(List<String> fileNames, boolean allSheets) {
+        this.fileNames = List.copyOf(fileNames);
+        this.allSheets = allSheets;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public CompletableFuture<StudentUploadResponse> getCompletion() {
+        return completion;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    boolean isAllSheets() {
+        return allSheets;
+    }
+
+    /**
+     * Error messages carry the file (and sheet) name once a job reads more than one sheet.
+     */
+    boolean isMultiSource() {
+        return allSheets || fileNames.size() > 1;
+    }
+
+    boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * @return index of the new source, used to keep its row numbers apart from other sheets'
+     */
+    int addSource(String label) {
+        sources.add(label);
+        return sources.size() - 1;
+    }
+
+    String sourceLabel(int source) {
+        return sources.get(source);
+    }
+
+    void errorRecorded(String message) {
+        if (errorCount.incrementAndGet() <= ERROR_SAMPLE_SIZE) {
+            errorSample.add(message);
+        }
+    }
+
+    void started() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void completed(StudentUploadResponse result) {
+        finishedAt = Instant.now();
+        status = Status.COMPLETED;
+        completion.complete(result);
+    }
+
+    void failed(Throwable cause) {
+        finishedAt = Instant.now();
+        failure = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+        status = Status.FAILED;
+        completion.completeExceptionally(cause);
+    }
+
+    /**
+     * Progress as the status endpoint returns it.
+     */
+    public Map<String, Object> toStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", jobId);
+        status.put("status", this.status);
+        status.put("files", fileNames);
+        status.put("allSheets", allSheets);
+        status.put("sheets", List.copyOf(sources));
+        status.put("rowsRead", rowsRead.get());
+        status.put("rowsProcessed", rowsProcessed.get());
+        status.put("insertedCount", insertedCount.get());
+        status.put("skippedCount", errorCount.get());
+        status.put("errors", List.copyOf(errorSample));
+
+        Instant start = startedAt;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long elapsedMs = start != null ? Duration.between(start, end).toMillis() : 0;
+        status.put("elapsedMs", elapsedMs);
+        status.put("rowsPerSecond", elapsedMs > 0 ? Math.round(rowsProcessed.get() * 1000.0 / elapsedMs) : 0);
+        status.put("createdAt", createdAt);
+        status.put("startedAt", start);
+        status.put("finishedAt", finishedAt);
+        if (failure != null) {
+            status.put("message", "Error processing file: " + failure);
+        }
+        if (this.status == Status.COMPLETED) {
+            status.put("result", completion.join());
+        }
+        return status;
+    }
+}
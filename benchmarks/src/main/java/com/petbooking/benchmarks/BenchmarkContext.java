@@ -0,0 +1,73 @@
+package com.petbooking.benchmarks;
+
+import com.petbooking.PetBookingApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The backend's Spring context without the web server, pointed at the
+ * benchmark database. Every benchmark fork boots one of these.
+ *
+ * Environment (inherited by JMH forks):
+ * BENCH_JDBC_URL  - default jdbc:postgresql://localhost:5432/petbooking_bench?user=postgres&password=postgres
+ * BENCH_POOL_SIZE - Hikari pool size and booking.db.max-concurrency, default 10
+ */
+public final class BenchmarkContext implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkContext(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    public static BenchmarkContext start(String bookingMode) {
+        String url = env("BENCH_JDBC_URL",
+                "jdbc:postgresql://localhost:5432/petbooking_bench?user=postgres&password=postgres");
+        String poolSize = env("BENCH_POOL_SIZE", "10");
+
+        // Command-line style arguments outrank application.properties
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.url=" + url);
+        args.add("--spring.datasource.hikari.maximum-pool-size=" + poolSize);
+        args.add("--spring.datasource.hikari.minimum-idle=" + poolSize);
+        args.add("--booking.db.max-concurrency=" + poolSize);
+        args.add("--booking.mode=" + bookingMode);
+        args.add("--spring.jpa.show-sql=false");
+        args.add("--logging.level.root=WARN");
+        args.add("--spring.main.banner-mode=off");
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PetBookingApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+        return new BenchmarkContext(context);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public JdbcTemplate jdbc() {
+        return context.getBean(JdbcTemplate.class);
+    }
+
+    public TransactionTemplate transactions() {
+        return new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? fallback : value;
+    }
+}
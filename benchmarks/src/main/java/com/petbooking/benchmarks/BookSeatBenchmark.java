@@ -0,0 +1,117 @@
+package com.petbooking.benchmarks;
+
+import com.petbooking.exception.SeatContendedException;
+import com.petbooking.repository.ExamSlotSeatRepository;
+import com.petbooking.service.BookingService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookingService.bookSeat end to end against PostgreSQL.
+ *
+ * mode = sql | inventory | batch selects booking.mode; atomic-update runs the
+ * original ExamSlotSeatRepository.atomicBookSlot claim (first free row, no
+ * spreading) for comparison; counted books a counted-capacity exam
+ * (exam_capacity increment). Run with -t 1 for latency and -t 16 or more to see
+ * contention, e.g. -t 16 -p mode=sql,atomic-update.
+ *
+ * fill is the percentage of every date booked before measurement starts (see
+ * {@link Dataset}); the sample-time mode gives the latency percentiles, e.g.
+ * p99 at 90% fill against the original claim:
+ * -bm sample -t 16 -p fill=90 -p mode=sql,atomic-update.
+ *
+ * Each thread books its own slice of students; when the slice is used up its
+ * seats are returned in an untimed invocation setup. The placeholder bookings
+ * of fill stay, so a date stays between fill and fill + (100 - fill) / 2
+ * percent full.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BookSeatBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int students;
+
+    @Param({ "10", "30", "60" })
+    public int days;
+
+    @Param({ "sql", "inventory", "batch", "atomic-update", "counted" })
+    public String mode;
+
+    @Param({ "0", "90" })
+    public int fill;
+
+    BenchmarkContext context;
+    Dataset dataset;
+    BookingService bookingService;
+    ExamSlotSeatRepository slotSeatRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("atomic-update".equals(mode) || "counted".equals(mode) ? "sql" : mode);
+        dataset = new Dataset(context, students, days, "counted".equals(mode), fill).seed();
+        bookingService = context.bean(BookingService.class);
+        slotSeatRepository = context.bean(ExamSlotSeatRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Slice {
+        List<Integer> students = new ArrayList<>();
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(BookSeatBenchmark benchmark, ThreadParams thread) {
+            for (int g = thread.getThreadIndex(); g < benchmark.students; g += thread.getThreadCount()) {
+                students.add(g);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void refill(BookSeatBenchmark benchmark) {
+            if (next < students.size()) {
+                return;
+            }
+            benchmark.dataset.release(students.stream().map(Dataset::rollNo).toList());
+            next = 0;
+        }
+
+        int take() {
+            return students.get(next++);
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+        public long contended;
+    }
+
+    @Benchmark
+    public Object bookSeat(Slice slice, Outcomes outcomes) {
+        int g = slice.take();
+        try {
+            if ("atomic-update".equals(mode)) {
+                return context.transactions().execute(status -> slotSeatRepository.atomicBookSlot(
+                        dataset.examId(), Dataset.deptId(g), Dataset.categoryType(g), dataset.bookingDate(g),
+                        Dataset.rollNo(g)));
+            }
+            return bookingService.bookSeat(Dataset.rollNo(g), dataset.examId(), dataset.bookingDate(g));
+        } catch (SeatContendedException e) {
+            outcomes.contended++;
+            return e;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.petbooking.benchmarks;
+
+import com.petbooking.service.ExamAdminService;
+import com.petbooking.service.ExamInitService;
+import com.petbooking.service.SeatAvailabilityService;
+import com.petbooking.service.SeatInventoryService;
+import com.petbooking.service.SeatInventoryService.InventoryKey;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthetic exam season: DEPARTMENTS departments, students spread evenly over
+ * departments and the three categories, one published exam over {@code days}
+ * days with two seats per student (so booking never runs out mid-iteration).
+ *
+ * Student number g (roll "R000123") belongs to department g % 10 + 1 and
+ * category (g / 10) % 3 + 1, and books on day (g / 30) % days: every
+ * (dept, category) partition is spread evenly over the exam days.
+ *
+ * A counted dataset holds the same exam as exam_capacity rows (inventory_model
+ * COUNTED) instead of one exam_slot_seats row per seat.
+ *
+ * With {@code fill} set, every (dept, category, date) starts that percentage
+ * booked by placeholder roll numbers ("F..."), picked in hashed seat order so
+ * the free seats left are scattered. The exam gets enough extra seats that two
+ * per student are still free, so fill = 90 measures booking against a date
+ * that is 90-95% full.
+ */
+public final class Dataset {
+
+    public static final int DEPARTMENTS = 10;
+    public static final LocalDate FIRST_DAY = LocalDate.of(2027, 1, 4);
+    private static final String[] CATEGORIES = { "DAY", "HOSTEL_MALE", "HOSTEL_FEMALE" };
+
+    private final BenchmarkContext context;
+    private final int students;
+    private final int days;
+    private final boolean counted;
+    private final int fill;
+    private Long examId;
+    private final Map<String, Long> quotaIds = new HashMap<>();
+
+    public Dataset(BenchmarkContext context, int students, int days) {
+        this(context, students, days, false);
+    }
+
+    public Dataset(BenchmarkContext context, int students, int days, boolean counted) {
+        this(context, students, days, counted, 0);
+    }
+
+    public Dataset(BenchmarkContext context, int students, int days, boolean counted, int fill) {
+        if (fill < 0 || fill >= 100) {
+            throw new IllegalArgumentException("fill must be 0-99: " + fill);
+        }
+        this.context = context;
+        this.students = students;
+        this.days = days;
+        this.counted = counted;
+        this.fill = fill;
+    }
+
+    /**
+     * Wipe the booking tables and load a fresh season. The availability summary
+     * is counted and the exam published through the services, so they are built
+     * the same way as in production.
+     */
+    public Dataset seed() {
+        JdbcTemplate jdbc = context.jdbc();
+        jdbc.execute("TRUNCATE exam_slot_seats, exam_bookings, exam_capacity, exam_seat_availability, "
+                + "exam_dept_publication, exam_quotas, bookings, exams, students, departments RESTART IDENTITY CASCADE");
+        jdbc.update("INSERT INTO departments (dept_code) SELECT 'D' || g FROM generate_series(1, ?) g", DEPARTMENTS);
+        jdbc.update("INSERT INTO students (roll_no, name, email, dept_id, category, created_at) "
+                + "SELECT 'R' || lpad(g::text, 6, '0'), 'Student ' || g, 'r' || g || '@bench.local', "
+                + "g % ? + 1, (ARRAY['DAY', 'HOSTEL_MALE', 'HOSTEL_FEMALE'])[(g / ?) % 3 + 1], now() "
+                + "FROM generate_series(0, ? - 1) g", DEPARTMENTS, DEPARTMENTS, students);
+
+        examId = jdbc.queryForObject("INSERT INTO exams (exam_name, no_of_days, starting_date, ending_date, "
+                + "created_at, total_day_scholars, total_hostel_boys, total_hostel_girls, systems_per_slot, "
+                + "day_scholar_start_time, day_scholar_end_time, hostel_start_time, hostel_end_time, "
+                + "inventory_model) "
+                + "VALUES ('Benchmark', ?, ?, ?, now(), 0, 0, 0, 30, '09:00', '11:00', '14:00', '16:00', ?) "
+                + "RETURNING exam_id", Long.class, days, FIRST_DAY, FIRST_DAY.plusDays(days - 1),
+                counted ? "COUNTED" : "SEATS");
+
+        // Two free seats per student once fill percent of them are booked
+        double seatsPerStudent = 2.0 * 100 / (100 - fill);
+        if (counted) {
+            jdbc.update("INSERT INTO exam_capacity (exam_id, dept_id, category_type, slot_date, capacity, "
+                    + "booked_count) "
+                    + "SELECT ?, p.dept_id, p.category_type, ?::date + d, ceil(? * p.students / ?)::int, 0 "
+                    + "FROM (" + partitionsSql() + ") p "
+                    + "CROSS JOIN generate_series(0, ? - 1) d",
+                    examId, FIRST_DAY, seatsPerStudent, days, days);
+        } else {
+            context.bean(ExamInitService.class).createSeatPartition(examId);
+            jdbc.update("INSERT INTO exam_slot_seats (exam_id, slot_date, dept_id, category_type, status) "
+                    + "SELECT ?, ?::date + d, p.dept_id, p.category_type, 'AVAILABLE' "
+                    + "FROM (" + partitionsSql() + ") p "
+                    + "CROSS JOIN generate_series(0, ? - 1) d "
+                    + "CROSS JOIN LATERAL generate_series(1, ceil(? * p.students / ?)::int) k",
+                    examId, FIRST_DAY, days, seatsPerStudent, days);
+        }
+        if (fill > 0) {
+            bookFill();
+        }
+        jdbc.update("INSERT INTO exam_quotas (exam_id, dept_id, category_type, max_count, current_fill, is_closed) "
+                + "SELECT ?, p.dept_id, p.category_type, 2 * p.students, 0, false FROM (" + partitionsSql() + ") p",
+                examId);
+
+        jdbc.update("INSERT INTO exam_dept_publication (exam_id, dept_id, published, updated_at) "
+                + "SELECT ?, dept_id, false, now() FROM departments", examId);
+
+        context.transactions().executeWithoutResult(status -> {
+            context.bean(SeatAvailabilityService.class).refreshExam(examId);
+            context.bean(ExamAdminService.class).publishAllSlots(examId);
+        });
+        context.bean(SeatInventoryService.class).rebuildExam(examId);
+        jdbc.query("SELECT id, dept_id, category_type FROM exam_quotas WHERE exam_id = ?",
+                rs -> {
+                    quotaIds.put(rs.getLong("dept_id") + "-" + rs.getInt("category_type"), rs.getLong("id"));
+                }, examId);
+        jdbc.execute("ANALYZE");
+        return this;
+    }
+
+    /**
+     * Book fill percent of every (dept, category, date) with placeholder roll
+     * numbers, before the availability summary and inventory are built.
+     */
+    private void bookFill() {
+        if (counted) {
+            context.jdbc().update("""
+                    INSERT INTO exam_bookings (exam_id, roll_no, dept_id, category_type, slot_date)
+                    SELECT c.exam_id, 'F' || c.dept_id || '-' || c.category_type || '-' || (c.slot_date - ?::date)
+                               || '-' || k,
+                           c.dept_id, c.category_type, c.slot_date
+                    FROM exam_capacity c
+                    CROSS JOIN LATERAL generate_series(1, c.capacity * ? / 100) k
+                    WHERE c.exam_id = ?
+                    """, FIRST_DAY, fill, examId);
+            recountCapacity();
+            return;
+        }
+        context.jdbc().update("""
+                UPDATE exam_slot_seats x SET roll_number = 'F' || x.slot_id, status = 'BOOKED'
+                FROM (
+                    SELECT slot_id,
+                           row_number() OVER (PARTITION BY dept_id, category_type, slot_date
+                               ORDER BY md5(slot_id::text)) AS k,
+                           count(*) OVER (PARTITION BY dept_id, category_type, slot_date) AS n
+                    FROM exam_slot_seats WHERE exam_id = ?
+                ) f
+                WHERE x.exam_id = ? AND x.slot_id = f.slot_id AND f.k <= f.n * ? / 100
+                """, examId, examId, fill);
+    }
+
+    /**
+     * Book every other student set-based, so read paths see a half-full exam.
+     */
+    public Dataset bookHalf() {
+        if (counted) {
+            context.jdbc().update("""
+                    INSERT INTO exam_bookings (exam_id, roll_no, dept_id, category_type, slot_date)
+                    SELECT ?, s.roll_no, s.dept_id,
+                           CASE s.category WHEN 'DAY' THEN 1 WHEN 'HOSTEL_MALE' THEN 2 ELSE 3 END,
+                           ?::date + (substring(s.roll_no FROM 2)::int / 30) % ?
+                    FROM students s
+                    WHERE substring(s.roll_no FROM 2)::int % 2 = 0
+                    """, examId, FIRST_DAY, days);
+            recountCapacity();
+            context.bean(SeatAvailabilityService.class).rebuild();
+            context.jdbc().execute("ANALYZE");
+            return this;
+        }
+        context.jdbc().update("""
+                WITH st AS (
+                    SELECT s.roll_no, s.dept_id,
+                           CASE s.category WHEN 'DAY' THEN 1 WHEN 'HOSTEL_MALE' THEN 2 ELSE 3 END AS category_type,
+                           (substring(s.roll_no FROM 2)::int / 30) % ? AS day,
+                           row_number() OVER (PARTITION BY s.dept_id, s.category,
+                               (substring(s.roll_no FROM 2)::int / 30) % ? ORDER BY s.roll_no) AS k
+                    FROM students s
+                    WHERE substring(s.roll_no FROM 2)::int % 2 = 0
+                ),
+                seats AS (
+                    SELECT slot_id, dept_id, category_type, slot_date - ?::date AS day,
+                           row_number() OVER (PARTITION BY dept_id, category_type, slot_date ORDER BY slot_id) AS k
+                    FROM exam_slot_seats WHERE exam_id = ?
+                )
+                UPDATE exam_slot_seats x SET roll_number = st.roll_no, status = 'BOOKED'
+                FROM st JOIN seats ON seats.dept_id = st.dept_id AND seats.category_type = st.category_type
+                    AND seats.day = st.day AND seats.k = st.k
+                WHERE x.slot_id = seats.slot_id
+                """, days, days, FIRST_DAY, examId);
+        context.bean(SeatAvailabilityService.class).rebuild();
+        context.bean(SeatInventoryService.class).rebuildExam(examId);
+        context.jdbc().execute("ANALYZE");
+        return this;
+    }
+
+    /**
+     * Return the given students' seats, outside of any measured region. The
+     * freed slot_ids go straight back on the inventory free-lists (a no-op in
+     * the other modes); rebuilding the exam would re-offer seats that other
+     * threads are booking right now.
+     */
+    public void release(List<String> rollNos) {
+        if (counted) {
+            context.transactions().executeWithoutResult(status -> {
+                context.jdbc().update(con -> {
+                    var ps = con.prepareStatement("DELETE FROM exam_bookings WHERE exam_id = ? AND roll_no = ANY(?)");
+                    ps.setLong(1, examId);
+                    ps.setArray(2, con.createArrayOf("varchar", rollNos.toArray()));
+                    return ps;
+                });
+                recountCapacity();
+                context.bean(SeatAvailabilityService.class).refreshExam(examId);
+            });
+            return;
+        }
+        SeatInventoryService inventory = context.bean(SeatInventoryService.class);
+        List<Object[]> freed = context.transactions().execute(status -> {
+            List<Object[]> rows = context.jdbc().query(con -> {
+                var ps = con.prepareStatement("UPDATE exam_slot_seats SET roll_number = NULL, status = 'AVAILABLE' "
+                        + "WHERE exam_id = ? AND roll_number = ANY(?) "
+                        + "RETURNING slot_id, dept_id, category_type, slot_date");
+                ps.setLong(1, examId);
+                ps.setArray(2, con.createArrayOf("varchar", rollNos.toArray()));
+                return ps;
+            }, (rs, rowNum) -> new Object[] { rs.getLong(1), rs.getLong(2), rs.getInt(3),
+                    rs.getObject(4, LocalDate.class) });
+            context.bean(SeatAvailabilityService.class).refreshExam(examId);
+            return rows;
+        });
+        for (Object[] seat : freed) {
+            inventory.release(new InventoryKey(examId, (Long) seat[1], (Integer) seat[2], (LocalDate) seat[3]),
+                    (Long) seat[0]);
+        }
+    }
+
+    /**
+     * Drop the given students' quota bookings and recount current_fill.
+     */
+    public void releaseQuotaBookings(List<String> rollNos) {
+        context.transactions().executeWithoutResult(status -> {
+            context.jdbc().update(con -> {
+                var ps = con.prepareStatement("DELETE FROM bookings WHERE roll_no = ANY(?)");
+                ps.setArray(1, con.createArrayOf("varchar", rollNos.toArray()));
+                return ps;
+            });
+            context.jdbc().update("UPDATE exam_quotas q SET current_fill = "
+                    + "(SELECT count(*) FROM bookings b WHERE b.exam_quota_id = q.id) WHERE q.exam_id = ?",
+                    examId);
+        });
+    }
+
+    private void recountCapacity() {
+        context.jdbc().update("UPDATE exam_capacity c SET booked_count = (SELECT count(*) FROM exam_bookings b "
+                + "WHERE b.exam_id = c.exam_id AND b.dept_id = c.dept_id AND b.category_type = c.category_type "
+                + "AND b.slot_date = c.slot_date) WHERE c.exam_id = ?", examId);
+    }
+
+    public Long quotaId(int g) {
+        return quotaIds.get(deptId(g) + "-" + categoryType(g));
+    }
+
+    public Long examId() {
+        return examId;
+    }
+
+    public int students() {
+        return students;
+    }
+
+    public static String rollNo(int g) {
+        return String.format("R%06d", g);
+    }
+
+    public static long deptId(int g) {
+        return g % DEPARTMENTS + 1;
+    }
+
+    public static int categoryType(int g) {
+        return (g / DEPARTMENTS) % 3 + 1;
+    }
+
+    public static String category(int g) {
+        return CATEGORIES[categoryType(g) - 1];
+    }
+
+    public LocalDate bookingDate(int g) {
+        return FIRST_DAY.plusDays((g / (DEPARTMENTS * 3)) % days);
+    }
+
+    private static String partitionsSql() {
+        return "SELECT dept_id, CASE category WHEN 'DAY' THEN 1 WHEN 'HOSTEL_MALE' THEN 2 ELSE 3 END AS category_type, "
+                + "count(*) AS students FROM students GROUP BY dept_id, category";
+    }
+}
@@ -0,0 +1,105 @@
+package com.petbooking.benchmarks;
+
+import com.petbooking.dto.ExamDtos;
+import com.petbooking.entity.Exam;
+import com.petbooking.service.DashboardStatsService;
+import com.petbooking.service.ExamAdminService;
+import com.petbooking.service.ExamInitService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The admin operations whose cost grows with the number of seats, for one
+ * seat row per seat (SEATS) against counted capacity (COUNTED): publish and
+ * stop of a half-booked exam, the dashboard recount, and creating and
+ * deleting an exam of the same size. Booking itself is BookSeatBenchmark
+ * with mode=counted.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InventoryModelBenchmark {
+
+    @Param({ "10000", "100000" })
+    public int students;
+
+    @Param({ "10", "60" })
+    public int days;
+
+    @Param({ "SEATS", "COUNTED" })
+    public Exam.InventoryModel model;
+
+    BenchmarkContext context;
+    Dataset dataset;
+    ExamAdminService examAdminService;
+    ExamInitService examInitService;
+    DashboardStatsService dashboardStatsService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("sql");
+        dataset = new Dataset(context, students, days, model == Exam.InventoryModel.COUNTED).seed().bookHalf();
+        examAdminService = context.bean(ExamAdminService.class);
+        examInitService = context.bean(ExamInitService.class);
+        dashboardStatsService = context.bean(DashboardStatsService.class);
+        dashboardStatsService.dayStats(dataset.examId()); // loaded, so reconcile() recounts it
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object publishAndStop() {
+        examAdminService.stopAllBookings(dataset.examId());
+        return examAdminService.publishAllSlots(dataset.examId());
+    }
+
+    @Benchmark
+    public void dashboardRecount() {
+        dashboardStatsService.reconcile();
+    }
+
+    @Benchmark
+    public Object createAndDelete() {
+        ExamDtos.ExamInitResponse created = examInitService.initializeExam(examRequest());
+        examInitService.deleteExam(created.getExamId());
+        return created;
+    }
+
+    /**
+     * An exam with the dataset's seat count (two per student), a year after it.
+     */
+    private ExamDtos.ExamInitRequest examRequest() {
+        int perGroup = 2 * students / (Dataset.DEPARTMENTS * 3);
+        List<ExamDtos.DeptCategoryCount> categories = new ArrayList<>();
+        for (long deptId = 1; deptId <= Dataset.DEPARTMENTS; deptId++) {
+            ExamDtos.DeptCategoryCount count = new ExamDtos.DeptCategoryCount();
+            count.setDeptId(deptId);
+            count.setDayScholarCount(perGroup);
+            count.setHostellerBoysCount(perGroup);
+            count.setHostellerGirlsCount(perGroup);
+            categories.add(count);
+        }
+        ExamDtos.ExamInitRequest request = new ExamDtos.ExamInitRequest();
+        request.setExamName("Benchmark create");
+        request.setStartDate(Dataset.FIRST_DAY.plusYears(1));
+        request.setEndDate(Dataset.FIRST_DAY.plusYears(1).plusDays(days - 1));
+        request.setTotalDays(days);
+        request.setDeptCategories(categories);
+        request.setDayScholarStartTime(LocalTime.of(9, 0));
+        request.setDayScholarEndTime(LocalTime.of(11, 0));
+        request.setHostelStartTime(LocalTime.of(14, 0));
+        request.setHostelEndTime(LocalTime.of(16, 0));
+        request.setInventoryModel(model);
+        return request;
+    }
+}
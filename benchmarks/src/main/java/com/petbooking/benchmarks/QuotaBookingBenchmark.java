@@ -0,0 +1,76 @@
+package com.petbooking.benchmarks;
+
+import com.petbooking.service.BookingService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookingService.bookExamQuota: the counted-capacity path, one conditional
+ * UPDATE on exam_quotas.current_fill plus a bookings insert. Under -t 16 all
+ * threads of a (dept, category) partition serialize on the same quota row.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class QuotaBookingBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int students;
+
+    @Param({ "10" })
+    public int days;
+
+    BenchmarkContext context;
+    Dataset dataset;
+    BookingService bookingService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("sql");
+        dataset = new Dataset(context, students, days).seed();
+        bookingService = context.bean(BookingService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Slice {
+        List<Integer> students = new ArrayList<>();
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(QuotaBookingBenchmark benchmark, ThreadParams thread) {
+            for (int g = thread.getThreadIndex(); g < benchmark.students; g += thread.getThreadCount()) {
+                students.add(g);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void refill(QuotaBookingBenchmark benchmark) {
+            if (next < students.size()) {
+                return;
+            }
+            benchmark.dataset.releaseQuotaBookings(students.stream().map(Dataset::rollNo).toList());
+            next = 0;
+        }
+
+        int take() {
+            return students.get(next++);
+        }
+    }
+
+    @Benchmark
+    public Object bookExamQuota(Slice slice) {
+        int g = slice.take();
+        return bookingService.bookExamQuota(Dataset.rollNo(g), dataset.quotaId(g));
+    }
+}
@@ -0,0 +1,87 @@
+package com.petbooking.benchmarks;
+
+import com.petbooking.repository.ExamSlotSeatRepository;
+import com.petbooking.service.BookingService;
+import com.petbooking.service.ExamAdminService;
+import com.petbooking.service.SeatAvailabilityService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths against a half-booked exam: the student's bookings, the date
+ * picker (summary table vs. GROUP BY over seat rows) and the admin dashboard.
+ *
+ * Calls run inside a read-only transaction, standing in for the request-wide
+ * session that open-in-view gives the controllers (lazy exam/department loads).
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadPathsBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int students;
+
+    @Param({ "10", "30", "60" })
+    public int days;
+
+    BenchmarkContext context;
+    Dataset dataset;
+    BookingService bookingService;
+    ExamAdminService examAdminService;
+    SeatAvailabilityService seatAvailabilityService;
+    ExamSlotSeatRepository slotSeatRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("sql");
+        dataset = new Dataset(context, students, days).seed().bookHalf();
+        bookingService = context.bean(BookingService.class);
+        examAdminService = context.bean(ExamAdminService.class);
+        seatAvailabilityService = context.bean(SeatAvailabilityService.class);
+        slotSeatRepository = context.bean(ExamSlotSeatRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private int randomStudent() {
+        return ThreadLocalRandom.current().nextInt(students);
+    }
+
+    @Benchmark
+    public Object studentBookings() {
+        String rollNo = Dataset.rollNo(randomStudent());
+        return context.transactions().execute(status -> bookingService.getStudentBookings(rollNo));
+    }
+
+    @Benchmark
+    public Object availableDatesFromSummary() {
+        int g = randomStudent();
+        return seatAvailabilityService.findAvailableDates(dataset.examId(), Dataset.deptId(g),
+                Dataset.categoryType(g));
+    }
+
+    @Benchmark
+    public Object availableDatesGroupBy() {
+        int g = randomStudent();
+        return slotSeatRepository.findAvailableDatesWithCount(dataset.examId(), Dataset.deptId(g),
+                Dataset.categoryType(g));
+    }
+
+    @Benchmark
+    public Object dashboardStats() {
+        return context.transactions().execute(status -> examAdminService.getDashboardStats(dataset.examId()));
+    }
+
+    @Benchmark
+    public Object departmentStats() {
+        return examAdminService.getDepartmentStats(dataset.examId());
+    }
+}
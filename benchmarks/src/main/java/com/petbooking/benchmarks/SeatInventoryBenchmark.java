@@ -0,0 +1,56 @@
+package com.petbooking.benchmarks;
+
+import com.petbooking.service.SeatInventoryService;
+import com.petbooking.service.SeatInventoryService.InventoryKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory half of booking.mode=inventory: claim a slot_id from a
+ * partition's free-list and put it back. No database work is measured, so
+ * this isolates the cost and scalability of the lock-free queue; run with
+ * -t 1 and -t 16 to compare.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SeatInventoryBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int students;
+
+    @Param({ "10", "30", "60" })
+    public int days;
+
+    BenchmarkContext context;
+    Dataset dataset;
+    SeatInventoryService inventory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("inventory");
+        dataset = new Dataset(context, students, days).seed();
+        inventory = context.bean(SeatInventoryService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long claimAndRelease() {
+        int g = ThreadLocalRandom.current().nextInt(students);
+        InventoryKey key = new InventoryKey(dataset.examId(), Dataset.deptId(g), Dataset.categoryType(g),
+                dataset.bookingDate(g));
+        Long slotId = inventory.claim(key);
+        if (slotId != null) {
+            inventory.release(key, slotId);
+        }
+        return slotId;
+    }
+}
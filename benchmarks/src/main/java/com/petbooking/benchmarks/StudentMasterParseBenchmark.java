@@ -0,0 +1,113 @@
+package com.petbooking.benchmarks;
+
+import com.petbooking.service.StudentMasterSheetReader;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a student master sheet: the XSSFWorkbook (DOM) loop the upload used
+ * to run against the SAX reader it uses now. Only parsing is measured, no
+ * database. Compare time per sheet and, with -prof gc, bytes allocated per
+ * sheet; to see the heap ceiling, rerun with -jvmArgsAppend -Xmx128m (the DOM
+ * variant runs out of memory at 60k rows, the SAX one does not).
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StudentMasterParseBenchmark {
+
+    @Param({ "10000", "60000" })
+    public int rows;
+
+    Path sheet;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        sheet = Files.createTempFile("bench-student-master-", ".xlsx");
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+                OutputStream out = Files.newOutputStream(sheet)) {
+            Sheet s = workbook.createSheet("Students");
+            Row header = s.createRow(0);
+            String[] titles = { "Name", "RollNo", "EmailID", "Gender", "Department", "Hosteller/Dayscholar" };
+            for (int c = 0; c < titles.length; c++) {
+                header.createCell(c).setCellValue(titles[c]);
+            }
+            for (int i = 1; i <= rows; i++) {
+                Row row = s.createRow(i);
+                row.createCell(0).setCellValue("Student " + i);
+                row.createCell(1).setCellValue(21000000 + i); // roll numbers are often typed as numbers
+                row.createCell(2).setCellValue("student" + i + "@college.edu");
+                row.createCell(3).setCellValue(i % 2 == 0 ? "Male" : "Female");
+                row.createCell(4).setCellValue("D" + (i % 12));
+                row.createCell(5).setCellValue(i % 3 == 0 ? "Dayscholar" : "Hosteller");
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(sheet);
+    }
+
+    @Benchmark
+    public int saxReader(Blackhole blackhole) throws IOException {
+        int[] count = new int[1];
+        StudentMasterSheetReader.read(sheet, (rowNum, cells) -> {
+            blackhole.consume(cells);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    @Benchmark
+    public int workbookDom(Blackhole blackhole) throws IOException {
+        int count = 0;
+        try (InputStream in = Files.newInputStream(sheet); Workbook workbook = new XSSFWorkbook(in)) {
+            Iterator<Row> rowIterator = workbook.getSheetAt(0).iterator();
+            if (rowIterator.hasNext()) {
+                rowIterator.next();
+            }
+            while (rowIterator.hasNext()) {
+                Row row = rowIterator.next();
+                String[] cells = new String[StudentMasterSheetReader.COLUMNS];
+                for (int c = 0; c < cells.length; c++) {
+                    cells[c] = cellValue(row, c);
+                }
+                blackhole.consume(cells);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // The old StudentMasterUploadService.getCellValue
+    private static String cellValue(Row row, int index) {
+        Cell cell = row.getCell(index, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
+        if (cell == null) {
+            return "";
+        }
+        return switch (cell.getCellType()) {
+            case STRING -> cell.getStringCellValue().trim();
+            case NUMERIC -> String.valueOf((long) cell.getNumericCellValue());
+            default -> "";
+        };
+    }
+}
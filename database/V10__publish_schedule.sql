@@ -0,0 +1,17 @@
+-- Migration: scheduled publish windows per department
+-- Each row publishes or stops one department of an exam at fire_at. PublishScheduleService
+-- sleeps until the earliest PENDING row is due; rows left FIRING by a restart go back to
+-- PENDING and fire again (publish and stop are idempotent).
+CREATE TABLE IF NOT EXISTS publish_schedule (
+    schedule_id BIGSERIAL PRIMARY KEY,
+    exam_id BIGINT NOT NULL,
+    dept_id BIGINT NOT NULL,
+    action VARCHAR(16) NOT NULL,
+    fire_at TIMESTAMP NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    result VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    fired_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_publish_schedule_due ON publish_schedule (status, fire_at);
@@ -0,0 +1,52 @@
+-- Migration: exam_slot_seats list-partitioned by exam_id
+-- One partition per exam (exam_slot_seats_exam_<id>), created and attached when the exam's seats
+-- are generated and detached/dropped when the exam is deleted, so deleting an exam no longer
+-- deletes its seats row by row and the booking statements only touch the exam's partition.
+-- The seat id sequence (shared with exam_bookings) is kept. The primary key becomes
+-- (slot_id, exam_id): unique keys of a partitioned table must include the partition column.
+-- Same conversion as DatabaseInitializer step 12; does nothing once the table is partitioned.
+DO $$
+DECLARE
+    v_seq TEXT := pg_get_serial_sequence('exam_slot_seats', 'slot_id');
+    v_indexes TEXT[];
+    v_fks TEXT[];
+    v_exam BIGINT;
+    v_def TEXT;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('exam_slot_seats')) <> 'r' THEN
+        RETURN;
+    END IF;
+
+    SELECT array_agg(pg_get_indexdef(indexrelid)) INTO v_indexes
+      FROM pg_index WHERE indrelid = 'exam_slot_seats'::regclass AND NOT indisprimary;
+    SELECT array_agg(format('ALTER TABLE exam_slot_seats ADD CONSTRAINT %I %s', conname, pg_get_constraintdef(oid)))
+      INTO v_fks
+      FROM pg_constraint WHERE conrelid = 'exam_slot_seats'::regclass AND contype = 'f';
+
+    DROP VIEW IF EXISTS exam_booked_seats;
+    EXECUTE format('ALTER SEQUENCE %s OWNED BY NONE', v_seq);
+    ALTER TABLE exam_slot_seats RENAME TO exam_slot_seats_unpartitioned;
+    CREATE TABLE exam_slot_seats (LIKE exam_slot_seats_unpartitioned INCLUDING DEFAULTS) PARTITION BY LIST (exam_id);
+    FOR v_exam IN SELECT DISTINCT exam_id FROM exam_slot_seats_unpartitioned ORDER BY exam_id LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF exam_slot_seats FOR VALUES IN (%s)',
+                       'exam_slot_seats_exam_' || v_exam, v_exam);
+    END LOOP;
+    INSERT INTO exam_slot_seats SELECT * FROM exam_slot_seats_unpartitioned;
+    DROP TABLE exam_slot_seats_unpartitioned;
+    EXECUTE format('ALTER SEQUENCE %s OWNED BY exam_slot_seats.slot_id', v_seq);
+
+    ALTER TABLE exam_slot_seats ADD CONSTRAINT exam_slot_seats_pkey PRIMARY KEY (slot_id, exam_id);
+    FOREACH v_def IN ARRAY COALESCE(v_indexes, '{}') LOOP
+        EXECUTE v_def;
+    END LOOP;
+    FOREACH v_def IN ARRAY COALESCE(v_fks, '{}') LOOP
+        EXECUTE v_def;
+    END LOOP;
+
+    CREATE VIEW exam_booked_seats AS
+    SELECT slot_id, exam_id, dept_id, category_type, slot_date, roll_number, status
+      FROM exam_slot_seats WHERE roll_number IS NOT NULL
+    UNION ALL
+    SELECT booking_id, exam_id, dept_id, category_type, slot_date, roll_no, 'BOOKED'
+      FROM exam_bookings;
+END $$;
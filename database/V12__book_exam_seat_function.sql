@@ -0,0 +1,164 @@
+-- Migration: current book_exam_seat() definition
+-- V3 created the first version of the function. Its later changes (contention retry, spread
+-- claims, availability summary, per-department publication, partition pruning) are applied here
+-- so a database that already ran V3 gets the current body; it needs V5 and V9, and uses the
+-- partitioning of V11. Same definition as backend/src/main/resources/db/book_exam_seat.sql
+-- (applied on startup by DatabaseInitializer).
+
+DROP FUNCTION IF EXISTS book_exam_seat(VARCHAR, BIGINT, DATE);
+
+-- Single-round-trip seat booking.
+-- Validates the student, detects a duplicate booking, claims a free seat of a published department
+-- and returns the booked row with the exam time window, all in one call.
+-- Invoked as: SELECT * FROM book_exam_seat(:rollNo, :examId, :slotDate)
+-- result_code: BOOKED, NO_STUDENT, UNKNOWN_CATEGORY, DUPLICATE, CONTENDED, FULL
+-- The result columns are part of the signature: DatabaseInitializer drops an older
+-- definition whose columns differ before applying this one.
+CREATE OR REPLACE FUNCTION book_exam_seat(p_roll_no VARCHAR, p_exam_id BIGINT, p_slot_date DATE)
+RETURNS TABLE (
+    result_code VARCHAR,
+    slot_id BIGINT,
+    slot_date DATE,
+    exam_name VARCHAR,
+    dept_code VARCHAR,
+    category_type INT,
+    start_time TIME,
+    end_time TIME,
+    dept_id BIGINT
+)
+LANGUAGE plpgsql
+AS $$
+#variable_conflict use_column
+DECLARE
+    v_dept_id BIGINT;
+    v_dept_code VARCHAR;
+    v_category INT;
+    v_slot_id BIGINT;
+    v_lo BIGINT;
+    v_hi BIGINT;
+    v_pivot BIGINT;
+BEGIN
+    SELECT s.dept_id,
+           d.dept_code::VARCHAR,
+           CASE s.category WHEN 'DAY' THEN 1 WHEN 'HOSTEL_MALE' THEN 2 WHEN 'HOSTEL_FEMALE' THEN 3 END
+      INTO v_dept_id, v_dept_code, v_category
+      FROM students s
+      JOIN departments d ON d.dept_id = s.dept_id
+     WHERE s.roll_no = p_roll_no;
+
+    IF NOT FOUND THEN
+        RETURN QUERY SELECT 'NO_STUDENT'::VARCHAR, NULL::BIGINT, NULL::DATE, NULL::VARCHAR,
+            NULL::VARCHAR, NULL::INT, NULL::TIME, NULL::TIME, NULL::BIGINT;
+        RETURN;
+    END IF;
+
+    IF v_category IS NULL THEN
+        RETURN QUERY SELECT 'UNKNOWN_CATEGORY'::VARCHAR, NULL::BIGINT, NULL::DATE, NULL::VARCHAR,
+            v_dept_code, NULL::INT, NULL::TIME, NULL::TIME, v_dept_id;
+        RETURN;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM exam_slot_seats b WHERE b.exam_id = p_exam_id AND b.roll_number = p_roll_no) THEN
+        RETURN QUERY SELECT 'DUPLICATE'::VARCHAR, NULL::BIGINT, NULL::DATE, NULL::VARCHAR,
+            v_dept_code, v_category, NULL::TIME, NULL::TIME, v_dept_id;
+        RETURN;
+    END IF;
+
+    -- Publication is one row per (exam, department); while it is off the seats are
+    -- not bookable, so report the date as full.
+    IF NOT EXISTS (SELECT 1 FROM exam_dept_publication p
+                    WHERE p.exam_id = p_exam_id AND p.dept_id = v_dept_id AND p.published) THEN
+        RETURN QUERY SELECT 'FULL'::VARCHAR, NULL::BIGINT, NULL::DATE, NULL::VARCHAR,
+            v_dept_code, v_category, NULL::TIME, NULL::TIME, v_dept_id;
+        RETURN;
+    END IF;
+
+    -- Spread concurrent claimers: each roll number starts its search at its own
+    -- point of the free-seat range instead of everyone racing for the first row.
+    -- min/max and both claims are served by idx_free_seats, which only holds
+    -- free seats, so booked rows are never walked past.
+    SELECT min(f.slot_id), max(f.slot_id)
+      INTO v_lo, v_hi
+      FROM exam_slot_seats f
+     WHERE f.exam_id = p_exam_id
+       AND f.dept_id = v_dept_id
+       AND f.category_type = v_category
+       AND f.slot_date = p_slot_date
+       AND f.roll_number IS NULL;
+
+    IF v_lo IS NOT NULL THEN
+        v_pivot := v_lo + ((hashtext(p_roll_no)::BIGINT & 2147483647) % (v_hi - v_lo + 1));
+
+        UPDATE exam_slot_seats s
+           SET roll_number = p_roll_no, status = 'BOOKED'
+         WHERE s.exam_id = p_exam_id AND s.slot_id = (
+                SELECT f.slot_id FROM exam_slot_seats f
+                 WHERE f.exam_id = p_exam_id
+                   AND f.dept_id = v_dept_id
+                   AND f.category_type = v_category
+                   AND f.slot_date = p_slot_date
+                   AND f.roll_number IS NULL
+                   AND f.slot_id >= v_pivot
+                 ORDER BY f.slot_id
+                 LIMIT 1
+                 FOR UPDATE SKIP LOCKED
+               )
+        RETURNING s.slot_id INTO v_slot_id;
+
+        IF v_slot_id IS NULL THEN
+            -- Wrap around to the part of the range below the pivot
+            UPDATE exam_slot_seats s
+               SET roll_number = p_roll_no, status = 'BOOKED'
+             WHERE s.exam_id = p_exam_id AND s.slot_id = (
+                    SELECT f.slot_id FROM exam_slot_seats f
+                     WHERE f.exam_id = p_exam_id
+                       AND f.dept_id = v_dept_id
+                       AND f.category_type = v_category
+                       AND f.slot_date = p_slot_date
+                       AND f.roll_number IS NULL
+                       AND f.slot_id < v_pivot
+                     ORDER BY f.slot_id
+                     LIMIT 1
+                     FOR UPDATE SKIP LOCKED
+                   )
+            RETURNING s.slot_id INTO v_slot_id;
+        END IF;
+    END IF;
+
+    IF v_slot_id IS NULL THEN
+        -- Without SKIP LOCKED this also sees seats held by in-flight bookings:
+        -- if any exist the date is contended, not full, and worth retrying.
+        IF EXISTS (
+            SELECT 1 FROM exam_slot_seats f
+             WHERE f.exam_id = p_exam_id
+               AND f.dept_id = v_dept_id
+               AND f.category_type = v_category
+               AND f.slot_date = p_slot_date
+               AND f.roll_number IS NULL
+        ) THEN
+            RETURN QUERY SELECT 'CONTENDED'::VARCHAR, NULL::BIGINT, NULL::DATE, NULL::VARCHAR,
+                v_dept_code, v_category, NULL::TIME, NULL::TIME, v_dept_id;
+            RETURN;
+        END IF;
+        RETURN QUERY SELECT 'FULL'::VARCHAR, NULL::BIGINT, NULL::DATE, NULL::VARCHAR,
+            v_dept_code, v_category, NULL::TIME, NULL::TIME, v_dept_id;
+        RETURN;
+    END IF;
+
+    -- Keep the date picker summary in step within the same transaction
+    UPDATE exam_seat_availability a
+       SET free_seats = a.free_seats - 1
+     WHERE a.exam_id = p_exam_id
+       AND a.dept_id = v_dept_id
+       AND a.category_type = v_category
+       AND a.slot_date = p_slot_date;
+
+    RETURN QUERY
+        SELECT 'BOOKED'::VARCHAR, v_slot_id, p_slot_date, e.exam_name::VARCHAR, v_dept_code, v_category,
+               CASE WHEN v_category = 1 THEN e.day_scholar_start_time ELSE e.hostel_start_time END,
+               CASE WHEN v_category = 1 THEN e.day_scholar_end_time ELSE e.hostel_end_time END,
+               v_dept_id
+          FROM exams e
+         WHERE e.exam_id = p_exam_id;
+END;
+$$;
@@ -0,0 +1,6 @@
+-- Migration: ARCHIVE_EXAM admin jobs
+-- Archiving detaches an exam's seat partition and keeps it as exam_slot_seats_archive_<exam_id>
+-- before the exam is deleted. A Hibernate-created admin_jobs table carries a CHECK listing the
+-- job types known when it was created, which would reject the new type; the application's
+-- JobType enum is the only check kept (DatabaseInitializer drops it too).
+ALTER TABLE admin_jobs DROP CONSTRAINT IF EXISTS admin_jobs_job_type_check;
@@ -0,0 +1,83 @@
+-- Migration: single-round-trip booking function used by BookingService.bookSeat
+-- Same definition as backend/src/main/resources/db/book_exam_seat.sql (applied on startup by DatabaseInitializer)
+
+-- Single-round-trip seat booking.
+-- Validates the student, detects a duplicate booking, claims a published free seat
+-- and returns the booked row with the exam time window, all in one call.
+-- Invoked as: SELECT * FROM book_exam_seat(:rollNo, :examId, :slotDate)
+-- result_code: BOOKED, NO_STUDENT, UNKNOWN_CATEGORY, DUPLICATE, FULL
+CREATE OR REPLACE FUNCTION book_exam_seat(p_roll_no VARCHAR, p_exam_id BIGINT, p_slot_date DATE)
+RETURNS TABLE (
+    result_code VARCHAR,
+    slot_id BIGINT,
+    slot_date DATE,
+    exam_name VARCHAR,
+    dept_code VARCHAR,
+    category_type INT,
+    start_time TIME,
+    end_time TIME
+)
+LANGUAGE plpgsql
+AS $$
+#variable_conflict use_column
+DECLARE
+    v_dept_id BIGINT;
+    v_dept_code VARCHAR;
+    v_category INT;
+    v_slot_id BIGINT;
+BEGIN
+    SELECT s.dept_id,
+           d.dept_code::VARCHAR,
+           CASE s.category WHEN 'DAY' THEN 1 WHEN 'HOSTEL_MALE' THEN 2 WHEN 'HOSTEL_FEMALE' THEN 3 END
+      INTO v_dept_id, v_dept_code, v_category
+      FROM students s
+      JOIN departments d ON d.dept_id = s.dept_id
+     WHERE s.roll_no = p_roll_no;
+
+    IF NOT FOUND THEN
+        RETURN QUERY SELECT 'NO_STUDENT'::VARCHAR, NULL::BIGINT, NULL::DATE, NULL::VARCHAR,
+            NULL::VARCHAR, NULL::INT, NULL::TIME, NULL::TIME;
+        RETURN;
+    END IF;
+
+    IF v_category IS NULL THEN
+        RETURN QUERY SELECT 'UNKNOWN_CATEGORY'::VARCHAR, NULL::BIGINT, NULL::DATE, NULL::VARCHAR,
+            v_dept_code, NULL::INT, NULL::TIME, NULL::TIME;
+        RETURN;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM exam_slot_seats b WHERE b.exam_id = p_exam_id AND b.roll_number = p_roll_no) THEN
+        RETURN QUERY SELECT 'DUPLICATE'::VARCHAR, NULL::BIGINT, NULL::DATE, NULL::VARCHAR,
+            v_dept_code, v_category, NULL::TIME, NULL::TIME;
+        RETURN;
+    END IF;
+
+    UPDATE exam_slot_seats s
+       SET roll_number = p_roll_no, status = 'BOOKED'
+     WHERE s.slot_id = (
+            SELECT f.slot_id FROM exam_slot_seats f
+             WHERE f.exam_id = p_exam_id
+               AND f.dept_id = v_dept_id
+               AND f.category_type = v_category
+               AND f.slot_date = p_slot_date
+               AND f.roll_number IS NULL
+               AND f.book = true
+             LIMIT 1
+             FOR UPDATE SKIP LOCKED
+           )
+    RETURNING s.slot_id INTO v_slot_id;
+
+    IF v_slot_id IS NULL THEN
+        RETURN QUERY SELECT 'FULL'::VARCHAR, NULL::BIGINT, NULL::DATE, NULL::VARCHAR,
+            v_dept_code, v_category, NULL::TIME, NULL::TIME;
+        RETURN;
+    END IF;
+
+    RETURN QUERY
+        SELECT 'BOOKED'::VARCHAR, v_slot_id, p_slot_date, e.exam_name::VARCHAR, v_dept_code, v_category,
+               CASE WHEN v_category = 1 THEN e.day_scholar_start_time ELSE e.hostel_start_time END,
+               CASE WHEN v_category = 1 THEN e.day_scholar_end_time ELSE e.hostel_end_time END
+          FROM exams e
+         WHERE e.exam_id = p_exam_id;
+END;
+$$;
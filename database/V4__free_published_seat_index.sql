@@ -0,0 +1,6 @@
+-- Migration: partial index for the contention-spreading seat picker
+-- Only free, published seats are indexed, so book_exam_seat() never walks past
+-- booked rows and its min/max range probes stay O(log n) as a date fills up.
+CREATE INDEX IF NOT EXISTS idx_free_published_seats
+ON exam_slot_seats (exam_id, dept_id, category_type, slot_date, slot_id)
+WHERE roll_number IS NULL AND book = true;
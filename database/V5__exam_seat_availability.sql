@@ -0,0 +1,25 @@
+-- Migration: seat availability summary for the student date picker
+-- One row per (exam, department, category, date). free_seats counts published,
+-- unbooked seats and is adjusted by every booking, cancellation, publish and stop
+-- in the same transaction. Rebuild with POST /api/admin/availability/rebuild.
+CREATE TABLE IF NOT EXISTS exam_seat_availability (
+    exam_id BIGINT NOT NULL,
+    dept_id BIGINT NOT NULL,
+    category_type INTEGER NOT NULL,
+    slot_date DATE NOT NULL,
+    total_seats INTEGER NOT NULL DEFAULT 0,
+    published_seats INTEGER NOT NULL DEFAULT 0,
+    free_seats INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (exam_id, dept_id, category_type, slot_date)
+);
+
+INSERT INTO exam_seat_availability
+    (exam_id, dept_id, category_type, slot_date, total_seats, published_seats, free_seats)
+SELECT exam_id, dept_id, category_type, slot_date,
+       COUNT(*),
+       COUNT(*) FILTER (WHERE book),
+       COUNT(*) FILTER (WHERE book AND roll_number IS NULL)
+FROM exam_slot_seats
+WHERE dept_id IS NOT NULL AND category_type IS NOT NULL
+GROUP BY exam_id, dept_id, category_type, slot_date
+ON CONFLICT (exam_id, dept_id, category_type, slot_date) DO NOTHING;
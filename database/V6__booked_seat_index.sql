@@ -0,0 +1,6 @@
+-- Migration: partial index for the admin bookings list
+-- GET /api/admin/bookings pages through booked seats by slot_id (keyset pagination);
+-- indexing only booked rows keeps each page an index range scan however many free seats exist.
+CREATE INDEX IF NOT EXISTS idx_booked_seats
+ON exam_slot_seats (slot_id)
+WHERE roll_number IS NOT NULL;
@@ -0,0 +1,40 @@
+-- Migration: counted-capacity inventory model
+-- An exam with inventory_model = 'COUNTED' keeps one exam_capacity row per
+-- (exam, department, category, date) with its capacity, booked_count and a published flag,
+-- and one exam_bookings row per booked student, instead of one exam_slot_seats row per seat.
+-- Booking ids are drawn from the seat id sequence, so slot_id and booking_id never collide.
+ALTER TABLE exams ADD COLUMN IF NOT EXISTS inventory_model VARCHAR(16) NOT NULL DEFAULT 'SEATS';
+
+CREATE TABLE IF NOT EXISTS exam_capacity (
+    exam_id BIGINT NOT NULL REFERENCES exams(exam_id),
+    dept_id BIGINT NOT NULL REFERENCES departments(dept_id),
+    category_type INTEGER NOT NULL,
+    slot_date DATE NOT NULL,
+    capacity INTEGER NOT NULL,
+    booked_count INTEGER NOT NULL DEFAULT 0,
+    published BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (exam_id, dept_id, category_type, slot_date),
+    CHECK (booked_count >= 0 AND booked_count <= capacity)
+);
+
+CREATE TABLE IF NOT EXISTS exam_bookings (
+    booking_id BIGINT PRIMARY KEY DEFAULT nextval('exam_slot_seats_slot_id_seq'),
+    exam_id BIGINT NOT NULL,
+    roll_no VARCHAR(20) NOT NULL,
+    dept_id BIGINT NOT NULL,
+    category_type INTEGER NOT NULL,
+    slot_date DATE NOT NULL,
+    booked_at TIMESTAMP NOT NULL DEFAULT now(),
+    UNIQUE (exam_id, roll_no),
+    FOREIGN KEY (exam_id, dept_id, category_type, slot_date) REFERENCES exam_capacity
+);
+
+CREATE INDEX IF NOT EXISTS idx_exam_bookings_roll ON exam_bookings (roll_no);
+
+-- Booked seats of both models (admin bookings list, My Booking)
+CREATE OR REPLACE VIEW exam_booked_seats AS
+SELECT slot_id, exam_id, dept_id, category_type, slot_date, roll_number, status
+FROM exam_slot_seats WHERE roll_number IS NOT NULL
+UNION ALL
+SELECT booking_id, exam_id, dept_id, category_type, slot_date, roll_no, 'BOOKED'
+FROM exam_bookings;
@@ -0,0 +1,24 @@
+-- Migration: persisted background admin jobs
+-- Exam creation/deletion, publish/stop and slot generation run as jobs that commit per
+-- department or per chunk of seats. The row is the job's whole state: jobs left RUNNING by a
+-- restart are queued again and resume, skipping the chunks already committed.
+CREATE TABLE IF NOT EXISTS admin_jobs (
+    job_id BIGSERIAL PRIMARY KEY,
+    job_type VARCHAR(32) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    exam_id BIGINT,
+    params TEXT,
+    progress_done INTEGER NOT NULL DEFAULT 0,
+    progress_total INTEGER NOT NULL DEFAULT 0,
+    progress_unit VARCHAR(16),
+    result TEXT,
+    error VARCHAR(1000),
+    cancel_requested BOOLEAN NOT NULL DEFAULT FALSE,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    started_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_admin_jobs_status ON admin_jobs (status);
@@ -0,0 +1,55 @@
+-- Migration: publication state per (exam, department)
+-- Publish and stop used to rewrite a flag on every seat (exam_slot_seats.book) or capacity row
+-- (exam_capacity.published). They now flip one exam_dept_publication row per department, which
+-- the booking statements and the availability reads join against. book_exam_seat() checks it
+-- (see V3). exam_seat_availability.free_seats now counts unbooked seats whether or not the
+-- department is published, so the summary is recounted.
+CREATE TABLE IF NOT EXISTS exam_dept_publication (
+    exam_id BIGINT NOT NULL,
+    dept_id BIGINT NOT NULL,
+    published BOOLEAN NOT NULL DEFAULT FALSE,
+    updated_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (exam_id, dept_id)
+);
+
+INSERT INTO exam_dept_publication (exam_id, dept_id, published, updated_at)
+SELECT exam_id, dept_id, COALESCE(bool_or(book), FALSE), now()
+FROM exam_slot_seats
+WHERE dept_id IS NOT NULL
+GROUP BY exam_id, dept_id
+ON CONFLICT (exam_id, dept_id) DO NOTHING;
+
+INSERT INTO exam_dept_publication (exam_id, dept_id, published, updated_at)
+SELECT exam_id, dept_id, bool_or(published), now()
+FROM exam_capacity
+GROUP BY exam_id, dept_id
+ON CONFLICT (exam_id, dept_id) DO NOTHING;
+
+DELETE FROM exam_seat_availability;
+
+INSERT INTO exam_seat_availability
+    (exam_id, dept_id, category_type, slot_date, total_seats, published_seats, free_seats)
+SELECT s.exam_id, s.dept_id, s.category_type, s.slot_date,
+       COUNT(*),
+       CASE WHEN p.published THEN COUNT(*) ELSE 0 END,
+       COUNT(*) FILTER (WHERE s.roll_number IS NULL)
+FROM exam_slot_seats s
+LEFT JOIN exam_dept_publication p ON p.exam_id = s.exam_id AND p.dept_id = s.dept_id
+WHERE s.dept_id IS NOT NULL AND s.category_type IS NOT NULL
+GROUP BY s.exam_id, s.dept_id, s.category_type, s.slot_date, p.published;
+
+INSERT INTO exam_seat_availability
+    (exam_id, dept_id, category_type, slot_date, total_seats, published_seats, free_seats)
+SELECT c.exam_id, c.dept_id, c.category_type, c.slot_date, c.capacity,
+       CASE WHEN p.published THEN c.capacity ELSE 0 END,
+       c.capacity - c.booked_count
+FROM exam_capacity c
+LEFT JOIN exam_dept_publication p ON p.exam_id = c.exam_id AND p.dept_id = c.dept_id;
+
+-- Also drops the indexes built on the flags (idx_slot_seat_booking, idx_free_published_seats, idx_exam_book)
+ALTER TABLE exam_slot_seats DROP COLUMN IF EXISTS book;
+ALTER TABLE exam_capacity DROP COLUMN IF EXISTS published;
+
+CREATE INDEX IF NOT EXISTS idx_free_seats
+ON exam_slot_seats (exam_id, dept_id, category_type, slot_date, slot_id)
+WHERE roll_number IS NULL;
@@ -3,7 +3,7 @@ import axios from "axios";
 import { Button } from "@/components/ui/button";
 import { Input } from "@/components/ui/input";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
-import { Loader2, LayoutDashboard, Database, Users, Calendar, LogOut, GraduationCap, Menu, X, FileText, Pencil, Trash2, Lock, Unlock, Eye, EyeOff } from "lucide-react";
+import { Loader2, LayoutDashboard, Database, Users, Calendar, LogOut, GraduationCap, Menu, X, FileText, Pencil, Trash2, Lock, Unlock, Eye, EyeOff, Download } from "lucide-react";
 import { useAuth } from "../context/AuthContext";
 
 export default function AdminDashboard() {
@@ -329,18 +329,33 @@ function BookingViewer() {
     const [filterCategory, setFilterCategory] = useState("ALL");
     const [filterDate, setFilterDate] = useState("ALL");
     const [filterTime, setFilterTime] = useState("ALL");
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
+
+    // Pages are keyset-paginated by slot id; X-Next-Cursor is absent on the last page
+    const loadBookings = async (cursor) => {
+        const res = await axios.get("/api/admin/bookings", { params: cursor ? { afterSlotId: cursor } : {} });
+        setBookings(prev => cursor ? [...prev, ...res.data] : res.data);
+        setNextCursor(res.headers["x-next-cursor"] || null);
+    };
 
     useEffect(() => {
-        axios.get("/api/admin/bookings").then(res => {
-            console.log("Bookings Data:", res.data); // Debugging
-            setBookings(res.data);
-        });
+        loadBookings(null);
     }, []);
 
-    const handleDelete = async (bookingId) => {
+    const loadMore = async () => {
+        setLoadingMore(true);
+        try {
+            await loadBookings(nextCursor);
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
+    const handleDelete = async (bookingId, examId) => {
         if (!confirm("Are you sure you want to delete this booking?")) return;
         try {
-            await axios.delete(`/api/admin/bookings/${bookingId}`);
+            await axios.delete(`/api/admin/bookings/${bookingId}`, { params: { examId } });
             setBookings(bookings.filter(b => b.bookingId !== bookingId));
             alert("Booking deleted successfully.");
         } catch (err) {
@@ -469,7 +484,7 @@ function BookingViewer() {
                                             variant="outline"
                                             size="icon"
                                             className="h-8 w-8 text-gray-400 hover:text-red-600 hover:border-red-200"
-                                            onClick={() => handleDelete(b.bookingId)}
+                                            onClick={() => handleDelete(b.bookingId, b.examId)}
                                         >
                                             <Trash2 className="h-4 w-4" />
                                         </Button>
@@ -486,8 +501,15 @@ function BookingViewer() {
                     </tbody>
                 </table>
             </div>
-            <div className="text-xs text-gray-400 text-right mt-2">
-                Showing {filteredBookings.length} of {bookings.length} bookings
+            <div className="flex items-center justify-end gap-3 mt-2">
+                <span className="text-xs text-gray-400">
+                    Showing {filteredBookings.length} of {bookings.length}{nextCursor ? "+" : ""} bookings
+                </span>
+                {nextCursor && (
+                    <Button variant="outline" size="sm" onClick={loadMore} disabled={loadingMore}>
+                        {loadingMore ? "Loading..." : "Load more"}
+                    </Button>
+                )}
             </div>
         </div >
     );
@@ -498,22 +520,48 @@ function StudentDataManager() {
     const [departments, setDepartments] = useState([]);
     const [uploading, setUploading] = useState(false);
     const [uploadResult, setUploadResult] = useState(null);
+    const [uploadProgress, setUploadProgress] = useState(null);
+    const [allSheets, setAllSheets] = useState(false);
     const [editingStudent, setEditingStudent] = useState(null);
     const [editForm, setEditForm] = useState({ name: "", email: "", deptId: "", category: "DAY" });
     const [sortKey, setSortKey] = useState("rollNo");
     const [sortDirection, setSortDirection] = useState("asc");
+    const [filters, setFilters] = useState({ rollPrefix: "", deptCode: "", category: "" });
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
 
     useEffect(() => {
-        loadStudents();
         loadDepartments();
     }, []);
 
-    const loadStudents = () => {
-        axios.get("/api/admin/student-master")
-            .then(res => setStudents(res.data))
+    useEffect(() => {
+        // Small debounce so typing a roll prefix sends one request, not one per key
+        const timer = setTimeout(() => loadStudents(null), 300);
+        return () => clearTimeout(timer);
+    }, [filters]);
+
+    // Filtering happens on the server; pages are keyset-paginated by roll number
+    const loadStudents = (cursor) => {
+        const params = {};
+        Object.entries(filters).forEach(([key, value]) => { if (value) params[key] = value; });
+        if (cursor) params.afterRollNo = cursor;
+        return axios.get("/api/admin/student-master", { params })
+            .then(res => {
+                setStudents(prev => cursor ? [...prev, ...res.data] : res.data);
+                setNextCursor(res.headers["x-next-cursor"] || null);
+            })
             .catch(err => console.error(err));
     };
 
+    const loadMore = async () => {
+        setLoadingMore(true);
+        try {
+            await loadStudents(nextCursor);
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
     const loadDepartments = () => {
         axios.get("/api/admin/departments")
             .then(res => setDepartments(res.data))
@@ -521,26 +569,41 @@ function StudentDataManager() {
     };
 
     const handleFileUpload = async (e) => {
-        const file = e.target.files[0];
-        if (!file) return;
+        const files = Array.from(e.target.files);
+        if (files.length === 0) return;
 
         const formData = new FormData();
-        formData.append("file", file);
+        files.forEach(file => formData.append("files", file));
+        formData.append("allSheets", allSheets);
 
         setUploading(true);
         setUploadResult(null);
+        setUploadProgress(null);
 
         try {
-            const res = await axios.post("/api/admin/student-master/upload", formData, {
+            // The upload runs as a background job on the server; poll it for progress
+            const start = await axios.post("/api/admin/student-master/upload-jobs", formData, {
                 headers: { "Content-Type": "multipart/form-data" }
             });
-            setUploadResult(res.data);
-            loadStudents(); // Reload students after upload
-            e.target.value = null; // reset input
+            let job = start.data;
+            setUploadProgress(job);
+            while (job.status === "QUEUED" || job.status === "RUNNING") {
+                await new Promise(resolve => setTimeout(resolve, 1000));
+                job = (await axios.get(`/api/admin/student-master/upload-jobs/${job.jobId}`)).data;
+                setUploadProgress(job);
+            }
+            if (job.status === "FAILED") {
+                alert("Upload failed: " + job.message);
+            } else {
+                setUploadResult(job.result);
+            }
+            loadStudents(null); // Reload students after upload
         } catch (error) {
-            alert("Upload failed: " + (error.response?.data || error.message));
+            alert("Upload failed: " + (error.response?.data?.message || error.response?.data || error.message));
         } finally {
+            e.target.value = null; // reset input
             setUploading(false);
+            setUploadProgress(null);
         }
     };
 
@@ -560,7 +623,7 @@ function StudentDataManager() {
             await axios.put(`/api/admin/students/${editingStudent.rollNo}`, editForm);
             alert("Student updated!");
             setEditingStudent(null);
-            loadStudents();
+            loadStudents(null);
         } catch (error) {
             alert("Update failed: " + (error.response?.data || error.message));
         }
@@ -593,18 +656,35 @@ function StudentDataManager() {
         <div className="space-y-6">
             <div className="flex justify-between items-start">
                 <div>
-                    <h3 className="text-lg font-bold">Uploaded Students ({students.length})</h3>
+                    <h3 className="text-lg font-bold">Uploaded Students ({students.length}{nextCursor ? "+" : ""})</h3>
                     <p className="text-sm text-gray-500">View uploaded student master data from Excel. Click headers to sort.</p>
                 </div>
-                <div>
+                <div className="flex flex-col items-end gap-2">
                     <label className={`cursor-pointer bg-black hover:bg-gray-800 text-white px-4 py-2 rounded-lg font-bold text-sm transition-colors flex items-center gap-2 ${uploading ? 'opacity-50 cursor-not-allowed' : ''}`}>
                         {uploading ? <Loader2 className="animate-spin h-4 w-4" /> : <Database className="h-4 w-4" />}
                         Upload Master Excel
-                        <input type="file" accept=".xlsx" className="hidden" onChange={handleFileUpload} disabled={uploading} />
+                        <input type="file" accept=".xlsx" multiple className="hidden" onChange={handleFileUpload} disabled={uploading} />
+                    </label>
+                    <label className="text-xs text-gray-500 flex items-center gap-1">
+                        <input type="checkbox" checked={allSheets} onChange={e => setAllSheets(e.target.checked)} disabled={uploading} />
+                        Read all sheets
                     </label>
                 </div>
             </div>
 
+            {uploadProgress && (
+                <div className="bg-white border rounded-xl p-4 shadow-sm text-sm flex flex-wrap items-center gap-x-6 gap-y-1">
+                    <span className="font-bold flex items-center gap-2">
+                        <Loader2 className="animate-spin h-4 w-4" />
+                        {uploadProgress.status === "QUEUED" ? "Waiting for another upload..." : "Uploading " + uploadProgress.files.join(", ")}
+                    </span>
+                    <span>Rows processed: <b>{uploadProgress.rowsProcessed}</b></span>
+                    <span className="text-green-700">Inserted: <b>{uploadProgress.insertedCount}</b></span>
+                    <span className="text-orange-700">Errors so far: <b>{uploadProgress.skippedCount}</b></span>
+                    <span className="text-gray-500">{uploadProgress.rowsPerSecond} rows/s</span>
+                </div>
+            )}
+
             {/* Edit Modal / Overlay */}
             {editingStudent && (
                 <div className="fixed inset-0 bg-black/50 z-50 flex items-center justify-center p-4">
@@ -692,6 +772,23 @@ function StudentDataManager() {
                 </div>
             )}
 
+            <div className="flex flex-wrap gap-3">
+                <Input className="max-w-xs" placeholder="Roll number starts with..." value={filters.rollPrefix}
+                    onChange={e => setFilters({ ...filters, rollPrefix: e.target.value })} />
+                <select className="h-10 rounded-md border border-input bg-background px-3 py-2 text-sm"
+                    value={filters.deptCode} onChange={e => setFilters({ ...filters, deptCode: e.target.value })}>
+                    <option value="">All Departments</option>
+                    {departments.map(d => <option key={d.deptId} value={d.deptCode}>{d.deptCode}</option>)}
+                </select>
+                <select className="h-10 rounded-md border border-input bg-background px-3 py-2 text-sm"
+                    value={filters.category} onChange={e => setFilters({ ...filters, category: e.target.value })}>
+                    <option value="">All Categories</option>
+                    <option value="DAY">DAY</option>
+                    <option value="HOSTEL_MALE">HOSTEL_MALE</option>
+                    <option value="HOSTEL_FEMALE">HOSTEL_FEMALE</option>
+                </select>
+            </div>
+
             <div className="border rounded-xl overflow-hidden">
                 <table className="w-full text-sm text-left">
                     <thead className="bg-gray-100 text-gray-700 font-bold">
@@ -736,6 +833,127 @@ function StudentDataManager() {
                     </tbody>
                 </table>
             </div>
+            {nextCursor && (
+                <div className="flex justify-end">
+                    <Button variant="outline" size="sm" onClick={loadMore} disabled={loadingMore}>
+                        {loadingMore ? "Loading..." : "Load more"}
+                    </Button>
+                </div>
+            )}
+        </div>
+    );
+}
+
+// Exports are built server-side; fetch as a blob so the auth header is sent, then save it
+async function downloadExport(examId, type, format) {
+    try {
+        const res = await axios.get("/api/admin/exports/bookings", {
+            params: { examId, type, format },
+            responseType: "blob",
+        });
+        const url = URL.createObjectURL(res.data);
+        const link = document.createElement("a");
+        link.href = url;
+        link.download = `exam-${examId}-${type}.${format}`;
+        link.click();
+        URL.revokeObjectURL(url);
+    } catch (e) {
+        alert("Export failed: " + e.message);
+    }
+}
+
+// Staggered publish: one department opens every staggerMinutes from startAt and
+// closes windowMinutes later; the server fires the entries, even across restarts
+function PublishScheduler({ examId, deptStats }) {
+    const [entries, setEntries] = useState([]);
+    const [form, setForm] = useState({ startAt: "", staggerMinutes: 5, windowMinutes: "" });
+
+    const load = async () => {
+        try {
+            const res = await axios.get(`/api/admin/exams/${examId}/publish-schedule`);
+            setEntries(res.data);
+        } catch (e) { console.error(e); }
+    };
+
+    useEffect(() => { load(); }, [examId]);
+
+    const deptCode = (deptId) => (deptStats.find(ds => ds.deptId === deptId) || {}).deptCode || deptId;
+
+    const submit = async () => {
+        if (!form.startAt) { alert("Pick a start time"); return; }
+        try {
+            await axios.post(`/api/admin/exams/${examId}/publish-schedule`, {
+                startAt: form.startAt,
+                staggerMinutes: Number(form.staggerMinutes) || 0,
+                windowMinutes: form.windowMinutes ? Number(form.windowMinutes) : null
+            });
+            load();
+        } catch (e) { alert("Schedule failed: " + (e.response?.data?.message || e.message)); }
+    };
+
+    const cancelAll = async () => {
+        if (!confirm("Cancel all pending scheduled publishes?")) return;
+        try { await axios.delete(`/api/admin/exams/${examId}/publish-schedule`); load(); } catch (e) { alert("Failed: " + e.message); }
+    };
+
+    const cancelEntry = async (scheduleId) => {
+        try { await axios.post(`/api/admin/publish-schedule/${scheduleId}/cancel`); load(); } catch (e) { alert("Failed: " + (e.response?.data?.message || e.message)); }
+    };
+
+    return (
+        <div>
+            <h5 className="font-bold text-lg text-gray-900 mb-4 flex items-center gap-2">
+                <Eye className="h-5 w-5 text-indigo-600" />
+                Scheduled Publish
+            </h5>
+            <div className="bg-white rounded-xl border border-gray-200 p-4 shadow-sm space-y-4">
+                <div className="flex flex-wrap items-end gap-3">
+                    <div>
+                        <label className="text-xs font-bold text-gray-500 uppercase">First department at</label>
+                        <Input type="datetime-local" value={form.startAt} onChange={e => setForm({ ...form, startAt: e.target.value })} />
+                    </div>
+                    <div>
+                        <label className="text-xs font-bold text-gray-500 uppercase">Then one every (min)</label>
+                        <Input type="number" min="0" value={form.staggerMinutes} onChange={e => setForm({ ...form, staggerMinutes: e.target.value })} />
+                    </div>
+                    <div>
+                        <label className="text-xs font-bold text-gray-500 uppercase">Open for (min, optional)</label>
+                        <Input type="number" min="1" value={form.windowMinutes} onChange={e => setForm({ ...form, windowMinutes: e.target.value })} />
+                    </div>
+                    <Button className="bg-indigo-600 hover:bg-indigo-700 text-white font-bold" onClick={submit}>Schedule</Button>
+                    {entries.some(en => en.status === "PENDING") && (
+                        <Button variant="outline" className="text-red-600 border-red-200 hover:bg-red-50" onClick={cancelAll}>Cancel pending</Button>
+                    )}
+                </div>
+                {entries.length > 0 && (
+                    <table className="w-full text-sm">
+                        <thead className="bg-gray-50 text-gray-500 font-bold uppercase text-xs">
+                            <tr>
+                                <th className="p-2 text-left">When</th>
+                                <th className="p-2 text-left">Department</th>
+                                <th className="p-2 text-center">Action</th>
+                                <th className="p-2 text-center">Status</th>
+                                <th className="p-2"></th>
+                            </tr>
+                        </thead>
+                        <tbody className="divide-y divide-gray-100">
+                            {entries.map(en => (
+                                <tr key={en.scheduleId}>
+                                    <td className="p-2 font-mono">{String(en.fireAt).replace("T", " ")}</td>
+                                    <td className="p-2 font-bold">{deptCode(en.deptId)}</td>
+                                    <td className="p-2 text-center">{en.action}</td>
+                                    <td className="p-2 text-center" title={en.result || ""}>{en.status}</td>
+                                    <td className="p-2 text-right">
+                                        {en.status === "PENDING" && (
+                                            <Button size="sm" variant="outline" onClick={() => cancelEntry(en.scheduleId)}>Cancel</Button>
+                                        )}
+                                    </td>
+                                </tr>
+                            ))}
+                        </tbody>
+                    </table>
+                )}
+            </div>
         </div>
     );
 }
@@ -746,6 +964,7 @@ function ExamManager() {
     const [departments, setDepartments] = useState([]);
     const [loading, setLoading] = useState(false);
     const [showQuotas, setShowQuotas] = useState(false);
+    const [jobProgress, setJobProgress] = useState(null);
     const [expandedExamId, setExpandedExamId] = useState(null);
     const [examQuotas, setExamQuotas] = useState([]);
     const [formData, setFormData] = useState({
@@ -759,7 +978,8 @@ function ExamManager() {
         dayScholarStartTime: "09:00",
         dayScholarEndTime: "12:00",
         hostelStartTime: "13:00",
-        hostelEndTime: "16:00"
+        hostelEndTime: "16:00",
+        inventoryModel: "SEATS"
     });
 
     useEffect(() => { loadData(); }, []);
@@ -888,6 +1108,25 @@ function ExamManager() {
         }));
     };
 
+    // Heavy exam operations run as background jobs on the server; poll until they finish
+    const runAdminJob = async (url, body) => {
+        let job = (await axios.post(url, body)).data;
+        setJobProgress(job);
+        try {
+            while (job.status === "QUEUED" || job.status === "RUNNING") {
+                await new Promise(resolve => setTimeout(resolve, 1000));
+                job = (await axios.get(`/api/admin/jobs/${job.jobId}`)).data;
+                setJobProgress(job);
+            }
+        } finally {
+            setJobProgress(null);
+        }
+        if (job.status !== "COMPLETED") {
+            throw new Error(job.error || job.status);
+        }
+        return job.result;
+    };
+
     const handleSubmit = async (e) => {
         e.preventDefault();
         setLoading(true);
@@ -904,6 +1143,7 @@ function ExamManager() {
                 dayScholarEndTime: formData.dayScholarEndTime,
                 hostelStartTime: formData.hostelStartTime,
                 hostelEndTime: formData.hostelEndTime,
+                inventoryModel: formData.inventoryModel,
 
                 deptCategories: formData.deptCategories.map(d => ({
                     deptId: d.deptId,
@@ -913,8 +1153,8 @@ function ExamManager() {
                 }))
             };
 
-            const res = await axios.post("/api/admin/exam/initialize", payload);
-            alert(`Exam created! ID: ${res.data.examId}, Slots: ${res.data.totalSlotsGenerated}`);
+            const result = await runAdminJob("/api/admin/jobs/exam-create", payload);
+            alert(`Exam created! ID: ${result.examId}, Slots: ${result.totalSlotsGenerated}`);
             loadData();
             setShowQuotas(false);
             setFormData(prev => ({
@@ -938,6 +1178,19 @@ function ExamManager() {
 
     return (
         <div className="space-y-8">
+            {jobProgress && (
+                <div className="p-4 rounded-xl border border-blue-200 bg-blue-50 text-sm text-blue-900 flex items-center justify-between gap-4">
+                    <span className="font-semibold">
+                        {jobProgress.status === "QUEUED" ? "Waiting for another admin job..." : jobProgress.type.replace("_", " ").toLowerCase()}
+                        {jobProgress.progressTotal > 0 && ` — ${jobProgress.progressDone} of ${jobProgress.progressTotal} ${jobProgress.progressUnit} (${jobProgress.percent}%)`}
+                    </span>
+                    {jobProgress.type !== "DELETE_EXAM" && !jobProgress.cancelRequested && (
+                        <Button variant="outline" size="sm" onClick={() => axios.post(`/api/admin/jobs/${jobProgress.jobId}/cancel`)}>
+                            Cancel
+                        </Button>
+                    )}
+                </div>
+            )}
             <div className="bg-white rounded-3xl border border-gray-200 shadow-sm p-8">
                 <div className="mb-8">
                     <h3 className="text-2xl font-black text-gray-900 tracking-tight">Create Exam Slots</h3>
@@ -1024,6 +1277,18 @@ function ExamManager() {
                                 </div>
                             </div>
 
+                            <div className="col-span-1 md:col-span-2 space-y-2">
+                                <label className="text-xs font-bold text-gray-500 uppercase tracking-wider">Seat Inventory</label>
+                                <select
+                                    className="flex h-11 w-full rounded-xl border border-gray-200 bg-gray-50 px-3 text-sm focus:bg-white transition-colors"
+                                    value={formData.inventoryModel}
+                                    onChange={e => setFormData({ ...formData, inventoryModel: e.target.value })}
+                                >
+                                    <option value="SEATS">One row per seat</option>
+                                    <option value="COUNTED">Counted capacity (large exams)</option>
+                                </select>
+                            </div>
+
                             <div className="col-span-1 md:col-span-2 space-y-2">
                                 <label className="text-xs font-bold text-gray-500 uppercase tracking-wider">Exam Purpose</label>
                                 <textarea
@@ -1172,7 +1437,7 @@ function ExamManager() {
                                             onClick={async (e) => {
                                                 e.stopPropagation();
                                                 if (confirm("Are you sure you want to delete this exam?")) {
-                                                    try { await axios.delete(`/api/admin/exams/${exam.examId}`); loadData(); } catch (err) { alert("Delete failed: " + err.message); }
+                                                    try { await runAdminJob(`/api/admin/jobs/exam-delete/${exam.examId}`); loadData(); } catch (err) { alert("Delete failed: " + err.message); }
                                                 }
                                             }}
                                         >
@@ -1196,8 +1461,8 @@ function ExamManager() {
                                                     onClick={async () => {
                                                         if (confirm("Publish ALL departments?")) {
                                                             try {
-                                                                const res = await axios.post(`/api/admin/exams/${exam.examId}/publish`, {});
-                                                                alert(`Published all! ${res.data.slotsPublished} slots.`);
+                                                                const result = await runAdminJob(`/api/admin/jobs/exam-publish/${exam.examId}`);
+                                                                alert(`Published all! ${result.slotsPublished} slots.`);
                                                                 // Reload stats
                                                                 const dpReq = await axios.get(`/api/admin/exams/${exam.examId}/department-stats`);
                                                                 exam.deptStats = dpReq.data;
@@ -1211,8 +1476,8 @@ function ExamManager() {
                                                     onClick={async () => {
                                                         if (confirm("STOP all bookings?")) {
                                                             try {
-                                                                const res = await axios.post(`/api/admin/exams/${exam.examId}/stop`);
-                                                                alert(`Stopped! ${res.data.slotsStopped} slots.`);
+                                                                const result = await runAdminJob(`/api/admin/jobs/exam-stop/${exam.examId}`);
+                                                                alert(`Stopped! ${result.slotsStopped} slots.`);
                                                                 // Reload stats
                                                                 const dpReq = await axios.get(`/api/admin/exams/${exam.examId}/department-stats`);
                                                                 exam.deptStats = dpReq.data;
@@ -1222,6 +1487,14 @@ function ExamManager() {
                                                     }}>
                                                     <EyeOff className="h-4 w-4 mr-2" /> Stop All
                                                 </Button>
+                                                <Button variant="outline" className="font-bold"
+                                                    onClick={() => downloadExport(exam.examId, "bookings", "csv")}>
+                                                    <Download className="h-4 w-4 mr-2" /> Bookings CSV
+                                                </Button>
+                                                <Button variant="outline" className="font-bold"
+                                                    onClick={() => downloadExport(exam.examId, "roster", "xlsx")}>
+                                                    <Download className="h-4 w-4 mr-2" /> Roster XLSX
+                                                </Button>
                                             </div>
                                         </div>
 
@@ -1305,6 +1578,9 @@ function ExamManager() {
                                                 </div>
                                             </div>
 
+                                            {/* Scheduled publish windows */}
+                                            <PublishScheduler examId={exam.examId} deptStats={exam.deptStats || []} />
+
                                             {/* Day-wise Stats Table */}
                                             <div>
                                                 <h5 className="font-bold text-lg text-gray-900 mb-4 flex items-center gap-2">
@@ -1,4 +1,4 @@
-import { useEffect, useState } from "react";
+import { useEffect, useRef, useState } from "react";
 import axios from "axios";
 import { Loader2, User, Calendar, ChevronRight, Info, LogOut, Briefcase, X, AlertTriangle, CheckCircle, Clock, MapPin } from "lucide-react";
 import { useNavigate } from "react-router-dom";
@@ -16,6 +16,10 @@ export default function StudentDashboard() {
     const [bookingLoading, setBookingLoading] = useState(false);
     const [confirmModal, setConfirmModal] = useState(null);
     const [ticketModal, setTicketModal] = useState(null); // New state for viewing ticket
+    const [queueStatus, setQueueStatus] = useState(null); // Waiting room position while not admitted
+    const queueToken = useRef(null);
+    const queuePoll = useRef(null);
+    const availabilityStream = useRef(null); // AbortController of the live availability stream
     const { logout } = useAuth();
     const [studentEmail, setStudentEmail] = useState("Student");
     const navigate = useNavigate();
@@ -40,6 +44,10 @@ export default function StudentDashboard() {
             }
         }
         loadData();
+        return () => {
+            clearTimeout(queuePoll.current);
+            availabilityStream.current?.abort();
+        };
     }, []);
 
     const loadData = async () => {
@@ -89,11 +97,61 @@ export default function StudentDashboard() {
 
         setSelectedExam(exam);
         setDatesLoading(true);
+        clearTimeout(queuePoll.current);
+        availabilityStream.current?.abort();
+        queueToken.current = null;
         try {
             const token = localStorage.getItem("token");
-            const res = await axios.get(`/api/student/available-dates/${exam.examId}`, {
+            const res = await axios.post(`/api/student/queue/${exam.examId}`, {}, {
                 headers: { Authorization: `Bearer ${token.replace(/"/g, '')}` }
             });
+            await waitForTurn(exam, res.data);
+        } catch (err) {
+            console.error("Queue join error:", err);
+            toast.error("Failed to load available dates.");
+            setAvailableDates([]);
+            setDatesLoading(false);
+        }
+    };
+
+    // Poll the waiting room until admitted, then load dates with the queue token
+    const waitForTurn = async (exam, ticket) => {
+        queueToken.current = ticket.token || null;
+        if (ticket.admitted) {
+            setQueueStatus(null);
+            await loadDates(exam);
+            watchAvailability(exam);
+            return;
+        }
+        setQueueStatus(ticket);
+        queuePoll.current = setTimeout(async () => {
+            try {
+                const token = localStorage.getItem("token");
+                const res = await axios.get(`/api/student/queue/${exam.examId}/status`, {
+                    params: { token: ticket.token },
+                    headers: { Authorization: `Bearer ${token.replace(/"/g, '')}` }
+                });
+                await waitForTurn(exam, res.data);
+            } catch (err) {
+                // Ticket expired: join again
+                selectExam(exam);
+            }
+        }, 2000);
+    };
+
+    const authHeaders = () => {
+        const token = localStorage.getItem("token");
+        const headers = { Authorization: `Bearer ${token.replace(/"/g, '')}` };
+        if (queueToken.current) headers["X-Queue-Token"] = queueToken.current;
+        return headers;
+    };
+
+    const loadDates = async (exam) => {
+        setDatesLoading(true);
+        try {
+            const res = await axios.get(`/api/student/available-dates/${exam.examId}`, {
+                headers: authHeaders()
+            });
             setAvailableDates(res.data.availableDates || []);
         } catch (err) {
             console.error("Load dates error:", err);
@@ -104,6 +162,65 @@ export default function StudentDashboard() {
         }
     };
 
+    // Merge a pushed availability event into the date list.
+    // Snapshots replace the list; deltas only carry the dates that changed.
+    const applyAvailability = (update) => {
+        const withTimes = (d) => ({ ...d, startTime: update.startTime, endTime: update.endTime });
+        setAvailableDates((current) => {
+            if (update.snapshot) return update.dates.map(withTimes);
+            const byDate = new Map(current.map(d => [d.slotDate, d]));
+            update.dates.forEach(d => {
+                if (d.availableCount > 0) byDate.set(d.slotDate, { ...(byDate.get(d.slotDate) || withTimes(d)), availableCount: d.availableCount });
+                else byDate.delete(d.slotDate);
+            });
+            return [...byDate.values()].sort((a, b) => a.slotDate.localeCompare(b.slotDate));
+        });
+    };
+
+    // Server-Sent Events over fetch (EventSource cannot send the Authorization header)
+    const watchAvailability = async (exam) => {
+        const controller = new AbortController();
+        availabilityStream.current = controller;
+        try {
+            const token = localStorage.getItem("token");
+            const res = await fetch(`/api/student/availability-stream/${exam.examId}`, {
+                headers: { Authorization: `Bearer ${token.replace(/"/g, '')}`, Accept: "text/event-stream" },
+                signal: controller.signal
+            });
+            if (!res.ok || !res.body) return;
+            const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+            let buffer = "";
+            while (true) {
+                const { value, done } = await reader.read();
+                if (done) break;
+                buffer += value;
+                let boundary;
+                while ((boundary = buffer.indexOf("\n\n")) >= 0) {
+                    const block = buffer.slice(0, boundary);
+                    buffer = buffer.slice(boundary + 2);
+                    const data = block.split("\n").filter(l => l.startsWith("data:")).map(l => l.slice(5)).join("\n");
+                    if (data) applyAvailability(JSON.parse(data));
+                }
+            }
+        } catch (err) {
+            if (controller.signal.aborted) return;
+            console.error("Availability stream error:", err);
+        }
+        // Stream ended (timeout or network); reconnect while the exam is still open
+        if (!controller.signal.aborted && availabilityStream.current === controller) {
+            setTimeout(() => {
+                if (availabilityStream.current === controller) watchAvailability(exam);
+            }, 3000);
+        }
+    };
+
+    const backToExams = () => {
+        availabilityStream.current?.abort();
+        clearTimeout(queuePoll.current);
+        setQueueStatus(null);
+        setSelectedExam(null);
+    };
+
     const openConfirmModal = (dateInfo) => {
         setConfirmModal({
             examId: selectedExam.examId,
@@ -119,16 +236,15 @@ export default function StudentDashboard() {
         if (!confirmModal) return;
         setBookingLoading(true);
         try {
-            const token = localStorage.getItem("token");
             const res = await axios.post("/api/student/book-seat", {
                 examId: confirmModal.examId,
                 slotDate: confirmModal.slotDate
             }, {
-                headers: { Authorization: `Bearer ${token.replace(/"/g, '')}` }
+                headers: authHeaders()
             });
             toast.success("Slot booked successfully!");
             setConfirmModal(null);
-            setSelectedExam(null); // Go back to exam list
+            backToExams(); // Go back to exam list
 
             // Reload data to show updated status
             loadData();
@@ -273,7 +389,7 @@ export default function StudentDashboard() {
 
             <header className="sticky top-4 z-40 px-6">
                 <nav className="max-w-7xl mx-auto bg-white/80 backdrop-blur-md border border-purple-100 shadow-lg shadow-purple-100/50 rounded-2xl px-6 py-3 flex justify-between items-center">
-                    <div className="flex items-center gap-3 group cursor-pointer" onClick={() => { setSelectedExam(null); loadData(); }}>
+                    <div className="flex items-center gap-3 group cursor-pointer" onClick={() => { backToExams(); loadData(); }}>
                         <div className="h-10 w-10 bg-gradient-to-br from-purple-600 to-indigo-600 rounded-xl flex items-center justify-center text-white font-bold text-xl transition-transform group-hover:rotate-12 shadow-lg shadow-purple-200">S</div>
                         <div className="flex flex-col leading-tight">
                             <span className="text-lg font-black text-gray-900 tracking-tighter">Slot</span>
@@ -400,7 +516,7 @@ export default function StudentDashboard() {
                     // Show available dates for selected exam
                     <div>
                         <button
-                            onClick={() => { setSelectedExam(null); setAvailableDates([]); }}
+                            onClick={() => { backToExams(); setAvailableDates([]); }}
                             className="mb-6 flex items-center gap-2 text-purple-600 font-bold hover:text-purple-700"
                         >
                             ← Back to Exams
@@ -409,7 +525,15 @@ export default function StudentDashboard() {
                         <h3 className="text-2xl font-black text-gray-900 mb-2">{selectedExam.examName}</h3>
                         <p className="text-gray-500 mb-8">Select a date to book your exam slot</p>
 
-                        {datesLoading ? (
+                        {queueStatus ? (
+                            <div className="text-center py-20 bg-white rounded-[2rem] border-2 border-dashed border-purple-200 shadow-lg">
+                                <Clock className="mx-auto h-16 w-16 text-purple-300 mb-4" />
+                                <h3 className="text-xl font-bold text-gray-900">You are in the queue</h3>
+                                <p className="text-gray-500">
+                                    {queueStatus.position} ahead of you · about {queueStatus.estimatedWaitSeconds}s. Keep this page open.
+                                </p>
+                            </div>
+                        ) : datesLoading ? (
                             <div className="flex justify-center items-center h-32">
                                 <Loader2 className="h-8 w-8 animate-spin text-purple-600" />
                             </div>
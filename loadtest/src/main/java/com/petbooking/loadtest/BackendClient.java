@@ -0,0 +1,135 @@
+package com.petbooking.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * The REST calls a student (and the admin publishing) makes, timed into a
+ * {@link LatencyRecorder}. Transport failures come back as status 0.
+ */
+public class BackendClient {
+
+    public record Response(int status, JsonNode body, long retryAfterMs) {
+        public boolean ok() {
+            return status == 200;
+        }
+
+        public String message() {
+            if (body.hasNonNull("message")) {
+                return body.get("message").asText();
+            }
+            return body.isTextual() ? body.asText() : body.toString();
+        }
+    }
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String baseUrl;
+    private final LatencyRecorder recorder;
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    public BackendClient(String baseUrl, LatencyRecorder recorder) {
+        this.baseUrl = baseUrl;
+        this.recorder = recorder;
+    }
+
+    public Response studentLogin(String rollNo, String email) {
+        return send("login", post("/api/auth/student/login", null, Map.of("rollNo", rollNo, "email", email)));
+    }
+
+    public Response adminLogin(String email, String password) {
+        return send("admin", post("/api/auth/admin/login", null, Map.of("email", email, "password", password)));
+    }
+
+    public Response publish(String adminToken, Long examId) {
+        return send("admin", post("/api/admin/exams/" + examId + "/publish", adminToken, Map.of()));
+    }
+
+    public Response deleteExam(String adminToken, Long examId) {
+        return send("admin", request("/api/admin/exams/" + examId, adminToken).DELETE());
+    }
+
+    public Response joinQueue(String token, Long examId) {
+        return send("queue", post("/api/student/queue/" + examId, token, Map.of()));
+    }
+
+    public Response queueStatus(String token, Long examId, String ticket) {
+        return send("queue", request("/api/student/queue/" + examId + "/status?token=" + ticket, token).GET());
+    }
+
+    public Response availableDates(String token, String queueToken, Long examId) {
+        return send("available-dates", withQueueToken(request("/api/student/available-dates/" + examId, token),
+                queueToken).GET());
+    }
+
+    public Response bookSeat(String token, String queueToken, Long examId, String slotDate) {
+        return send("book-seat", withQueueToken(post("/api/student/book-seat", token,
+                Map.of("examId", examId, "slotDate", slotDate)), queueToken));
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpRequest.Builder post(String path, String token, Map<String, Object> body) {
+        try {
+            return request(path, token).header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(body)));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static HttpRequest.Builder withQueueToken(HttpRequest.Builder builder, String queueToken) {
+        return queueToken == null ? builder : builder.header("X-Queue-Token", queueToken);
+    }
+
+    private Response send(String endpoint, HttpRequest.Builder builder) {
+        long start = System.nanoTime();
+        Response response;
+        try {
+            HttpResponse<String> raw = http.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+            long retryAfterMs = raw.headers().firstValue("Retry-After").map(s -> Long.parseLong(s) * 1000)
+                    .orElse(1000L);
+            response = new Response(raw.statusCode(), parse(raw.body()), retryAfterMs);
+        } catch (IOException e) {
+            response = new Response(0, TextNode.valueOf(e.getClass().getSimpleName()), 1000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response = new Response(0, TextNode.valueOf("interrupted"), 0L);
+        }
+        recorder.record(endpoint, System.nanoTime() - start, response);
+        return response;
+    }
+
+    private static JsonNode parse(String body) {
+        if (body == null || body.isEmpty()) {
+            return NullNode.getInstance();
+        }
+        try {
+            return JSON.readTree(body);
+        } catch (IOException e) {
+            return TextNode.valueOf(body);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.petbooking.loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Every request's latency per endpoint, plus a count per
+ * (endpoint, status, message) for the error mix. Samples are kept in full
+ * (a burst is at most a few hundred thousand requests), so percentiles are exact.
+ */
+public class LatencyRecorder {
+
+    private final Map<String, ConcurrentLinkedQueue<Long>> samples = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long nanos, BackendClient.Response response) {
+        samples.computeIfAbsent(endpoint, k -> new ConcurrentLinkedQueue<>()).add(nanos / 1000);
+        String message = response.ok() ? "" : " " + abbreviate(response.message());
+        outcomes.computeIfAbsent(endpoint + " " + response.status() + message, k -> new LongAdder()).increment();
+    }
+
+    public long[] sortedMicros(String endpoint) {
+        long[] values = samples.getOrDefault(endpoint, new ConcurrentLinkedQueue<>()).stream()
+                .mapToLong(Long::longValue).toArray();
+        Arrays.sort(values);
+        return values;
+    }
+
+    public static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    public void printLatencies(PrintStream out, String endpoint) {
+        long[] sorted = sortedMicros(endpoint);
+        if (sorted.length == 0) {
+            return;
+        }
+        out.printf("%n%s: %d requests, p50 %.1f ms, p90 %.1f ms, p95 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                endpoint, sorted.length, ms(percentile(sorted, 50)), ms(percentile(sorted, 90)),
+                ms(percentile(sorted, 95)), ms(percentile(sorted, 99)), ms(sorted[sorted.length - 1]));
+
+        // Power-of-two millisecond buckets: [0,1) [1,2) [2,4) ...
+        TreeMap<Long, Integer> buckets = new TreeMap<>();
+        for (long micros : sorted) {
+            long upperMs = Long.highestOneBit(Math.max(1, micros / 1000)) * 2;
+            buckets.merge(micros < 1000 ? 1 : upperMs, 1, Integer::sum);
+        }
+        int widest = buckets.values().stream().max(Integer::compare).orElse(1);
+        for (Map.Entry<Long, Integer> bucket : buckets.entrySet()) {
+            long upper = bucket.getKey();
+            String range = upper == 1 ? "< 1 ms" : (upper / 2) + "-" + upper + " ms";
+            int bar = (int) Math.ceil(40.0 * bucket.getValue() / widest);
+            out.printf("  %14s %7d %s%n", range, bucket.getValue(), "#".repeat(bar));
+        }
+    }
+
+    public void printOutcomes(PrintStream out) {
+        out.println("\nResponses (endpoint status message):");
+        new TreeMap<>(outcomes).forEach((key, count) -> out.printf("  %7d  %s%n", count.sum(), key));
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String abbreviate(String message) {
+        String single = message.replaceAll("\\s+", " ");
+        return single.length() > 80 ? single.substring(0, 77) + "..." : single;
+    }
+}
@@ -0,0 +1,64 @@
+package com.petbooking.loadtest;
+
+/**
+ * Scenario parameters, read from -Dloadtest.* system properties with
+ * LOADTEST_* environment variables as fallback (loadtest.think-ms is
+ * LOADTEST_THINK_MS).
+ */
+public record LoadTestConfig(
+        String baseUrl,
+        String jdbcUrl,
+        String adminEmail,
+        String adminPassword,
+        int students,
+        int depts,
+        int days,
+        double seatsPerStudent,
+        int thinkMs,
+        int concurrency,
+        int loginConcurrency,
+        int maxAttempts,
+        int availabilitySettleMs,
+        int availabilityWaitMs,
+        String label) {
+
+    public static LoadTestConfig load() {
+        return new LoadTestConfig(
+                get("base-url", "http://localhost:8080"),
+                get("jdbc-url", "jdbc:postgresql://localhost:5432/petbooking?user=postgres&password=postgres"),
+                get("admin-email", "admin@college.edu"),
+                get("admin-password", "admin123"),
+                Integer.parseInt(get("students", "1000")),
+                Integer.parseInt(get("depts", "4")),
+                Integer.parseInt(get("days", "5")),
+                Double.parseDouble(get("seats-per-student", "1.0")),
+                Integer.parseInt(get("think-ms", "0")),
+                Integer.parseInt(get("concurrency", "0")),
+                Integer.parseInt(get("login-concurrency", "20")),
+                Integer.parseInt(get("max-attempts", "20")),
+                Integer.parseInt(get("availability-settle-ms", "1000")),
+                Integer.parseInt(get("availability-wait-ms", "30000")),
+                get("label", "run"));
+    }
+
+    /**
+     * Students booking at the same time; 0 means everyone at once.
+     */
+    public int effectiveConcurrency() {
+        return concurrency > 0 ? concurrency : students;
+    }
+
+    private static String get(String name, String fallback) {
+        String value = System.getProperty("loadtest." + name);
+        if (value == null || value.isBlank()) {
+            value = System.getenv("LOADTEST_" + name.toUpperCase().replace('-', '_'));
+        }
+        return value == null || value.isBlank() ? fallback : value;
+    }
+
+    @Override
+    public String toString() {
+        return "students=" + students + " depts=" + depts + " days=" + days + " seatsPerStudent=" + seatsPerStudent
+                + " thinkMs=" + thinkMs + " concurrency=" + effectiveConcurrency() + " label=" + label;
+    }
+}
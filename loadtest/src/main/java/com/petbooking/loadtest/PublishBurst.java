@@ -0,0 +1,161 @@
+package com.petbooking.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Rehearses "the exam was published at 10:00" against a running backend.
+ *
+ * 1. Seeds departments, student master records and an unpublished exam (Scenario).
+ * 2. Logs every student in through /api/auth/student/login to get their JWTs.
+ * 3. Publishes the exam through the admin API and releases all students at once.
+ * 4. Prints latency histograms and the response mix, then verifies the seats (Verifier).
+ *
+ * Exits with status 1 if any verification fails. One summary line per run is
+ * appended to target/loadtest-results.csv so runs against differently
+ * configured servers (e.g. VIRTUAL_THREADS=true/false) can be compared.
+ */
+public class PublishBurst {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.load();
+        PrintStream out = System.out;
+        out.println("Publish burst: " + config + " against " + config.baseUrl());
+
+        LatencyRecorder recorder = new LatencyRecorder();
+        BackendClient client = new BackendClient(config.baseUrl(), recorder);
+        Scenario scenario = new Scenario(config);
+
+        BackendClient.Response admin = client.adminLogin(config.adminEmail(), config.adminPassword());
+        if (!admin.ok()) {
+            throw new IllegalStateException("Admin login failed: " + admin.status() + " " + admin.message());
+        }
+        String adminToken = admin.body().path("token").asText();
+        for (Long previous : scenario.previousExams()) {
+            client.deleteExam(adminToken, previous);
+        }
+
+        scenario.seed();
+        out.println("Seeded exam " + scenario.examId() + " with " + scenario.seatCount() + " unpublished seats");
+
+        List<String> tokens = login(client, scenario, config);
+        out.println("Logged in " + tokens.size() + " students");
+
+        List<VirtualStudent.Outcome> outcomes = new ArrayList<>();
+        long elapsedNanos;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CountDownLatch published = new CountDownLatch(1);
+            Semaphore inFlight = new Semaphore(config.effectiveConcurrency());
+            List<Future<VirtualStudent.Outcome>> futures = new ArrayList<>();
+            for (int i = 0; i < config.students(); i++) {
+                VirtualStudent student = new VirtualStudent(client, config, scenario.examId(), scenario.rollNo(i),
+                        tokens.get(i));
+                futures.add(executor.submit(() -> {
+                    published.await();
+                    inFlight.acquire();
+                    try {
+                        return student.run();
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+
+            BackendClient.Response publish = client.publish(adminToken, scenario.examId());
+            if (!publish.ok()) {
+                throw new IllegalStateException("Publish failed: " + publish.status() + " " + publish.message());
+            }
+            long start = System.nanoTime();
+            published.countDown();
+            for (Future<VirtualStudent.Outcome> future : futures) {
+                outcomes.add(future.get());
+            }
+            elapsedNanos = System.nanoTime() - start;
+        }
+
+        Map<VirtualStudent.Result, Integer> results = new EnumMap<>(VirtualStudent.Result.class);
+        outcomes.forEach(o -> results.merge(o.result(), 1, Integer::sum));
+        double seconds = elapsedNanos / 1e9;
+        int booked = results.getOrDefault(VirtualStudent.Result.BOOKED, 0);
+        out.printf("%nBurst finished in %.1f s: %s, %.1f bookings/s%n", seconds, results, booked / seconds);
+        outcomes.stream().filter(o -> o.result() == VirtualStudent.Result.GAVE_UP).limit(5)
+                .forEach(o -> out.println("  gave up: " + o.rollNo() + " last error: " + o.detail()));
+
+        for (String endpoint : List.of("login", "queue", "available-dates", "book-seat")) {
+            recorder.printLatencies(out, endpoint);
+        }
+        recorder.printOutcomes(out);
+
+        Verifier verifier = new Verifier(scenario, config);
+        boolean passed = verifier.verify(outcomes, out);
+        appendSummary(config, recorder, results, seconds, passed);
+        if (!passed) {
+            out.println("\nFAILED: " + String.join("; ", verifier.failures()));
+            System.exit(1);
+        }
+        out.println("\nPASSED");
+        System.exit(0);
+    }
+
+    private static List<String> login(BackendClient client, Scenario scenario, LoadTestConfig config)
+            throws Exception {
+        List<Future<BackendClient.Response>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Semaphore permits = new Semaphore(config.loginConcurrency());
+            for (int i = 0; i < config.students(); i++) {
+                int student = i;
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return client.studentLogin(scenario.rollNo(student), scenario.email(student));
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            BackendClient.Response response = futures.get(i).get();
+            if (!response.ok()) {
+                throw new IllegalStateException("Login failed for " + scenario.rollNo(i) + ": " + response.status()
+                        + " " + response.message());
+            }
+            tokens.add(response.body().path("token").asText());
+        }
+        return tokens;
+    }
+
+    private static void appendSummary(LoadTestConfig config, LatencyRecorder recorder,
+            Map<VirtualStudent.Result, Integer> results, double seconds, boolean passed) throws IOException {
+        Path file = Path.of("target", "loadtest-results.csv");
+        Files.createDirectories(file.getParent());
+        if (!Files.exists(file)) {
+            Files.writeString(file, "label,students,depts,days,think_ms,concurrency,seconds,booked,no_seats,gave_up,"
+                    + "book_p50_ms,book_p95_ms,book_p99_ms,book_max_ms,verified\n");
+        }
+        long[] book = recorder.sortedMicros("book-seat");
+        String line = String.format(java.util.Locale.ROOT, "%s,%d,%d,%d,%d,%d,%.2f,%d,%d,%d,%.1f,%.1f,%.1f,%.1f,%s%n",
+                config.label(), config.students(), config.depts(), config.days(), config.thinkMs(),
+                config.effectiveConcurrency(), seconds,
+                results.getOrDefault(VirtualStudent.Result.BOOKED, 0),
+                results.getOrDefault(VirtualStudent.Result.NO_SEATS_LEFT, 0),
+                results.getOrDefault(VirtualStudent.Result.GAVE_UP, 0),
+                LatencyRecorder.percentile(book, 50) / 1000.0, LatencyRecorder.percentile(book, 95) / 1000.0,
+                LatencyRecorder.percentile(book, 99) / 1000.0,
+                book.length == 0 ? 0 : book[book.length - 1] / 1000.0, passed);
+        Files.writeString(file, line, StandardOpenOption.APPEND);
+    }
+}
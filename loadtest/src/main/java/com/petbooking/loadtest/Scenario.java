@@ -0,0 +1,175 @@
+package com.petbooking.loadtest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test data, written straight to the database the backend runs against:
+ * departments LT01..LTnn, master records for the students (they register
+ * themselves on first login, as in production) and one unpublished exam whose
+ * seats are spread evenly over the days.
+ *
+ * Roll numbers encode the department count (LT04000123), so reruns with a
+ * different shape never reuse a student registered under another department.
+ */
+public class Scenario {
+
+    public static final String EXAM_PREFIX = "Load test ";
+    private static final String[][] TYPES = { { "DAY", "MALE" }, { "HOSTEL", "MALE" }, { "HOSTEL", "FEMALE" } };
+
+    private final LoadTestConfig config;
+    private Long examId;
+    private int seatCount;
+
+    public Scenario(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public String rollNo(int i) {
+        return String.format("LT%02d%06d", config.depts(), i);
+    }
+
+    public String email(int i) {
+        return rollNo(i).toLowerCase() + "@loadtest.local";
+    }
+
+    public static String deptCode(int dept) {
+        return String.format("LT%02d", dept);
+    }
+
+    /**
+     * Exam ids left behind by earlier runs, so they can be deleted through the admin API.
+     */
+    public List<Long> previousExams() throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Connection con = connect();
+                PreparedStatement ps = con.prepareStatement("SELECT exam_id FROM exams WHERE exam_name LIKE ?")) {
+            ps.setString(1, EXAM_PREFIX + "%");
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    public void seed() throws SQLException {
+        try (Connection con = connect()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO departments (dept_code) SELECT 'LT' || lpad(g::text, 2, '0') "
+                            + "FROM generate_series(1, ?) g ON CONFLICT (dept_code) DO NOTHING")) {
+                ps.setInt(1, config.depts());
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO student_master_upload (roll_no, name, email, dept_code, student_type, gender) "
+                            + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (roll_no) DO NOTHING")) {
+                for (int i = 0; i < config.students(); i++) {
+                    ps.setString(1, rollNo(i));
+                    ps.setString(2, "Load Student " + i);
+                    ps.setString(3, email(i));
+                    ps.setString(4, deptCode(i % config.depts() + 1));
+                    ps.setString(5, TYPES[(i / config.depts()) % 3][0]);
+                    ps.setString(6, TYPES[(i / config.depts()) % 3][1]);
+                    ps.addBatch();
+                    if (i % 1000 == 999) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+
+            LocalDate firstDay = LocalDate.now().plusDays(7);
+            try (PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO exams (exam_name, no_of_days, starting_date, ending_date, created_at, "
+                            + "total_day_scholars, total_hostel_boys, total_hostel_girls, systems_per_slot, "
+                            + "day_scholar_start_time, day_scholar_end_time, hostel_start_time, hostel_end_time) "
+                            + "VALUES (?, ?, ?, ?, now(), 0, 0, 0, 30, '09:00', '11:00', '14:00', '16:00') "
+                            + "RETURNING exam_id")) {
+                ps.setString(1, EXAM_PREFIX + java.time.LocalDateTime.now().withNano(0));
+                ps.setInt(2, config.days());
+                ps.setObject(3, firstDay);
+                ps.setObject(4, firstDay.plusDays(config.days() - 1));
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    examId = rs.getLong(1);
+                }
+            }
+
+            // The exam's own partition of exam_slot_seats, named and attached as ExamInitService does it
+            try (Statement st = con.createStatement()) {
+                String partition = "exam_slot_seats_exam_" + examId;
+                st.execute("CREATE TABLE " + partition + " (LIKE exam_slot_seats INCLUDING DEFAULTS)");
+                st.execute("ALTER TABLE exam_slot_seats ATTACH PARTITION " + partition
+                        + " FOR VALUES IN (" + examId + ")");
+            }
+
+            // Seats per (dept, category, day) = ceil(seatsPerStudent * partition students / days), unpublished
+            try (PreparedStatement ps = con.prepareStatement("""
+                    INSERT INTO exam_slot_seats (exam_id, slot_date, dept_id, category_type, status)
+                    SELECT ?, ?::date + d, p.dept_id, p.category_type, 'AVAILABLE'
+                    FROM (
+                        SELECT d.dept_id,
+                               CASE WHEN m.student_type <> 'HOSTEL' THEN 1 WHEN m.gender = 'MALE' THEN 2 ELSE 3 END
+                                   AS category_type,
+                               count(*) AS students
+                        FROM student_master_upload m JOIN departments d ON d.dept_code = m.dept_code
+                        WHERE m.roll_no LIKE ? AND substring(m.roll_no FROM 5)::int < ?
+                        GROUP BY 1, 2
+                    ) p
+                    CROSS JOIN generate_series(0, ? - 1) d
+                    CROSS JOIN LATERAL generate_series(1, ceil(? * p.students / ?)::int) k
+                    """)) {
+                ps.setLong(1, examId);
+                ps.setObject(2, firstDay);
+                ps.setString(3, String.format("LT%02d%%", config.depts()));
+                ps.setInt(4, config.students());
+                ps.setInt(5, config.days());
+                ps.setDouble(6, config.seatsPerStudent());
+                ps.setInt(7, config.days());
+                seatCount = ps.executeUpdate();
+            }
+
+            // The departments' publication rows (unpublished) and the availability summary,
+            // as ExamInitService writes them next to the seats
+            try (PreparedStatement ps = con.prepareStatement("""
+                    INSERT INTO exam_dept_publication (exam_id, dept_id, published, updated_at)
+                    SELECT DISTINCT exam_id, dept_id, false, now() FROM exam_slot_seats WHERE exam_id = ?
+                    """)) {
+                ps.setLong(1, examId);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = con.prepareStatement("""
+                    INSERT INTO exam_seat_availability
+                        (exam_id, dept_id, category_type, slot_date, total_seats, published_seats, free_seats)
+                    SELECT exam_id, dept_id, category_type, slot_date, count(*), 0, count(*)
+                    FROM exam_slot_seats WHERE exam_id = ? GROUP BY 1, 2, 3, 4
+                    """)) {
+                ps.setLong(1, examId);
+                ps.executeUpdate();
+            }
+            con.commit();
+        }
+    }
+
+    public Long examId() {
+        return examId;
+    }
+
+    public int seatCount() {
+        return seatCount;
+    }
+
+    public Connection connect() throws SQLException {
+        return DriverManager.getConnection(config.jdbcUrl());
+    }
+}
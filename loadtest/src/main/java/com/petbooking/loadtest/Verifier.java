@@ -0,0 +1,182 @@
+package com.petbooking.loadtest;
+
+import java.io.PrintStream;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * After the burst, checks exam_slot_seats against what the clients were told.
+ * Every check counts violations; the run fails if any count is non-zero.
+ *
+ * exam_seat_availability is eventually consistent: the backend sums seat
+ * booking deltas in memory and applies them every booking.availability.flush-ms
+ * (a delta that raced a recount is only corrected by the next recount, every
+ * booking.availability.recount-ms). Its check therefore runs last, after
+ * availability-settle-ms, and polls again for up to availability-wait-ms
+ * before it counts as failed; drift still there by then is reported row by row.
+ */
+public class Verifier {
+
+    private static final long AVAILABILITY_POLL_MS = 500;
+
+    private final Scenario scenario;
+    private final LoadTestConfig config;
+    private final List<String> failures = new ArrayList<>();
+
+    public Verifier(Scenario scenario, LoadTestConfig config) {
+        this.scenario = scenario;
+        this.config = config;
+    }
+
+    public boolean verify(List<VirtualStudent.Outcome> outcomes, PrintStream out)
+            throws SQLException, InterruptedException {
+        Long examId = scenario.examId();
+        List<String> bookedRolls = new ArrayList<>();
+        List<Long> bookedSlots = new ArrayList<>();
+        for (VirtualStudent.Outcome outcome : outcomes) {
+            if (outcome.result() == VirtualStudent.Result.BOOKED) {
+                bookedRolls.add(outcome.rollNo());
+                bookedSlots.add(outcome.slotId());
+            }
+        }
+
+        out.println("\nVerification (exam " + examId + "):");
+        try (Connection con = scenario.connect()) {
+            long seats = count(con, "SELECT count(*) FROM exam_slot_seats WHERE exam_id = ?", examId);
+            long booked = count(con,
+                    "SELECT count(*) FROM exam_slot_seats WHERE exam_id = ? AND roll_number IS NOT NULL", examId);
+            out.printf("  %d seats, %d booked in the database, %d bookings confirmed to clients%n",
+                    seats, booked, bookedRolls.size());
+
+            check(out, "seat rows added or removed during the burst", Math.abs(seats - scenario.seatCount()));
+
+            check(out, "students holding more than one seat (duplicate roll_number)", count(con, """
+                    SELECT count(*) FROM (
+                        SELECT roll_number FROM exam_slot_seats WHERE exam_id = ? AND roll_number IS NOT NULL
+                        GROUP BY roll_number HAVING count(*) > 1
+                    ) d""", examId));
+
+            check(out, "seats booked outside the student's department/category", count(con, """
+                    SELECT count(*) FROM exam_slot_seats x JOIN students s ON s.roll_no = x.roll_number
+                    WHERE x.exam_id = ? AND (x.dept_id <> s.dept_id OR x.category_type <>
+                        CASE s.category::text WHEN 'DAY' THEN 1 WHEN 'HOSTEL_MALE' THEN 2 ELSE 3 END)""", examId));
+
+            check(out, "seats with status out of step with roll_number", count(con, """
+                    SELECT count(*) FROM exam_slot_seats WHERE exam_id = ?
+                    AND (roll_number IS NULL) = (status = 'BOOKED')""", examId));
+
+            // Overbooking as the clients see it: a confirmed seat that is not theirs
+            try (PreparedStatement ps = con.prepareStatement("""
+                    SELECT count(*) FROM unnest(?::varchar[], ?::bigint[]) AS c(roll_no, slot_id)
+                    LEFT JOIN exam_slot_seats x ON x.slot_id = c.slot_id AND x.exam_id = ?
+                    WHERE x.roll_number IS DISTINCT FROM c.roll_no""")) {
+                Array rolls = con.createArrayOf("varchar", bookedRolls.toArray());
+                Array slots = con.createArrayOf("bigint", bookedSlots.toArray());
+                ps.setArray(1, rolls);
+                ps.setArray(2, slots);
+                ps.setLong(3, examId);
+                check(out, "confirmed bookings not held by that student (overbooking)", single(ps));
+            }
+            check(out, "seats booked without a confirmation reaching the client",
+                    Math.max(0, booked - bookedRolls.size()));
+
+            // Lost seats: a partition still has free seats while one of its students went without
+            try (PreparedStatement ps = con.prepareStatement("""
+                    WITH seats AS (
+                        SELECT dept_id, category_type, count(*) FILTER (WHERE roll_number IS NULL) AS free
+                        FROM exam_slot_seats WHERE exam_id = ? GROUP BY 1, 2
+                    ), waiting AS (
+                        SELECT s.dept_id,
+                               CASE s.category::text WHEN 'DAY' THEN 1 WHEN 'HOSTEL_MALE' THEN 2 ELSE 3 END
+                                   AS category_type,
+                               count(*) AS students
+                        FROM students s
+                        WHERE s.roll_no = ANY(?)
+                        AND NOT EXISTS (SELECT 1 FROM exam_slot_seats x WHERE x.exam_id = ?
+                                        AND x.roll_number = s.roll_no)
+                        GROUP BY 1, 2
+                    )
+                    SELECT coalesce(sum(least(seats.free, waiting.students)), 0)
+                    FROM seats JOIN waiting USING (dept_id, category_type)""")) {
+                ps.setLong(1, examId);
+                ps.setArray(2, con.createArrayOf("varchar",
+                        outcomes.stream().map(VirtualStudent.Outcome::rollNo).toArray()));
+                ps.setLong(3, examId);
+                check(out, "lost seats (free while a student of that partition got none)", single(ps));
+            }
+
+            List<String> unsettled = unsettledAvailability(con, examId);
+            check(out, "exam_seat_availability rows out of step with the seats", unsettled.size());
+            unsettled.stream().limit(5).forEach(row -> out.println("       " + row));
+        }
+        return failures.isEmpty();
+    }
+
+    /**
+     * Rows of the availability summary that differ from the seats, once the
+     * deltas have had time to land: none as soon as they agree, otherwise the
+     * rows still differing at the last poll.
+     */
+    private List<String> unsettledAvailability(Connection con, Long examId)
+            throws SQLException, InterruptedException {
+        Thread.sleep(config.availabilitySettleMs());
+        long deadline = System.currentTimeMillis() + config.availabilityWaitMs();
+        while (true) {
+            List<String> mismatched = new ArrayList<>();
+            try (PreparedStatement ps = con.prepareStatement("""
+                    SELECT dept_id, category_type, slot_date, x.free, a.free_seats FROM (
+                        SELECT dept_id, category_type, slot_date,
+                               count(*) FILTER (WHERE roll_number IS NULL) AS free
+                        FROM exam_slot_seats WHERE exam_id = ? GROUP BY 1, 2, 3
+                    ) x FULL JOIN (SELECT * FROM exam_seat_availability WHERE exam_id = ?) a
+                        USING (dept_id, category_type, slot_date)
+                    WHERE a.free_seats IS DISTINCT FROM x.free
+                    ORDER BY 1, 2, 3""")) {
+                ps.setLong(1, examId);
+                ps.setLong(2, examId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        mismatched.add("dept " + rs.getLong(1) + " category " + rs.getInt(2) + " " + rs.getDate(3)
+                                + ": " + rs.getObject(4) + " free seats, summary says " + rs.getObject(5));
+                    }
+                }
+            }
+            if (mismatched.isEmpty() || System.currentTimeMillis() >= deadline) {
+                return mismatched;
+            }
+            Thread.sleep(AVAILABILITY_POLL_MS);
+        }
+    }
+
+    public List<String> failures() {
+        return failures;
+    }
+
+    private void check(PrintStream out, String name, long violations) {
+        out.printf("  %-4s %-62s %d%n", violations == 0 ? "ok" : "FAIL", name, violations);
+        if (violations != 0) {
+            failures.add(name);
+        }
+    }
+
+    private static long count(Connection con, String sql, Object... args) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            return single(ps);
+        }
+    }
+
+    private static long single(PreparedStatement ps) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.petbooking.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One student's booking attempt, the way the dashboard drives it: load the
+ * available dates (waiting in the queue when the server asks), pick one at
+ * random, book, and on "no slots" go back to the date list.
+ */
+public class VirtualStudent {
+
+    public enum Result {
+        BOOKED, NO_SEATS_LEFT, ALREADY_BOOKED, GAVE_UP
+    }
+
+    public record Outcome(String rollNo, Result result, Long slotId, String detail) {
+    }
+
+    private final BackendClient client;
+    private final LoadTestConfig config;
+    private final Long examId;
+    private final String rollNo;
+    private final String token;
+    private String queueToken;
+
+    public VirtualStudent(BackendClient client, LoadTestConfig config, Long examId, String rollNo, String token) {
+        this.client = client;
+        this.config = config;
+        this.examId = examId;
+        this.rollNo = rollNo;
+        this.token = token;
+    }
+
+    public Outcome run() throws InterruptedException {
+        String lastError = "";
+        for (int attempt = 0; attempt < config.maxAttempts(); attempt++) {
+            think();
+            BackendClient.Response dates = client.availableDates(token, queueToken, examId);
+            if (dates.status() == 429) {
+                waitInQueue();
+                continue;
+            }
+            if (!dates.ok()) {
+                lastError = dates.status() + " " + dates.message();
+                Thread.sleep(dates.retryAfterMs());
+                continue;
+            }
+            List<String> open = new ArrayList<>();
+            for (JsonNode date : dates.body().path("availableDates")) {
+                if (date.path("availableCount").asLong() > 0) {
+                    open.add(date.path("slotDate").asText());
+                }
+            }
+            if (open.isEmpty()) {
+                return new Outcome(rollNo, Result.NO_SEATS_LEFT, null, "");
+            }
+
+            String slotDate = open.get(ThreadLocalRandom.current().nextInt(open.size()));
+            think();
+            BackendClient.Response booking = client.bookSeat(token, queueToken, examId, slotDate);
+            // Contended seats: same date again after Retry-After
+            while (booking.status() == 503 && attempt++ < config.maxAttempts()) {
+                Thread.sleep(booking.retryAfterMs());
+                booking = client.bookSeat(token, queueToken, examId, slotDate);
+            }
+            if (booking.ok()) {
+                return new Outcome(rollNo, Result.BOOKED, booking.body().path("slotId").asLong(), slotDate);
+            }
+            if (booking.status() == 429) {
+                waitInQueue();
+                continue;
+            }
+            String message = booking.message();
+            if (message.contains("already booked")) {
+                return new Outcome(rollNo, Result.ALREADY_BOOKED, null, message);
+            }
+            lastError = booking.status() + " " + message;
+        }
+        return new Outcome(rollNo, Result.GAVE_UP, null, lastError);
+    }
+
+    private void waitInQueue() throws InterruptedException {
+        if (queueToken == null) {
+            BackendClient.Response ticket = client.joinQueue(token, examId);
+            if (!ticket.ok()) {
+                Thread.sleep(ticket.retryAfterMs());
+                return;
+            }
+            queueToken = ticket.body().path("token").asText();
+            if (ticket.body().path("admitted").asBoolean()) {
+                return;
+            }
+        }
+        while (true) {
+            Thread.sleep(1000);
+            BackendClient.Response status = client.queueStatus(token, examId, queueToken);
+            if (status.status() == 404) {
+                // Ticket expired: take a new one on the next 429
+                queueToken = null;
+                return;
+            }
+            if (status.ok() && status.body().path("admitted").asBoolean()) {
+                return;
+            }
+        }
+    }
+
+    private void think() throws InterruptedException {
+        if (config.thinkMs() > 0) {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(config.thinkMs() + 1));
+        }
+    }
+}